@@ -0,0 +1,146 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ObjectMap;
+import infinityx.lunarhaze.controllers.EnemyController;
+import infinityx.lunarhaze.models.entity.Enemy;
+import infinityx.lunarhaze.models.entity.Werewolf;
+import infinityx.lunarhaze.physics.VisibilityTable;
+
+/**
+ * Level of detail scheduler deciding which enemies think (sense, run their state machine, aim) on a given frame.
+ * <p>
+ * Enemies are bucketed every frame by their distance and visibility to the target. Enemies engaged with the target or
+ * close to it think every frame, while far, hidden enemies think every few frames with the time accumulated since they
+ * last did. Every enemy has a phase, handed out in turn, so enemies of the same bucket think on different frames and
+ * the thinking done per frame stays about constant as the number of enemies grows. Enemies that do not think this
+ * frame still move along the steering they last planned and animate.
+ */
+public class AIScheduler {
+
+    /**
+     * Frames between two thoughts of an enemy in each bucket, nearest first.
+     * Powers of two so the phases of a bucket are a subset of those of the next.
+     */
+    private static final int[] PERIODS = {1, 2, 4, 8};
+
+    /**
+     * Enemies within this distance of the target think every frame, matches the range of detection
+     */
+    private static final float NEAR_RANGE = 5;
+
+    /**
+     * Enemies within this distance of the target think at the middle rates, depending on whether they can see it
+     */
+    private static final float MID_RANGE = 12;
+
+    /**
+     * Scheduling state of an enemy
+     */
+    private static class Entry {
+        /**
+         * Offset of the frames the enemy thinks on
+         */
+        int phase;
+
+        /**
+         * Time since the enemy last thought
+         */
+        float pending;
+
+        /**
+         * Time to think over handed out on the last frame the enemy was scheduled, 0 if it did not think
+         */
+        float thinkDelta;
+
+        /**
+         * Last frame the enemy was scheduled, to detect enemies coming back from the pool
+         */
+        long lastFrame = -2;
+    }
+
+    private final Werewolf target;
+
+    /**
+     * Line of sight between tiles, null to treat every enemy as visible
+     */
+    private final VisibilityTable visibility;
+
+    private final ObjectMap<EnemyController, Entry> entries = new ObjectMap<>();
+
+    /**
+     * Next phase handed out
+     */
+    private int nextPhase;
+
+    private long frame;
+
+    /**
+     * @param target     target of the enemies
+     * @param visibility line of sight between tiles, null to treat every enemy as visible
+     */
+    public AIScheduler(Werewolf target, VisibilityTable visibility) {
+        this.target = target;
+        this.visibility = visibility;
+    }
+
+    /**
+     * Starts a new frame, should be called once before scheduling the enemies of the frame
+     */
+    public void beginFrame() {
+        frame++;
+    }
+
+    /**
+     * Decides whether the enemy of a controller thinks this frame
+     *
+     * @param delta time since the last frame
+     * @return time to think over, the time since the enemy last thought. 0 if it does not think this frame.
+     */
+    public float schedule(EnemyController controller, float delta) {
+        Entry entry = entries.get(controller);
+        if (entry == null) {
+            entry = new Entry();
+            entry.phase = nextPhase++ & (PERIODS[PERIODS.length - 1] - 1);
+            entries.put(controller, entry);
+        }
+        // Back from the pool or otherwise not scheduled last frame, think right away
+        boolean resumed = entry.lastFrame != frame - 1;
+        entry.lastFrame = frame;
+        if (resumed) entry.pending = 0;
+
+        entry.pending += delta;
+        int period = PERIODS[bucket(controller.getEnemy())];
+        if (!resumed && ((frame + entry.phase) & (period - 1)) != 0) {
+            entry.thinkDelta = 0;
+            return 0;
+        }
+
+        entry.thinkDelta = entry.pending;
+        entry.pending = 0;
+        return entry.thinkDelta;
+    }
+
+    /**
+     * @return time to think over returned by {@link #schedule} for the enemy of a controller this frame,
+     * 0 if it does not think or was not scheduled this frame
+     */
+    public float getThinkDelta(EnemyController controller) {
+        Entry entry = entries.get(controller);
+        return entry == null || entry.lastFrame != frame ? 0 : entry.thinkDelta;
+    }
+
+    /**
+     * @return index in {@link #PERIODS} of the bucket the enemy falls in
+     */
+    private int bucket(Enemy enemy) {
+        if (enemy.isInBattle() || enemy.getDetection() != Enemy.Detection.NONE) return 0;
+        Vector2 pos = enemy.getPosition();
+        Vector2 targetPos = target.getPosition();
+        float dist2 = pos.dst2(targetPos);
+        if (dist2 <= NEAR_RANGE * NEAR_RANGE) return 0;
+        if (dist2 > MID_RANGE * MID_RANGE) return 3;
+        boolean hidden = visibility != null && visibility.isOccluded(pos.x, pos.y, targetPos.x, targetPos.y);
+        return hidden ? 2 : 1;
+    }
+}
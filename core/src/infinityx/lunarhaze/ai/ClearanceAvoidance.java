@@ -0,0 +1,77 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.ai.steer.Steerable;
+import com.badlogic.gdx.ai.steer.SteeringAcceleration;
+import com.badlogic.gdx.ai.steer.SteeringBehavior;
+import com.badlogic.gdx.math.Vector2;
+import infinityx.lunarhaze.models.DistanceField;
+
+/**
+ * Keeps the owner clear of static obstacles by sampling a {@link DistanceField} a little ahead of it,
+ * rather than probing the world with rays.
+ * <p>
+ * While the clearance at the probe is at least the bounding radius of the owner plus a margin, the steering is zero,
+ * so this is meant to be combined with other behaviors through {@link com.badlogic.gdx.ai.steer.behaviors.PrioritySteering}.
+ * Closer to an obstacle, the owner slides along it (its velocity loses the part heading into the obstacle)
+ * and is pushed out along the field gradient, more so the closer it is. The cost is a couple of lookups per call.
+ */
+public class ClearanceAvoidance extends SteeringBehavior<Vector2> {
+
+    private final DistanceField field;
+
+    /**
+     * Clearance beyond the bounding radius of the owner under which the behavior reacts, in world units
+     */
+    private final float margin;
+
+    /**
+     * How far ahead the field is probed, in seconds of the current velocity
+     */
+    private final float lookahead;
+
+    /**
+     * Direction away from the obstacle
+     */
+    private final Vector2 normal = new Vector2();
+
+    /**
+     * Creates a {@code ClearanceAvoidance} behavior for the specified owner.
+     *
+     * @param owner     the owner of this behavior
+     * @param field     distance field of the static obstacles
+     * @param margin    clearance beyond the bounding radius of the owner under which the behavior reacts
+     * @param lookahead how far ahead the field is probed, in seconds of the current velocity
+     */
+    public ClearanceAvoidance(Steerable<Vector2> owner, DistanceField field, float margin, float lookahead) {
+        super(owner);
+        this.field = field;
+        this.margin = margin;
+        this.lookahead = lookahead;
+    }
+
+    @Override
+    protected SteeringAcceleration<Vector2> calculateRealSteering(SteeringAcceleration<Vector2> steering) {
+        Vector2 pos = owner.getPosition();
+        Vector2 velocity = owner.getLinearVelocity();
+        float x = pos.x + velocity.x * lookahead;
+        float y = pos.y + velocity.y * lookahead;
+
+        float clearance = owner.getBoundingRadius() + margin;
+        float distance = field.sample(x, y);
+        // Halfway between obstacles the gradient vanishes, there is nowhere better to go
+        if (distance >= clearance || field.gradient(x, y, normal).isZero()) return steering.setZero();
+        normal.nor();
+
+        // Slide along the obstacle
+        steering.linear.set(velocity);
+        float into = steering.linear.dot(normal);
+        if (into < 0) steering.linear.mulAdd(normal, -into);
+
+        // Push out, fully when touching the obstacle
+        float push = 1 - Math.max(distance, 0) / clearance;
+        steering.linear.nor().scl(1 - push).mulAdd(normal, push).nor()
+                .scl(getActualLimiter().getMaxLinearSpeed());
+        steering.angular = 0;
+        return steering;
+    }
+}
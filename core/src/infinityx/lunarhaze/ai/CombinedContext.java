@@ -3,11 +3,13 @@ package infinityx.lunarhaze.ai;
 import com.badlogic.gdx.ai.steer.Steerable;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.FloatArray;
 
 /**
  * The CombinedContext behavior iterates through the behaviors,
  * comparing each slot across multiple maps and taking a maximum.
+ * <p>
+ * Each behavior writes into a preallocated scratch map, which is folded into the output with a single pass
+ * over both of its maps. As intensities are non-negative, disabled behaviors (whose maps are zero) are skipped.
  */
 public class CombinedContext extends ContextBehavior {
 
@@ -16,8 +18,10 @@ public class CombinedContext extends ContextBehavior {
      */
     protected Array<ContextBehavior> behaviors = new Array<>();
 
-    private final FloatArray dangerOutput;
-    private final FloatArray interestOutput;
+    /**
+     * Scratch map the behaviors are calculated into, recreated if the resolution changes
+     */
+    private ContextMap scratch;
 
     /**
      * Creates a {@code CombinedContext} behavior for the specified owner.
@@ -26,8 +30,6 @@ public class CombinedContext extends ContextBehavior {
      */
     public CombinedContext(Steerable<Vector2> owner) {
         super(owner);
-        dangerOutput = new FloatArray();
-        interestOutput = new FloatArray();
     }
 
 
@@ -45,31 +47,16 @@ public class CombinedContext extends ContextBehavior {
 
     @Override
     protected ContextMap calculateRealMaps(ContextMap map) {
-        // Set size and zero out
-        dangerOutput.setSize(map.getResolution());
-        for (int i = 0; i < dangerOutput.size; i++) {
-            dangerOutput.set(i, 0);
-        }
-        interestOutput.setSize(map.getResolution());
-        for (int i = 0; i < interestOutput.size; i++) {
-            interestOutput.set(i, 0);
+        if (scratch == null || scratch.getResolution() != map.getResolution()) {
+            scratch = new ContextMap(map.getResolution());
         }
 
         // Get max for each slot
-        for (ContextBehavior behavior : behaviors) {
-            behavior.calculateMaps(map);
-            for (int i = 0; i < map.getResolution(); i++) {
-                dangerOutput.set(i, Math.max(dangerOutput.get(i), map.dangerMap[i]));
-                interestOutput.set(i, Math.max(interestOutput.get(i), map.interestMap[i]));
-            }
-        }
-
-        // Push into map
-        for (int i = 0; i < interestOutput.size; i++) {
-            map.interestMap[i] = interestOutput.get(i);
-        }
-        for (int i = 0; i < dangerOutput.size; i++) {
-            map.dangerMap[i] = dangerOutput.get(i);
+        map.setZero();
+        for (int i = 0; i < behaviors.size; i++) {
+            ContextBehavior behavior = behaviors.get(i);
+            if (!behavior.isEnabled()) continue;
+            map.max(behavior.calculateRealMaps(scratch));
         }
 
         return map;
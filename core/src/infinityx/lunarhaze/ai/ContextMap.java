@@ -2,15 +2,23 @@ package infinityx.lunarhaze.ai;
 
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
-import infinityx.util.AngleUtils;
+import com.badlogic.gdx.utils.IntMap;
 
 import java.util.Arrays;
 
 /**
  * {@code ContextMap} is the output of a {@link ContextBehavior}.
  * It is made up of two components, the {@link #dangerMap} and {@link #interestMap}.
+ * <p>
+ * Both maps hold non-negative intensities. The heading of each slot is read from a table of unit vectors
+ * shared by every map of the same resolution, see {@link #dirX(int)} and {@link #dirY(int)}.
  */
 public class ContextMap {
+    /**
+     * Unit vectors of the slot headings for each resolution used so far, x and y interleaved
+     */
+    private static final IntMap<float[]> DIRECTIONS = new IntMap<>();
+
     /**
      * The number of elements in {@link #dangerMap} and {@link #interestMap}, i.e. the number of
      * headings the context behavior will consider.
@@ -29,6 +37,11 @@ public class ContextMap {
      */
     public float[] interestMap;
 
+    /**
+     * Shared heading table of {@link #resolution}, see {@link #directions(int)}
+     */
+    private final float[] directions;
+
 
     /**
      * Creates a default ContextMap.
@@ -47,6 +60,27 @@ public class ContextMap {
         dangerMap = new float[resolution];
         interestMap = new float[resolution];
         this.resolution = resolution;
+        this.directions = directions(resolution);
+    }
+
+    /**
+     * Returns the unit vectors of the slot headings of a resolution, x and y interleaved.
+     * Slot i points at angle 2 * PI * i / resolution. Tables are computed once and shared, so must not be modified.
+     */
+    public static float[] directions(int resolution) {
+        synchronized (DIRECTIONS) {
+            float[] table = DIRECTIONS.get(resolution);
+            if (table == null) {
+                table = new float[2 * resolution];
+                for (int i = 0; i < resolution; i++) {
+                    float angle = MathUtils.PI2 * ((float) i / resolution);
+                    table[2 * i] = MathUtils.cos(angle);
+                    table[2 * i + 1] = MathUtils.sin(angle);
+                }
+                DIRECTIONS.put(resolution, table);
+            }
+            return table;
+        }
     }
 
     private Vector2 dirCache = new Vector2();
@@ -55,11 +89,55 @@ public class ContextMap {
      * Context map slot to heading.
      *
      * @param slot index into {@link #dangerMap} or {@link #interestMap}
-     * @return unit vector pointing towards heading.
+     * @return unit vector pointing towards heading. The vector is reused by the next call.
      */
     public Vector2 dirFromSlot(int slot) {
-        float angle = MathUtils.PI2 * ((float) slot / resolution);
-        return AngleUtils.angleToVector(dirCache, angle);
+        return dirCache.set(directions[2 * slot], directions[2 * slot + 1]);
+    }
+
+    /**
+     * @return x-component of the unit heading of a slot
+     */
+    public float dirX(int slot) {
+        return directions[2 * slot];
+    }
+
+    /**
+     * @return y-component of the unit heading of a slot
+     */
+    public float dirY(int slot) {
+        return directions[2 * slot + 1];
+    }
+
+    /**
+     * Zeros the danger map and fills the interest map with how much each heading points along (x, y),
+     * i.e. scale * max(0, heading . (x, y)), in a single pass.
+     *
+     * @return this map for chaining
+     */
+    public ContextMap setInterest(float x, float y, float scale) {
+        float[] dirs = directions;
+        for (int i = 0; i < resolution; i++) {
+            dangerMap[i] = 0;
+            float dot = dirs[2 * i] * x + dirs[2 * i + 1] * y;
+            interestMap[i] = dot > 0 ? scale * dot : 0;
+        }
+        return this;
+    }
+
+    /**
+     * Keeps the maximum of each slot of this map and the other, in a single pass over both maps.
+     * The other map must have the same resolution.
+     *
+     * @return this map for chaining
+     */
+    public ContextMap max(ContextMap other) {
+        float[] danger = other.dangerMap, interest = other.interestMap;
+        for (int i = 0; i < resolution; i++) {
+            if (danger[i] > dangerMap[i]) dangerMap[i] = danger[i];
+            if (interest[i] > interestMap[i]) interestMap[i] = interest[i];
+        }
+        return this;
     }
 
     /**
@@ -0,0 +1,120 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.ai.steer.Steerable;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import infinityx.lunarhaze.models.DistanceField;
+import infinityx.lunarhaze.models.NeighborGrid;
+
+import java.util.Arrays;
+
+/**
+ * A behavior marking as dangerous the headings along which the owner would run into an obstacle or another agent
+ * within a short range, and the few headings around them.
+ * <p>
+ * Rather than casting a ray per heading, static obstacles are found by sphere tracing a {@link DistanceField}, and
+ * nearby agents are taken from a {@link NeighborGrid}. Each neighbour blocks a range of headings that is computed
+ * analytically from its distance and radius.
+ */
+public class ContextSeparation extends ContextBehavior {
+
+    /**
+     * How far ahead each heading is checked, in world units
+     */
+    private final float range;
+
+    /**
+     * Number of slots on each side of a blocked heading that are also dangerous
+     */
+    private final int spread;
+
+    private final DistanceField obstacles;
+    private final NeighborGrid neighbors;
+
+    /**
+     * Headings blocked by the last calculation, before spreading
+     */
+    private boolean[] blocked = new boolean[0];
+
+    /**
+     * Neighbours found by the last calculation
+     */
+    private final IntArray found = new IntArray();
+
+    /**
+     * Creates a {@code ContextSeparation} behavior for the specified owner.
+     *
+     * @param owner     the owner of this behavior
+     * @param obstacles distance field of the static obstacles
+     * @param neighbors grid of the agents to stay away from, may contain the owner
+     * @param range     how far ahead each heading is checked, in world units
+     * @param spread    number of slots on each side of a blocked heading that are also dangerous
+     */
+    public ContextSeparation(Steerable<Vector2> owner, DistanceField obstacles, NeighborGrid neighbors, float range, int spread) {
+        super(owner);
+        this.obstacles = obstacles;
+        this.neighbors = neighbors;
+        this.range = range;
+        this.spread = spread;
+    }
+
+    @Override
+    protected ContextMap calculateRealMaps(ContextMap map) {
+        int resolution = map.getResolution();
+        if (blocked.length != resolution) blocked = new boolean[resolution];
+        Arrays.fill(blocked, false);
+
+        Vector2 pos = owner.getPosition();
+        float x = pos.x, y = pos.y;
+
+        for (int i = 0; i < resolution; i++) {
+            blocked[i] = obstacles.isBlocked(x, y, x + map.dirX(i) * range, y + map.dirY(i) * range);
+        }
+
+        neighbors.query(x, y, range, found);
+        for (int k = 0; k < found.size; k++) {
+            int j = found.get(k);
+            if (neighbors.getAgent(j) == owner) continue;
+            blockNeighbor(neighbors.getX(j) - x, neighbors.getY(j) - y, neighbors.getRadius(j), resolution);
+        }
+
+        map.setZero();
+        for (int i = 0; i < resolution; i++) {
+            if (!blocked[i]) continue;
+            for (int j = -spread; j <= spread; j++) {
+                map.dangerMap[(i + j + resolution) % resolution] = 1;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Marks the headings whose segment of length {@link #range} hits the circle of radius r at offset (dx, dy)
+     */
+    private void blockNeighbor(float dx, float dy, float r, int resolution) {
+        float dist2 = dx * dx + dy * dy;
+        // Overlapping agents block nothing, as a segment starting inside a circle does not hit it
+        if (dist2 <= r * r) return;
+        float dist = (float) Math.sqrt(dist2);
+        if (dist >= range + r) return;
+
+        // Half the angle of the headings hitting the circle. Up to the tangents if the tangent points are in range,
+        // otherwise up to where the circle crosses the range.
+        float halfAngle;
+        if (dist2 - r * r <= range * range) {
+            halfAngle = (float) Math.asin(r / dist);
+        } else {
+            float cos = (range * range + dist2 - r * r) / (2 * range * dist);
+            halfAngle = (float) Math.acos(MathUtils.clamp(cos, -1, 1));
+        }
+
+        float slotAngle = MathUtils.PI2 / resolution;
+        float center = MathUtils.atan2(dy, dx);
+        int first = MathUtils.ceil((center - halfAngle) / slotAngle);
+        int last = MathUtils.floor((center + halfAngle) / slotAngle);
+        for (int slot = first; slot <= last; slot++) {
+            blocked[((slot % resolution) + resolution) % resolution] = true;
+        }
+    }
+}
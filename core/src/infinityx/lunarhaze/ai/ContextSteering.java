@@ -5,8 +5,6 @@ import com.badlogic.gdx.ai.steer.SteeringAcceleration;
 import com.badlogic.gdx.ai.steer.SteeringBehavior;
 import com.badlogic.gdx.math.Vector2;
 
-import java.util.Arrays;
-
 /**
  * {@code ContextSteering} class represents a steering behavior that processes a {@link ContextMap}
  * generated by a {@link ContextBehavior} to determine the best direction and speed to move.
@@ -18,12 +16,12 @@ public class ContextSteering extends SteeringBehavior<Vector2> {
      */
     private final ContextBehavior contextBehavior;
 
+    private final ContextMap cachedContextMap;
+
     /**
-     * Masked slots for filtering the interest map.
+     * Output of {@link #getDirection()}
      */
-    private final boolean[] maskedSlots;
-
-    private final ContextMap cachedContextMap;
+    private final Vector2 direction = new Vector2();
 
     /**
      * Creates a new {@code ContextSteering} instance using the given {@link ContextBehavior}.
@@ -35,7 +33,6 @@ public class ContextSteering extends SteeringBehavior<Vector2> {
     public ContextSteering(Steerable<Vector2> owner, ContextBehavior contextBehavior, int resolution) {
         super(owner);
         this.contextBehavior = contextBehavior;
-        this.maskedSlots = new boolean[resolution];
         this.cachedContextMap = new ContextMap(resolution);
     }
 
@@ -50,7 +47,8 @@ public class ContextSteering extends SteeringBehavior<Vector2> {
     /**
      * Public for debugging purposes
      *
-     * @return scaled direction of the highest interest slot
+     * @return scaled direction of the highest interest slot. Interest in slots with more than the lowest danger
+     * is ignored. The vector is reused by the next call.
      */
     public Vector2 getDirection() {
         ContextMap contextMap = contextBehavior.calculateMaps(cachedContextMap);
@@ -61,42 +59,21 @@ public class ContextSteering extends SteeringBehavior<Vector2> {
         // First pass to find the lowest danger
         float lowestDanger = Float.MAX_VALUE;
         for (int i = 0; i < resolution; i++) {
-            float danger = dangerMap[i];
-            if (danger < lowestDanger) {
-                lowestDanger = danger;
-            }
+            if (dangerMap[i] < lowestDanger) lowestDanger = dangerMap[i];
         }
 
-        // Second pass to mask out slots with higher danger
-        Arrays.fill(maskedSlots, false);
-        for (int i = 0; i < resolution; i++) {
-            float danger = dangerMap[i];
-            if (danger == lowestDanger) {
-                maskedSlots[i] = true;
-            }
-        }
-
-        // Apply mask to interest map
-        for (int i = 0; i < resolution; i++) {
-            if (!maskedSlots[i]) {
-                interestMap[i] = 0;
-            }
-        }
-
-        // Find the interest map slot with the highest remaining interest
+        // Second pass finds the highest interest among the slots with the lowest danger, the others are masked out
         int highestInterestSlot = 0;
-        float highestInterest = -Float.MAX_VALUE;
-
+        float highestInterest = 0;
         for (int i = 0; i < resolution; i++) {
-            float interest = interestMap[i];
-            if (interest > highestInterest) {
-                highestInterest = interest;
+            if (dangerMap[i] == lowestDanger && interestMap[i] > highestInterest) {
+                highestInterest = interestMap[i];
                 highestInterestSlot = i;
             }
         }
 
         // Move in the direction of the highest interest slot
-        return contextMap.dirFromSlot(highestInterestSlot).scl(highestInterest);
+        return direction.set(contextMap.dirX(highestInterestSlot), contextMap.dirY(highestInterestSlot)).scl(highestInterest);
     }
 
     @Override
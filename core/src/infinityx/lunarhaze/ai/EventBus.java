@@ -0,0 +1,179 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+import infinityx.util.TimerWheel;
+
+/**
+ * Event bus for coordinating AI, owned by a level rather than global like gdx-ai's MessageManager.
+ * <p>
+ * Event types are small non-negative ints, each with its own array of listeners. An event carries a subject and
+ * primitive payload fields instead of a boxed extra info, and may name a single receiver. Events are delivered right
+ * away, or after a delay as timers of the {@link TimerWheel} of the level, so delayed events follow the game clock.
+ * Events are pooled, so dispatching does not allocate once the pool is warm.
+ * <p>
+ * Listeners must not keep the event they are handed, it is reused once delivered.
+ *
+ * @param <T> type of the subject of events
+ */
+public class EventBus<T> {
+
+    /**
+     * Handles events of the types it listens to, or that name it as receiver
+     */
+    public interface Listener<T> {
+        void handleEvent(Event<T> event);
+    }
+
+    /**
+     * An event and its payload
+     */
+    public static class Event<T> implements Pool.Poolable, Runnable {
+        public int type;
+
+        /**
+         * What the event is about, e.g. the controller sending it
+         */
+        public T subject;
+
+        /**
+         * Only listener the event is delivered to, null to deliver it to every listener of its type
+         */
+        public Listener<T> receiver;
+
+        /**
+         * Primitive payload
+         */
+        public int intValue;
+        public float floatValue;
+
+        /**
+         * Bus the event belongs to
+         */
+        private EventBus<T> bus;
+
+        @Override
+        public void reset() {
+            subject = null;
+            receiver = null;
+            intValue = 0;
+            floatValue = 0;
+        }
+
+        /**
+         * Delivers the delayed event when its timer fires
+         */
+        @Override
+        public void run() {
+            bus.deliver(this);
+            bus.events.free(this);
+        }
+    }
+
+    /**
+     * listeners[type] are the listeners of events of that type, null if there are none
+     */
+    private Array<Listener<T>>[] listeners;
+
+    /**
+     * Clock delayed events wait on
+     */
+    private final TimerWheel timers;
+
+    private final Pool<Event<T>> events = new Pool<Event<T>>() {
+        @Override
+        protected Event<T> newObject() {
+            Event<T> event = new Event<>();
+            event.bus = EventBus.this;
+            return event;
+        }
+    };
+
+    /**
+     * @param timers clock delayed events wait on
+     */
+    @SuppressWarnings("unchecked")
+    public EventBus(TimerWheel timers) {
+        this.timers = timers;
+        listeners = new Array[8];
+    }
+
+    /**
+     * Registers a listener for events of the given type
+     */
+    @SuppressWarnings("unchecked")
+    public void addListener(Listener<T> listener, int type) {
+        if (type >= listeners.length) {
+            Array<Listener<T>>[] grown = new Array[Math.max(type + 1, 2 * listeners.length)];
+            System.arraycopy(listeners, 0, grown, 0, listeners.length);
+            listeners = grown;
+        }
+        if (listeners[type] == null) listeners[type] = new Array<>(false, 4);
+        if (!listeners[type].contains(listener, true)) listeners[type].add(listener);
+    }
+
+    public void removeListener(Listener<T> listener, int type) {
+        if (type < listeners.length && listeners[type] != null) listeners[type].removeValue(listener, true);
+    }
+
+    /**
+     * @return a blank event of the given type to fill and hand to {@link #post(Event, float)}
+     */
+    public Event<T> obtain(int type, T subject) {
+        Event<T> event = events.obtain();
+        event.type = type;
+        event.subject = subject;
+        return event;
+    }
+
+    /**
+     * Delivers an event to every listener of its type right away
+     */
+    public void dispatch(int type, T subject) {
+        post(obtain(type, subject), 0);
+    }
+
+    /**
+     * Delivers an event to a single listener right away
+     */
+    public void dispatch(int type, T subject, Listener<T> receiver) {
+        Event<T> event = obtain(type, subject);
+        event.receiver = receiver;
+        post(event, 0);
+    }
+
+    /**
+     * Delivers an event obtained from {@link #obtain(int, Object)}, which then belongs to the bus
+     *
+     * @param delay seconds before the event is delivered, right away if not positive
+     */
+    public void post(Event<T> event, float delay) {
+        if (delay <= 0) {
+            deliver(event);
+            events.free(event);
+            return;
+        }
+        timers.schedule(delay, event);
+    }
+
+    private void deliver(Event<T> event) {
+        if (event.receiver != null) {
+            event.receiver.handleEvent(event);
+            return;
+        }
+        if (event.type >= listeners.length || listeners[event.type] == null) return;
+        Array<Listener<T>> typeListeners = listeners[event.type];
+        for (int i = 0; i < typeListeners.size; i++) {
+            typeListeners.get(i).handleEvent(event);
+        }
+    }
+
+    /**
+     * Drops every listener, events still pending are delivered to no one
+     */
+    public void clear() {
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = null;
+        }
+    }
+}
@@ -12,6 +12,8 @@ import com.badlogic.gdx.math.Vector2;
 
 /**
  * {@link com.badlogic.gdx.ai.steer.behaviors.FollowPath} but assumes velocity.
+ * Meant for {@link infinityx.util.astar.WaypointPath}, whose params track the progress of the owner so each update
+ * only looks at the few segments around it.
  *
  * @param <P> Type of path parameter implementing the {@link PathParam} interface
  */
@@ -0,0 +1,62 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.ai.utils.Location;
+import com.badlogic.gdx.math.Vector2;
+import infinityx.util.AngleUtils;
+
+/**
+ * Copy of a {@link Location} taken at some point of a tick, e.g. of the player before the enemies plan their steering.
+ * <p>
+ * Unlike the location of a physics body, reading a snapshot is a plain field access, so any number of threads can read
+ * it while nothing calls {@link #set(Location)}. Readers must not modify the vector returned by {@link #getPosition()}.
+ */
+public class LocationSnapshot implements Location<Vector2> {
+
+    private final Vector2 position = new Vector2();
+
+    private float orientation;
+
+    /**
+     * Copies the position and orientation of the given location
+     *
+     * @return this snapshot for chaining
+     */
+    public LocationSnapshot set(Location<Vector2> location) {
+        position.set(location.getPosition());
+        orientation = location.getOrientation();
+        return this;
+    }
+
+    /**
+     * @return position at the time of the snapshot, must not be modified
+     */
+    @Override
+    public Vector2 getPosition() {
+        return position;
+    }
+
+    @Override
+    public float getOrientation() {
+        return orientation;
+    }
+
+    @Override
+    public void setOrientation(float orientation) {
+        this.orientation = orientation;
+    }
+
+    @Override
+    public float vectorToAngle(Vector2 vector) {
+        return AngleUtils.vectorToAngle(vector);
+    }
+
+    @Override
+    public Vector2 angleToVector(Vector2 outVector, float angle) {
+        return AngleUtils.angleToVector(outVector, angle);
+    }
+
+    @Override
+    public Location<Vector2> newLocation() {
+        return new LocationSnapshot();
+    }
+}
@@ -0,0 +1,68 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.ai.steer.Steerable;
+import com.badlogic.gdx.ai.steer.SteeringAcceleration;
+import com.badlogic.gdx.ai.steer.SteeringBehavior;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import infinityx.lunarhaze.models.NeighborGrid;
+
+/**
+ * Pushes the owner away from the other agents within a short range, taken from a {@link NeighborGrid}.
+ * <p>
+ * Each neighbour pushes directly away from itself, more so the smaller the gap between the bounding circles of the
+ * two, and fully once they touch. The output is a velocity, as applied by
+ * {@link infinityx.lunarhaze.models.SteeringGameObject}. The steering is zero when no neighbour is in range, so this is meant to be blended
+ * with a behavior that moves the owner, e.g. through {@link com.badlogic.gdx.ai.steer.behaviors.BlendedSteering}.
+ */
+public class NeighborSeparation extends SteeringBehavior<Vector2> {
+
+    private final NeighborGrid neighbors;
+
+    /**
+     * Gap between bounding circles under which a neighbour pushes, in world units
+     */
+    private final float range;
+
+    /**
+     * Neighbours found by the last calculation
+     */
+    private final IntArray found = new IntArray();
+
+    /**
+     * Creates a {@code NeighborSeparation} behavior for the specified owner.
+     *
+     * @param owner     the owner of this behavior
+     * @param neighbors grid of the agents to stay away from, may contain the owner
+     * @param range     gap between bounding circles under which a neighbour pushes, in world units
+     */
+    public NeighborSeparation(Steerable<Vector2> owner, NeighborGrid neighbors, float range) {
+        super(owner);
+        this.neighbors = neighbors;
+        this.range = range;
+    }
+
+    @Override
+    protected SteeringAcceleration<Vector2> calculateRealSteering(SteeringAcceleration<Vector2> steering) {
+        steering.setZero();
+        Vector2 pos = owner.getPosition();
+        float radius = owner.getBoundingRadius();
+
+        neighbors.query(pos.x, pos.y, radius + range, found);
+        for (int k = 0; k < found.size; k++) {
+            int j = found.get(k);
+            if (neighbors.getAgent(j) == owner) continue;
+            float dx = pos.x - neighbors.getX(j), dy = pos.y - neighbors.getY(j);
+            float dist = (float) Math.sqrt(dx * dx + dy * dy);
+            // Stacked agents have no direction to part along
+            if (dist == 0) continue;
+            float gap = dist - radius - neighbors.getRadius(j);
+            float push = 1 - Math.max(gap, 0) / range;
+            steering.linear.add(dx / dist * push, dy / dist * push);
+        }
+
+        // A velocity like the behaviors it is blended with, up to the full speed of the owner when touching
+        steering.linear.limit(1).scl(getActualLimiter().getMaxLinearSpeed());
+        return steering;
+    }
+}
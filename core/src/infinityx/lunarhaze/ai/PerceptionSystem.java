@@ -0,0 +1,150 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import infinityx.lunarhaze.controllers.EnemyController;
+import infinityx.lunarhaze.models.entity.Enemy;
+import infinityx.lunarhaze.models.entity.Werewolf;
+import infinityx.lunarhaze.physics.RaycastService;
+import infinityx.lunarhaze.physics.StaticBVH;
+
+/**
+ * Senses the target for every enemy in a single pass per frame.
+ * <p>
+ * Areas of interest of an enemy, each extending further the less stealthy the target is:
+ * <ul>
+ *     <li>Focused view - same angle as the flashlight</li>
+ *     <li>Short distance - angle of 100</li>
+ *     <li>Peripheral vision - angle of 180</li>
+ *     <li>Hearing - angle of 360, out to the noise radius of the target</li>
+ * </ul>
+ * Seeing the target alerts the enemy while hearing it only gets noticed, and neither works through static geometry.
+ * <p>
+ * The enemies whose detection is due are gathered into parallel arrays of positions, facings and cone angles. The
+ * ranges and angles of all of them are then classified in one loop over those arrays only, comparing dot products
+ * against cosines rather than computing angles. Only the enemies that could sense the target cast a ray for line of
+ * sight, and the results are handed back to the controllers.
+ */
+public class PerceptionSystem {
+
+    /**
+     * Range of each area of interest, lerped by the stealth of the target
+     */
+    public static final float FOCUSED_MIN = 3.0f;
+    public static final float FOCUSED_MAX = 3.7f;
+    public static final float SHORT_MIN = 2.25f;
+    public static final float SHORT_MAX = 3.2f;
+    public static final float PERIPHERAL_MIN = 1.9f;
+    public static final float PERIPHERAL_MAX = 2.5f;
+
+    /**
+     * Nothing further than this from an enemy is sensed
+     */
+    private static final float RANGE = 5;
+
+    /**
+     * Cosine of half the angle of short distance view, peripheral vision is a half plane
+     */
+    private static final float SHORT_COS = MathUtils.cosDeg(50);
+
+    private static final Enemy.Detection[] DETECTIONS = Enemy.Detection.values();
+
+    private final Werewolf target;
+
+    /**
+     * Casts the line of sight rays
+     */
+    private final RaycastService raycasts;
+
+    /**
+     * Per sensing enemy: its controller, position, unit facing, cosine of half its flashlight cone,
+     * stealth of the target as it perceives it, and the detection sensed (an ordinal of {@link Enemy.Detection})
+     */
+    private EnemyController[] sensing;
+    private float[] xs, ys, facingXs, facingYs, coneCos, stealths;
+    private int[] detections;
+    private int count;
+
+    /**
+     * @param target   target of the enemies
+     * @param raycasts casts line of sight against the static geometry of the level
+     */
+    public PerceptionSystem(Werewolf target, RaycastService raycasts) {
+        this.target = target;
+        this.raycasts = raycasts;
+        allocate(16);
+    }
+
+    private void allocate(int capacity) {
+        sensing = new EnemyController[capacity];
+        xs = new float[capacity];
+        ys = new float[capacity];
+        facingXs = new float[capacity];
+        facingYs = new float[capacity];
+        coneCos = new float[capacity];
+        stealths = new float[capacity];
+        detections = new int[capacity];
+    }
+
+    /**
+     * Senses the target for the controllers whose detection is due, see {@link EnemyController#isDetectionDue()}.
+     * Should be called once per frame before the controllers are updated.
+     */
+    public void update(Array<EnemyController> controllers) {
+        if (controllers.size > sensing.length) allocate(Math.max(controllers.size, 2 * sensing.length));
+
+        // Gather
+        float stealth = target.getStealth();
+        count = 0;
+        for (int i = 0; i < controllers.size; i++) {
+            EnemyController controller = controllers.get(i);
+            if (!controller.isDetectionDue()) continue;
+            Enemy enemy = controller.getEnemy();
+            sensing[count] = controller;
+            xs[count] = enemy.getPosition().x;
+            ys[count] = enemy.getPosition().y;
+            facingXs[count] = MathUtils.cos(enemy.getOrientation());
+            facingYs[count] = MathUtils.sin(enemy.getOrientation());
+            coneCos[count] = MathUtils.cosDeg(enemy.getFlashlight().getConeDegree() / 2);
+            // Fake range increasing for ALERT and INDICATOR
+            stealths[count] = enemy.getDetection() == Enemy.Detection.ALERT ? stealth * 1.5f
+                    : enemy.getDetection() == Enemy.Detection.INDICATOR ? stealth * 1.2f : stealth;
+            count++;
+        }
+        if (count == 0) return;
+
+        // Classify by range and angle
+        float targetX = target.getPosition().x;
+        float targetY = target.getPosition().y;
+        float noiseRadius = target.getNoiseRadius();
+        int none = Enemy.Detection.NONE.ordinal();
+        int noticed = Enemy.Detection.NOTICED.ordinal();
+        int alert = Enemy.Detection.ALERT.ordinal();
+        for (int i = 0; i < count; i++) {
+            float dx = targetX - xs[i], dy = targetY - ys[i];
+            float dist = (float) Math.sqrt(dx * dx + dy * dy);
+            // dist * cos of the angle between the facing and the target
+            float dot = dx * facingXs[i] + dy * facingYs[i];
+            float s = stealths[i];
+            boolean seen = (dot >= dist * coneCos[i] && dist <= FOCUSED_MIN + (FOCUSED_MAX - FOCUSED_MIN) * s)
+                    || (dot >= dist * SHORT_COS && dist <= SHORT_MIN + (SHORT_MAX - SHORT_MIN) * s)
+                    || (dot >= 0 && dist <= PERIPHERAL_MIN + (PERIPHERAL_MAX - PERIPHERAL_MIN) * s);
+            boolean heard = dist <= noiseRadius;
+            detections[i] = dist > RANGE ? none : seen ? alert : heard ? noticed : none;
+        }
+
+        // Only static geometry that cannot be overlooked blocks sight of the target
+        for (int i = 0; i < count; i++) {
+            if (detections[i] != none
+                    && raycasts.isBlocked(xs[i], ys[i], targetX, targetY, StaticBVH.SEE_THRU)) {
+                detections[i] = none;
+            }
+        }
+
+        // Write back
+        for (int i = 0; i < count; i++) {
+            sensing[i].setSensedDetection(DETECTIONS[detections[i]]);
+            sensing[i] = null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package infinityx.lunarhaze.ai;
+
+import com.badlogic.gdx.utils.Array;
+import infinityx.lunarhaze.models.SteeringGameObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Plans the steering of many agents in parallel on a pool of worker threads.
+ * <p>
+ * Planning only reads the world: the position and velocity of each agent, the per-tick snapshots (neighbour grid,
+ * player location) and the static structures of the level (distance field, paths). Each agent writes its steering into
+ * its own buffer, see {@link SteeringGameObject#planSteering()}, which is applied serially afterwards by
+ * {@link SteeringGameObject#update(float)} along with any state machine transition. Nothing may modify the world while
+ * {@link #plan(Array)} runs.
+ * <p>
+ * The pool is shared by every level and made of daemon threads, one per core beyond the render thread.
+ */
+public class SteeringWorkers {
+
+    /**
+     * Fewer agents than this are planned on the calling thread, as handing them off would cost more
+     */
+    private static final int MIN_PARALLEL = 8;
+
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    private static ExecutorService executor;
+
+    /**
+     * Agents being planned
+     */
+    private final Array<SteeringGameObject> agents = new Array<>(false, 32);
+
+    /**
+     * One task per worker, task w plans the agents at indices congruent to w so the work is interleaved evenly
+     */
+    private final List<Callable<Void>> tasks = new ArrayList<>(THREADS);
+
+    public SteeringWorkers() {
+        for (int w = 0; w < THREADS; w++) {
+            final int worker = w;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int i = worker; i < agents.size; i += THREADS) {
+                        agents.get(i).planSteering();
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+
+    private static synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+                private int count;
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "steering-worker-" + count++);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Plans the steering of every given agent, returning once all are planned
+     */
+    public void plan(Array<? extends SteeringGameObject> objects) {
+        if (THREADS == 1 || objects.size < MIN_PARALLEL) {
+            for (int i = 0; i < objects.size; i++) {
+                objects.get(i).planSteering();
+            }
+            return;
+        }
+
+        agents.clear();
+        agents.addAll(objects);
+        try {
+            for (Future<Void> future : executor().invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Steering planning failed", e.getCause());
+        } finally {
+            agents.clear();
+        }
+    }
+}
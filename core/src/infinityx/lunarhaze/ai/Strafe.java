@@ -25,6 +25,11 @@ public class Strafe extends ContextBehavior {
      */
     private Rotation rotation;
 
+    /**
+     * Direction to the target, reused every calculation
+     */
+    private final Vector2 targetDir = new Vector2();
+
     /**
      * Creates a {@code ContextBehavior} for the specified owner.
      * The behavior is enabled and has no explicit limiter, meaning that the owner is used instead.
@@ -39,6 +44,10 @@ public class Strafe extends ContextBehavior {
         this.rotation = rotation;
     }
 
+    public void setRotation(Rotation rotation) {
+        this.rotation = rotation;
+    }
+
     public void changeRotation() {
         if (this.rotation == Rotation.CLOCKWISE) {
             rotation = Rotation.COUNTERCLOCKWISE;
@@ -57,16 +66,12 @@ public class Strafe extends ContextBehavior {
      */
     @Override
     protected ContextMap calculateRealMaps(ContextMap map) {
-        map.setZero();
-        Vector2 targetDir = target.getPosition().sub(owner.getPosition()).nor();
+        targetDir.set(target.getPosition()).sub(owner.getPosition()).nor();
 
         // Prefer directions perpendicular to target
         // Choose perpendicular vector from rotation
         targetDir.rotate90(rotation.ordinal() - 1);
 
-        for (int i = 0; i < map.getResolution(); i++) {
-            map.interestMap[i] = Math.max(0, map.dirFromSlot(i).dot(targetDir));
-        }
-        return map;
+        return map.setInterest(targetDir.x, targetDir.y, 1);
     }
 }
@@ -1,14 +1,14 @@
 package infinityx.lunarhaze.ai;
 
 import com.badlogic.gdx.ai.fsm.StateMachine;
-import com.badlogic.gdx.ai.msg.MessageManager;
-import com.badlogic.gdx.ai.msg.Telegram;
-import com.badlogic.gdx.ai.msg.Telegraph;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
 import com.badlogic.gdx.utils.OrderedSet;
 import infinityx.lunarhaze.controllers.EnemyController;
 import infinityx.lunarhaze.controllers.EnemyState;
 import infinityx.lunarhaze.models.LevelContainer;
+import infinityx.lunarhaze.models.NeighborGrid;
+import infinityx.lunarhaze.models.entity.Enemy;
 import infinityx.lunarhaze.models.entity.Werewolf;
 
 import java.util.Random;
@@ -17,7 +17,7 @@ import java.util.Random;
  * This class used to send instructions to each enemy in the level. It should handle strategic decisions in the
  * battle phase including flank or evade for example
  */
-public class TacticalManager implements Telegraph {
+public class TacticalManager implements EventBus.Listener<EnemyController> {
 
     /**
      * The target of an enemy
@@ -25,40 +25,66 @@ public class TacticalManager implements Telegraph {
     private final Werewolf target;
     Random rand = new Random();
 
-    /**
-     * Reference of active controllers from container
-     */
-    private final Array<EnemyController> controllers;
-
     private final LevelContainer container;
 
+    /**
+     * Event bus of the level, carrying the events of the enemies and the actions sent to them
+     */
+    private final EventBus<EnemyController> events;
 
     /**
      * Set of alert enemy controllers
      */
     OrderedSet<EnemyController> enemies = new OrderedSet<>();
 
+    /**
+     * Allies within this distance of an enemy finding the target are alerted
+     */
+    private static final float COMM_RADIUS = 7f;
+
+    /**
+     * Number of updates between two actions of the same enemy.
+     * Enemies are staggered so only a fraction of them acts on any update.
+     */
+    private static final int ACTION_PERIOD = 60;
+
+    /**
+     * Number of calls to {@link #update()} so far
+     */
+    private int ticks;
+
+    /**
+     * Scratch for the neighbours of an enemy finding the target
+     */
+    private final IntArray found = new IntArray();
+
     public TacticalManager(LevelContainer container) {
         target = container.getPlayer();
-        controllers = container.getActiveControllers();
         this.container = container;
-        MessageManager.getInstance().addListener(this, ADD);
-        MessageManager.getInstance().addListener(this, REMOVE);
-        MessageManager.getInstance().addListener(this, FOUND);
+        this.events = container.getEvents();
+        events.addListener(this, ADD);
+        events.addListener(this, REMOVE);
+        events.addListener(this, FOUND);
     }
 
+    /**
+     * Should be called every tick of the battle phase
+     */
     public void update() {
-        sendAction();
+        sendAction(ticks % ACTION_PERIOD);
+        ticks++;
     }
 
     /**
-     * Send a flank message to all alert enemies
+     * Send a flank message to the alert enemies whose turn it is
+     *
+     * @param slot enemies at an index congruent to this modulo {@link #ACTION_PERIOD} act
      */
-    public void sendAction() {
+    public void sendAction(int slot) {
         int i = 0;
         for (EnemyController control : enemies) {
-            StateMachine<EnemyController, EnemyState> enemy = control.getStateMachine();
-            if (!enemy.isInState(EnemyState.ALERT)) continue;
+            if (i++ % ACTION_PERIOD != slot) continue;
+            if (!control.getStateMachine().isInState(EnemyState.ALERT)) continue;
             //change strafe rotation
             if (rand.nextFloat() <= 0.1f) {
                 control.strafe.changeRotation();
@@ -68,56 +94,59 @@ public class TacticalManager implements Telegraph {
 //            }
             //if behind enemy go attack
             if (control.isBehind(control.getEnemy(), target) && control.getAttackHandler().canStartNewAttack()) {
-                MessageManager.getInstance().dispatchMessage(null, enemy, ATTACK);
+                events.dispatch(ATTACK, control, control);
             } else if (control.getAttackHandler().canStartNewAttack() && rand.nextFloat() <= 0.3f) {
                 //attacking from front
-                MessageManager.getInstance().dispatchMessage(null, enemy, ATTACK);
+                events.dispatch(ATTACK, control, control);
             } else {
-                MessageManager.getInstance().dispatchMessage(null, enemy, STRAFE);
+                events.dispatch(STRAFE, control, control);
             }
-
-            i++;
         }
     }
 
     /**
-     * Alert nearby allies that target is spotted
+     * Alert nearby allies that target is spotted.
+     * Only enemies within {@link #COMM_RADIUS}, taken from the neighbour grid of the level, are checked for line of sight.
      */
     public void alertAllies(EnemyController entity) {
-        for (EnemyController control : controllers) {
-            entity.findCollision(control.getEnemy());
-            if (control != entity && (entity.getEnemy().getPosition()).dst(control.getEnemy().getPosition()) <= 7f
-                    && entity.communicationCollision.hitObject == control.getEnemy() && !control.getEnemy().isAttacking()) {
-//                System.out.println("alerting");
-                entity.getEnemy().setAlerting(true);
+        Enemy alerting = entity.getEnemy();
+        Vector2 pos = alerting.getPosition();
+        NeighborGrid neighbors = container.getNeighbors();
+        neighbors.query(pos.x, pos.y, COMM_RADIUS, found);
+        for (int k = 0; k < found.size; k++) {
+            int j = found.get(k);
+            Enemy other = (Enemy) neighbors.getAgent(j);
+            if (other == alerting || !other.isActive()) continue;
+            if (pos.dst(neighbors.getX(j), neighbors.getY(j)) > COMM_RADIUS) continue;
+            EnemyController control = container.getController(other);
+            if (control != null && !other.isAttacking() && !entity.isObstructed(other.getPosition())) {
+                alerting.setAlerting(true);
                 StateMachine<EnemyController, EnemyState> machine = control.getStateMachine();
                 machine.changeState(EnemyState.ALERT);
-
-
             }
         }
     }
 
     @Override
-    public boolean handleMessage(Telegram msg) {
+    public void handleEvent(EventBus.Event<EnemyController> event) {
         /** See {@link EnemyState#ALERT} */
-        if (msg.message == ADD && !enemies.contains((EnemyController) msg.extraInfo))
-            enemies.add((EnemyController) msg.extraInfo);
-//        if (msg.message == ADD) enemies.add((EnemyController) msg.extraInfo);
-        if (msg.message == REMOVE) enemies.remove((EnemyController) msg.extraInfo);
-        if (msg.message == FOUND) {
-            alertAllies((EnemyController) msg.extraInfo);
+        if (event.type == ADD) enemies.add(event.subject);
+        if (event.type == REMOVE) enemies.remove(event.subject);
+        if (event.type == FOUND) {
+            alertAllies(event.subject);
         }
-        return true;
     }
 
-    public static int ADD = 100;
+    /**
+     * Event types, dense as they index the listener arrays of the {@link EventBus}
+     */
+    public static final int ADD = 0;
 
-    public static int FOUND = 10;
-    public static int REMOVE = 100203;
+    public static final int FOUND = 1;
+    public static final int REMOVE = 2;
 
-    public static int ATTACK = 1001001;
+    public static final int ATTACK = 3;
 
-    public static int STRAFE = 1001;
+    public static final int STRAFE = 4;
 
 }
@@ -1,21 +1,38 @@
 package infinityx.lunarhaze.combat;
 
 import infinityx.lunarhaze.models.AttackingGameObject;
+import infinityx.util.TimerWheel;
 
 /**
  * Base model class for all attack/combat systems.
+ * The length and cooldown of attacks are timers of the level {@link TimerWheel}, they are not polled every frame.
  */
 public class AttackHandler {
 
     /**
-     * Counter for attacking (used to determine when to set attacking to false)
+     * Timer ending the current attack
      */
-    protected float attackCounter;
+    private int attackTimer;
 
     /**
-     * Counter for attack cooldowns
+     * Timer of the cooldown after an attack
      */
-    protected float attackCooldownCounter;
+    private int cooldownTimer;
+
+    /**
+     * Clock of the level
+     */
+    protected final TimerWheel timers;
+
+    /**
+     * Ends the current attack, allocated once
+     */
+    private final Runnable endAttackTask = new Runnable() {
+        @Override
+        public void run() {
+            endAttack();
+        }
+    };
 
 
     /**
@@ -26,19 +43,27 @@ public class AttackHandler {
 
     /**
      * @param entity attacking entity this class is controlling
+     * @param timers clock of the level
      */
-    public AttackHandler(AttackingGameObject entity) {
-        attackCounter = 0f;
-        attackCooldownCounter = entity.attackCooldown;
+    public AttackHandler(AttackingGameObject entity, TimerWheel timers) {
         this.entity = entity;
+        this.timers = timers;
     }
 
 
+    /**
+     * Restores the state of a fresh handler, e.g. when the entity is reused from a pool
+     */
+    public void reset() {
+        timers.cancel(attackTimer);
+        timers.cancel(cooldownTimer);
+    }
+
     /**
      * @return whether a new attack can be started
      */
     public boolean canStartNewAttack() {
-        return attackCooldownCounter >= entity.attackCooldown && !entity.isLockedOut();
+        return !timers.isPending(attackTimer) && !timers.isPending(cooldownTimer) && !entity.isLockedOut();
     }
 
 
@@ -50,36 +75,40 @@ public class AttackHandler {
     public void update(float delta) {
         if (entity.isAttacking()) {
             processAttack(delta);
-        } else {
-            attackCooldownCounter += delta;
         }
     }
 
     /**
-     * Initiates an attack
+     * Initiates an attack, which ends after the attack length of the entity
      */
     public void initiateAttack() {
         entity.setAttacking(true);
         entity.setImmune();
-        attackCooldownCounter = 0f;
+        timers.cancel(cooldownTimer);
+        timers.cancel(attackTimer);
+        attackTimer = timers.schedule(getAttackLength(), endAttackTask);
+    }
+
+    /**
+     * @return seconds the attack being initiated lasts
+     */
+    protected float getAttackLength() {
+        return entity.attackLength;
     }
 
     /**
      * Processes an attack, called every frame while attacking.
      */
     public void processAttack(float delta) {
-        attackCounter += delta;
-        if (attackCounter >= entity.attackLength) {
-            endAttack();
-        }
     }
 
     /**
-     * Called when an attack ends
+     * Called when an attack ends, starts the cooldown
      */
     protected void endAttack() {
         entity.setAttacking(false);
-        attackCounter = 0f;
+        timers.cancel(attackTimer);
+        cooldownTimer = timers.schedule(entity.attackCooldown, null);
     }
 
 }
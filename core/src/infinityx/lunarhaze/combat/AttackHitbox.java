@@ -13,9 +13,9 @@ import infinityx.lunarhaze.models.LevelContainer;
 import infinityx.lunarhaze.models.entity.Werewolf;
 
 /**
- * This class represents a rectangular attack hitbox that is parented to an entity,
- * which is responsible for existing so that the {@link infinityx.lunarhaze.controllers.CollisionController}
- * can handle collisions between this and other entities.
+ * This class represents a rectangular attack hitbox that is parented to an entity.
+ * The hitbox holds no Box2D body; hits are resolved once per attack through a {@link HitboxQuery},
+ * which reports to the {@link infinityx.lunarhaze.controllers.CollisionController}.
  */
 public class AttackHitbox extends GameObject {
 
@@ -25,6 +25,16 @@ public class AttackHitbox extends GameObject {
      */
     private final AttackingGameObject attacker;
 
+    /**
+     * Overlap query shared by all hitboxes in the container
+     */
+    private HitboxQuery query;
+
+    /**
+     * Cache for the heavy attack offset in {@link #draw(GameCanvas)}
+     */
+    private final Vector2 offsetCache = new Vector2();
+
     /**
      * @param attacker entity this hitbox is parented to
      */
@@ -55,7 +65,7 @@ public class AttackHitbox extends GameObject {
                 0
         );
 
-        if (body == null) activatePhysics(container.getWorld());
+        this.query = container.getHitboxQuery();
         this.setActive(false);
     }
 
@@ -138,8 +148,7 @@ public class AttackHitbox extends GameObject {
         // Heavy attack should face down and should not have fake height
         if (player.isHeavyAttacking) {
 
-            Vector2 offset = new Vector2();
-            player.angleToVector(offset, player.getAngle());
+            Vector2 offset = player.angleToVector(offsetCache, player.getAngle());
 
             offsetX += offset.x;
             offsetY += offset.y;
@@ -174,7 +183,15 @@ public class AttackHitbox extends GameObject {
      */
     public void updateHitboxPosition() {
         // This is the logic that makes the hitbox "parented" to the entity
-        getBody().setTransform(attacker.getPosition(), attacker.getAngle());
+        setPosition(attacker.getPosition());
+        setAngle(attacker.getAngle());
+    }
 
+    /**
+     * Hits every entity currently overlapping this hitbox. Should be called on the attack frame.
+     */
+    public void resolveHits() {
+        updateHitboxPosition();
+        query.resolve(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package infinityx.lunarhaze.combat;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.QueryCallback;
+import com.badlogic.gdx.physics.box2d.World;
+import com.badlogic.gdx.utils.Array;
+import infinityx.lunarhaze.models.AttackingGameObject;
+import infinityx.lunarhaze.models.GameObject;
+import infinityx.lunarhaze.physics.MultiShapeObstacle;
+
+/**
+ * Resolves melee attacks with a one-shot overlap query instead of a persistent hitbox body.
+ * <p>
+ * The oriented box of an {@link AttackHitbox} is bounded by an AABB which is queried against the world.
+ * Every reported fixture is filtered on its user data, and entities whose body circle overlaps the
+ * oriented box are reported to the {@link Listener}. There is one instance per world, reused for every attack.
+ */
+public class HitboxQuery implements QueryCallback {
+
+    /**
+     * Receives the entities hit by a melee attack
+     */
+    public interface Listener {
+        /**
+         * Called once per entity hit by an attack
+         *
+         * @param attacker The entity that attacked
+         * @param attacked The entity that was attacked
+         */
+        void onHit(AttackingGameObject attacker, AttackingGameObject attacked);
+    }
+
+    /**
+     * World holding the entities that can be hit
+     */
+    private final World world;
+
+    /**
+     * Who to notify of hits, may be null (e.g. in the level editor)
+     */
+    private Listener listener;
+
+    /**
+     * Hitbox currently being resolved
+     */
+    private AttackHitbox hitbox;
+
+    /**
+     * Entities hit by the current query. An entity may own multiple fixtures, so this avoids double hits.
+     */
+    private final Array<AttackingGameObject> hits;
+
+    /**
+     * Oriented box of the current query, center in world coordinates
+     */
+    private final Vector2 center;
+
+    /**
+     * Cosine and sine of the current hitbox angle
+     */
+    private float cos, sin;
+
+    /**
+     * Half extents of the current hitbox along its local axes
+     */
+    private float halfRange, halfWidth;
+
+    /**
+     * @param world World holding the entities that can be hit
+     */
+    public HitboxQuery(World world) {
+        this.world = world;
+        this.hits = new Array<>(false, 8);
+        this.center = new Vector2();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Finds every entity overlapping the given hitbox and reports it to the listener.
+     *
+     * @param hitbox hitbox to resolve, its transform should already match its attacker
+     */
+    public void resolve(AttackHitbox hitbox) {
+        MultiShapeObstacle.ShapeCache box = hitbox.getShapeInformation("body");
+        if (box == null) return;
+
+        this.hitbox = hitbox;
+        float angle = hitbox.getAngle();
+        cos = MathUtils.cos(angle);
+        sin = MathUtils.sin(angle);
+        halfRange = box.width / 2;
+        halfWidth = box.height / 2;
+
+        Vector2 pos = hitbox.getPosition();
+        center.set(
+                pos.x + box.offset.x * cos - box.offset.y * sin,
+                pos.y + box.offset.x * sin + box.offset.y * cos
+        );
+
+        // Bounds of the oriented box
+        float extentX = Math.abs(cos) * halfRange + Math.abs(sin) * halfWidth;
+        float extentY = Math.abs(sin) * halfRange + Math.abs(cos) * halfWidth;
+
+        hits.clear();
+        world.QueryAABB(this, center.x - extentX, center.y - extentY, center.x + extentX, center.y + extentY);
+
+        if (listener != null) {
+            for (int i = 0; i < hits.size; i++) {
+                listener.onHit(hitbox.getAttacker(), hits.get(i));
+            }
+        }
+        hits.clear();
+        this.hitbox = null;
+    }
+
+    @Override
+    public boolean reportFixture(Fixture fixture) {
+        GameObject obj = (GameObject) fixture.getUserData();
+        if (obj == null) return true;
+
+        switch (obj.getType()) {
+            case ENEMY:
+            case WEREWOLF:
+                AttackingGameObject attacked = (AttackingGameObject) obj;
+                if (attacked != hitbox.getAttacker() && !hits.contains(attacked, true) && overlaps(attacked)) {
+                    hits.add(attacked);
+                }
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the body circle of the given entity overlaps the oriented box of the current query
+     */
+    private boolean overlaps(AttackingGameObject obj) {
+        Vector2 pos = obj.getPosition();
+        float dx = pos.x - center.x;
+        float dy = pos.y - center.y;
+
+        // Into local space of the box, then find the closest point on the box
+        float localX = MathUtils.clamp(dx * cos + dy * sin, -halfRange, halfRange);
+        float localY = MathUtils.clamp(-dx * sin + dy * cos, -halfWidth, halfWidth);
+
+        float closestX = localX * cos - localY * sin - dx;
+        float closestY = localX * sin + localY * cos - dy;
+        float radius = obj.getBoundingRadius();
+        return closestX * closestX + closestY * closestY <= radius * radius;
+    }
+}
@@ -2,6 +2,7 @@ package infinityx.lunarhaze.combat;
 
 import com.badlogic.gdx.Gdx;
 import infinityx.lunarhaze.models.AttackingGameObject;
+import infinityx.util.TimerWheel;
 
 /**
  * AttackHandler specialized for an attacker holding an attack hitbox
@@ -15,9 +16,10 @@ public class MeleeHandler extends AttackHandler {
     /**
      * @param entity attacking entity this class is controlling
      * @param hitbox hitbox attached to entity
+     * @param timers clock of the level
      */
-    public MeleeHandler(AttackingGameObject entity, AttackHitbox hitbox) {
-        super(entity);
+    public MeleeHandler(AttackingGameObject entity, AttackHitbox hitbox, TimerWheel timers) {
+        super(entity, timers);
         this.hitbox = hitbox;
     }
 
@@ -26,7 +28,8 @@ public class MeleeHandler extends AttackHandler {
         super.initiateAttack();
         hitbox.animation.reset();
         hitbox.setActive(true);
-        hitbox.updateHitboxPosition();
+        // Hits are resolved once, on the attack frame
+        hitbox.resolveHits();
     }
 
     @Override
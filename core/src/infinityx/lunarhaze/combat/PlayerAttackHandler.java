@@ -6,6 +6,7 @@ import com.badlogic.gdx.math.Vector2;
 import infinityx.lunarhaze.controllers.GameplayController;
 import infinityx.lunarhaze.controllers.InputController;
 import infinityx.lunarhaze.models.entity.Werewolf;
+import infinityx.util.TimerWheel;
 
 import static java.lang.Math.pow;
 
@@ -20,7 +21,6 @@ public class PlayerAttackHandler extends MeleeHandler {
      */
     private static final float DASH_TIME = 0.05f;
     private final Sound dashSound;
-    private float dashTimer;
     private Vector2 dashDirection;
     public boolean isDashing;
     public static float DASH_COOLDOWN_BATTLE = 4f;
@@ -30,32 +30,71 @@ public class PlayerAttackHandler extends MeleeHandler {
     public static float DASH_IMPULSE_STEALTH = 4f;
 
     public static final float DASH_REDUCE_AMOUNT = 0.5f;
-    private float dashCooldownCounter;
+
+    /**
+     * Timer of the cooldown after a dash. It runs for the stealth cooldown, the longer one, so the battle cooldown
+     * is over once that much of it has elapsed.
+     */
+    private int dashCooldownTimer;
+
+    /**
+     * Cooldown of a dash in the current phase
+     */
+    private float dashCooldown;
 
     private boolean heavyAttacking;
     private boolean windingUpHeavyAttack;
-    private float heavyAttackWindupTimer;
     private static final float HEAVY_ATTACK_WINDUP_TIME = 0.5f;
 
+    /**
+     * Timer of the windup of a heavy attack
+     */
+    private int windupTimer;
+
+    /**
+     * Player attacks play at this multiple of the rate of their json. Their timer and hitbox animation always
+     * advanced twice per frame, and the attack lengths are tuned to that.
+     */
+    private static final float ATTACK_RATE = 2;
+
+    /**
+     * Ends the dash and the windup of a heavy attack, allocated once
+     */
+    private final Runnable endDashTask = new Runnable() {
+        @Override
+        public void run() {
+            endDash();
+        }
+    };
+    private final Runnable heavyAttackTask = new Runnable() {
+        @Override
+        public void run() {
+            windingUpHeavyAttack = false;
+            initiateHeavyAttack();
+        }
+    };
+
     private boolean useRightHand;
 
     /**
      * Creates a specialized attack system for the given player
      */
-    public PlayerAttackHandler(Werewolf player, AttackHitbox hitbox, Sound dashSound) {
-        super(player, hitbox);
+    public PlayerAttackHandler(Werewolf player, AttackHitbox hitbox, Sound dashSound, TimerWheel timers) {
+        super(player, hitbox, timers);
         dashDirection = new Vector2();
         isDashing = false;
-        dashCooldownCounter = DASH_COOLDOWN_STEALTH;
+        dashCooldown = DASH_COOLDOWN_STEALTH;
         heavyAttacking = false;
         this.dashSound = dashSound;
         windingUpHeavyAttack = false;
-        heavyAttackWindupTimer = 0;
         useRightHand = false;
     }
 
+    /**
+     * @return seconds since the last dash ended, up to the cooldown of the current phase
+     */
     public float getDashCooldownCounter() {
-        return dashCooldownCounter;
+        return Math.min(DASH_COOLDOWN_STEALTH - timers.remaining(dashCooldownTimer), dashCooldown);
     }
 
     /**
@@ -68,22 +107,9 @@ public class PlayerAttackHandler extends MeleeHandler {
         Werewolf player = (Werewolf) entity;
         if (phase == GameplayController.Phase.BATTLE) {
             super.update(delta);
-            //update hitbox
-            if (player.isAttacking()) {
-                processAttack(delta);
-            }
 
-            // Winding up logic
-            if (windingUpHeavyAttack) {
-                heavyAttackWindupTimer += delta;
-                if (heavyAttackWindupTimer >= HEAVY_ATTACK_WINDUP_TIME) {
-                    initiateHeavyAttack();
-                    windingUpHeavyAttack = false;
-                }
-            }
-
-            // Do not attack when locked out
-            else if (!player.isLockedOut() && !player.isHeavyLockedOut()) {
+            // Do not attack when locked out, or winding up a heavy attack which then starts by itself
+            if (!windingUpHeavyAttack && !player.isLockedOut() && !player.isHeavyLockedOut()) {
 
                 if (InputController.getInstance().didAttack() && !player.isAttacking() && canStartNewAttack()) {
                     initiateAttack();
@@ -94,19 +120,17 @@ public class PlayerAttackHandler extends MeleeHandler {
 
             }
 
+        } else if (windingUpHeavyAttack) {
+            // The windup only runs in battle
+            timers.cancel(windupTimer);
+            windingUpHeavyAttack = false;
         }
 
         // Dash logic
-        float dashCD = (phase == GameplayController.Phase.BATTLE ? DASH_COOLDOWN_BATTLE : DASH_COOLDOWN_STEALTH);
+        dashCooldown = (phase == GameplayController.Phase.BATTLE ? DASH_COOLDOWN_BATTLE : DASH_COOLDOWN_STEALTH);
 
-        if (isDashing) {
-            processDash(dashDirection, delta);
-        }
-        if (dashCooldownCounter < dashCD) {
-            dashCooldownCounter += delta;
-        }
         // Initiate dash based on input
-        if (InputController.getInstance().justDash() && !player.isAttacking() && dashCooldownCounter >= dashCD && !player.getLinearVelocity().isZero(0.05f)) {
+        if (InputController.getInstance().justDash() && !player.isAttacking() && getDashCooldownCounter() >= dashCooldown && !player.getLinearVelocity().isZero(0.05f)) {
             initiateDash(phase);
         }
 
@@ -122,8 +146,19 @@ public class PlayerAttackHandler extends MeleeHandler {
      * Initiates windup component/channel time of heavy attack
      */
     public void initiateWindup() {
-        heavyAttackWindupTimer = 0;
         windingUpHeavyAttack = true;
+        windupTimer = timers.schedule(HEAVY_ATTACK_WINDUP_TIME, heavyAttackTask);
+    }
+
+    @Override
+    protected float getAttackLength() {
+        return entity.attackLength / ATTACK_RATE;
+    }
+
+    @Override
+    public void processAttack(float delta) {
+        // Also plays the hitbox animation at the attack rate
+        super.processAttack(delta * ATTACK_RATE);
     }
 
     public void initiateHeavyAttack() {
@@ -180,7 +215,7 @@ public class PlayerAttackHandler extends MeleeHandler {
                     InputController.getInstance().getHorizontal(),
                     InputController.getInstance().getVertical()
             ).nor().scl(phase == GameplayController.Phase.STEALTH ? DASH_IMPULSE_STEALTH : DASH_IMPULSE_BATTLE);
-            dashTimer = 0f;
+            timers.schedule(DASH_TIME, endDashTask);
             entity.setImmune();
             entity.setLockedOut();
             ((Werewolf) entity).setTargetStealth(((Werewolf) entity).getTargetStealth() + 0.2f);
@@ -188,15 +223,9 @@ public class PlayerAttackHandler extends MeleeHandler {
         }
     }
 
-    private void processDash(Vector2 direction, float delta) {
-        dashTimer += delta;
-        if (dashTimer >= DASH_TIME) {
-            endDash();
-        }
-    }
-
     private void endDash() {
-        dashCooldownCounter = 0f;
+        timers.cancel(dashCooldownTimer);
+        dashCooldownTimer = timers.schedule(DASH_COOLDOWN_STEALTH, null);
         isDashing = false;
         ((Werewolf) entity).isDashing = false;
         ((Werewolf) entity).setTargetStealth(((Werewolf) entity).getTargetStealth() - 0.2f);
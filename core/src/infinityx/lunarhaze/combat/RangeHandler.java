@@ -22,7 +22,7 @@ public class RangeHandler extends AttackHandler {
      * @param target target entity is trying to hit
      */
     public RangeHandler(Archer archer, Werewolf target, LevelContainer container) {
-        super(archer);
+        super(archer, container.getTimers());
         this.target = target;
         this.container = container;
     }
@@ -5,7 +5,7 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import infinityx.assets.AssetDirectory;
-import infinityx.lunarhaze.combat.AttackHitbox;
+import infinityx.lunarhaze.combat.HitboxQuery;
 import infinityx.lunarhaze.graphics.CameraShake;
 import infinityx.lunarhaze.models.AttackingGameObject;
 import infinityx.lunarhaze.models.GameObject;
@@ -21,7 +21,7 @@ import java.util.Arrays;
  * Controller to handle Box2D body interactions.
  * </summary>
  */
-public class CollisionController implements ContactListener {
+public class CollisionController implements ContactListener, HitboxQuery.Listener {
     private GameSetting setting;
     private AssetDirectory directory;
     private Sound enemy_attacked;
@@ -63,12 +63,6 @@ public class CollisionController implements ContactListener {
                     case WEREWOLF:
                         handleCollision((Enemy) o1, (Werewolf) o2);
                         break;
-                    case HITBOX:
-                        handleCollision(
-                                ((AttackHitbox) o2).getAttacker(),
-                                (AttackingGameObject) o1
-                        );
-                        break;
                     default:
                         break;
                 }
@@ -90,18 +84,6 @@ public class CollisionController implements ContactListener {
                     case ENEMY:
                         handleCollision((Enemy) o2, (Werewolf) o1);
                         break;
-                    case HITBOX:
-                        handleCollision(
-                                ((AttackHitbox) o2).getAttacker(),
-                                (AttackingGameObject) o1
-                        );
-                        break;
-                    case SCENE:
-                        handleCollision(
-                                (SceneObject) o2,
-                                (Werewolf) o1
-                        );
-                        break;
                     case ARROW:
                         handleArrow(((Arrow) o2), (Werewolf) o1);
                         break;
@@ -109,28 +91,8 @@ public class CollisionController implements ContactListener {
                         break;
                 }
                 break;
-            case HITBOX:
-                switch (o2.getType()) {
-                    // Could do something interesting when two hitboxes connect
-                    case ENEMY:
-                    case WEREWOLF:
-                        handleCollision(
-                                ((AttackHitbox) o1).getAttacker(),
-                                (AttackingGameObject) o2
-                        );
-                        break;
-                    default:
-                        break;
-                }
-                break;
             case SCENE:
                 switch (o2.getType()) {
-                    case WEREWOLF:
-                        handleCollision(
-                                (SceneObject) o1,
-                                (Werewolf) o2
-                        );
-                        break;
                     case ARROW:
                         handleCollision((Arrow) o2, (SceneObject) o1, contact);
                         break;
@@ -169,6 +131,11 @@ public class CollisionController implements ContactListener {
         }
     }
 
+    @Override
+    public void onHit(AttackingGameObject attacker, AttackingGameObject attacked) {
+        handleCollision(attacker, attacked);
+    }
+
     /**
      * Collision logic between two {@link AttackingGameObject}.
      *
@@ -213,80 +180,11 @@ public class CollisionController implements ContactListener {
         // Maybe they can push each other, idk
     }
 
-    /**
-     * Collision logic between a scene object and the player.
-     *
-     * @param obj    The scene object
-     * @param player The player
-     */
-    private void handleCollision(SceneObject obj, Werewolf player) {
-        if (obj.isSensor()) {
-            // For now, we can assume obj is tall grass
-            player.inTallGrass.add(obj);
-        }
-    }
-
     @Override
     public void endContact(Contact contact) {
-        Body body1 = contact.getFixtureA().getBody();
-        Body body2 = contact.getFixtureB().getBody();
-
-        // Safe since all entities that hold a Box2D body in our game are GameObjects
-        GameObject obj1 = (GameObject) body1.getUserData();
-        GameObject obj2 = (GameObject) body2.getUserData();
 
-        processEndCollision(obj1, obj2);
     }
 
-
-    /**
-     * Detect and resolve end of collisions between two game objects
-     *
-     * @param o1 First object
-     * @param o2 Second object
-     */
-    private void processEndCollision(GameObject o1, GameObject o2) {
-        switch (o1.getType()) {
-            case WEREWOLF:
-                switch (o2.getType()) {
-                    case SCENE:
-                        endCollision(
-                                (SceneObject) o2,
-                                (Werewolf) o1
-                        );
-                    default:
-                        break;
-                }
-                break;
-            case SCENE:
-                switch (o2.getType()) {
-                    case WEREWOLF:
-                        endCollision(
-                                (SceneObject) o1,
-                                (Werewolf) o2
-                        );
-                        break;
-                }
-
-            default:
-                break;
-        }
-    }
-
-    /**
-     * End of collision logic between a scene object and the player.
-     *
-     * @param obj    The scene object
-     * @param player The player
-     */
-    private void endCollision(SceneObject obj, Werewolf player) {
-        if (obj.isSensor()) {
-            // For now, we can assume obj is tall grass
-                player.inTallGrass.removeValue(obj, true);
-        }
-    }
-
-
     @Override
     public void preSolve(Contact contact, Manifold oldManifold) {
 
@@ -2,79 +2,106 @@ package infinityx.lunarhaze.controllers;
 
 import com.badlogic.gdx.ai.fsm.DefaultStateMachine;
 import com.badlogic.gdx.ai.fsm.StateMachine;
+import com.badlogic.gdx.ai.steer.behaviors.BlendedSteering;
 import com.badlogic.gdx.ai.steer.behaviors.PrioritySteering;
-import com.badlogic.gdx.ai.steer.utils.Path;
-import com.badlogic.gdx.ai.steer.utils.paths.LinePath;
-import com.badlogic.gdx.ai.utils.Collision;
-import com.badlogic.gdx.ai.utils.Ray;
+import com.badlogic.gdx.ai.steer.limiters.NullLimiter;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.utils.Array;
 import infinityx.lunarhaze.ai.*;
 import infinityx.lunarhaze.combat.AttackHandler;
 import infinityx.lunarhaze.combat.MeleeHandler;
 import infinityx.lunarhaze.combat.RangeHandler;
 import infinityx.lunarhaze.graphics.GameCanvas;
-import infinityx.lunarhaze.models.GameObject;
 import infinityx.lunarhaze.models.LevelContainer;
 import infinityx.lunarhaze.models.entity.*;
-import infinityx.lunarhaze.physics.Box2DRaycastCollision;
-import infinityx.lunarhaze.physics.RaycastInfo;
+import infinityx.lunarhaze.physics.RaycastService;
 import infinityx.util.PatrolPath;
-import infinityx.util.astar.AStarPathFinding;
+import infinityx.util.TimerWheel;
+import infinityx.util.astar.FlowField;
+import infinityx.util.astar.PathScheduler;
+import infinityx.util.astar.PatrolRoutes;
+import infinityx.util.astar.WaypointPath;
 
 /**
  * Controller class, handles logic for a single enemy
  */
-public class EnemyController {
+public class EnemyController implements EventBus.Listener<EnemyController> {
 
-    // Constants for vision cone lengths
-    private static float FOCUSED_MIN = 3.0f;
-    private static float FOCUSED_MAX = 3.7f;
-    private static float SHORT_MIN = 2.25f;
-    private static float SHORT_MAX = 3.2f;
-    private static float PERIPHERAL_MIN = 1.9f;
-    private static float PERIPHERAL_MAX = 2.5f;
+    /**
+     * Number of cells covered by the path while chasing
+     */
+    private static final int CHASE_LOOKAHEAD = 4;
+
+    /**
+     * Path requests of enemies within this distance of the target are served first
+     */
+    private static final float URGENT_PATH_RADIUS = 5;
+
+    /**
+     * Enemies within this distance of the patrol waypoint they left from follow the cached route to the next one
+     */
+    private static final float PATROL_ROUTE_RADIUS = 0.5f;
+
+    /**
+     * Seconds between two evaluations of the detection, and between two chase paths
+     */
+    private static final float DETECTION_PERIOD = 0.1f;
+    private static final float REPATH_PERIOD = 0.1f;
+
+    /**
+     * Clock of the level
+     */
+    private TimerWheel timers;
+
+    /**
+     * Raycasts against static geometry of the level, used for line of sight checks
+     */
+    private RaycastService raycasts;
+
+    /**
+     * Event bus of the level, used to coordinate with the {@link TacticalManager}
+     */
+    private EventBus<EnemyController> events;
 
     /**
-     * Output collision cache from Box2DRaycastCollision
+     * Path request scheduler reference from level container
      */
-    final Collision<Vector2> collCache;
+    private PathScheduler pathScheduler;
 
     /**
-     * Raycast cache
+     * Path request of this enemy, reused for every search
      */
-    final RaycastInfo raycast;
+    private PathScheduler.Request pathRequest;
 
     /**
-     * Raycast cache for detection specifically
+     * Patrol routes reference from level container
      */
-    final RaycastInfo detectionCast;
+    private PatrolRoutes patrolRoutes;
 
     /**
-     * Collision detector for target detection
+     * Flow field towards the target from level container, used while chasing
      */
-    private Box2DRaycastCollision raycastCollision;
+    private FlowField flowField;
 
     /**
-     * Collision detector for path detection
+     * Path followed until the first one is served, between two waypoints at the origin
      */
-    public Box2DRaycastCollision pathCollision;
+    private WaypointPath idlePath;
 
     /**
-     * Collision detector for enemy communication
+     * Path towards the target sampled from the flow field, reused every update
      */
-    public Box2DRaycastCollision communicationCollision;
+    private WaypointPath chasePath;
+    private final Vector2[] chaseCells;
 
     /**
-     * Pathfinder reference from level container
+     * Whether {@link #followPathSB} currently follows {@link #chasePath}
      */
-    public AStarPathFinding pathfinder;
+    private boolean chasing;
 
     /**
      * The enemy being controlled by this AIController
@@ -87,24 +114,24 @@ public class EnemyController {
     public Werewolf target;
 
     /**
-     * Used for look-around, time in seconds
+     * Time in the current look-around, in seconds
      */
     public float time;
 
     /**
-     * AI state machine for the given enemy.
+     * Time since the enemy last thought, see {@link #getThinkDelta()}
      */
-    private final StateMachine<EnemyController, EnemyState> stateMachine;
+    private float thinkDelta;
 
     /**
-     * Pathfinding behavior
+     * AI state machine for the given enemy.
      */
-    public FollowPath followPathSB;
+    private final StateMachine<EnemyController, EnemyState> stateMachine;
 
     /**
-     * Source position used for pathfinding
+     * Pathfinding behavior
      */
-    private Vector2 sourcePos;
+    public FollowPath<WaypointPath.Param> followPathSB;
 
     /**
      * Current target position for pathfinding. You should almost always use {@link Vector2#set(Vector2)} to update this.
@@ -149,7 +176,15 @@ public class EnemyController {
      */
     public ContextBehavior evade;
 
-    public ContextSteering avoidSB;
+    /**
+     * Steering behavior for keeping clear of static obstacles while following a path
+     */
+    public ClearanceAvoidance avoidSB;
+
+    /**
+     * Steering behavior for keeping apart from other enemies while following a path
+     */
+    public NeighborSeparation separateSB;
 
     public PrioritySteering<Vector2> followPathAvoid;
 
@@ -158,8 +193,6 @@ public class EnemyController {
      */
     private AttackHandler attackHandler;
 
-    Ray<Vector2> rayCache = new Ray<>(new Vector2(), new Vector2());
-
     public Sound getAlertSound() {
         return alert_sound;
     }
@@ -171,9 +204,14 @@ public class EnemyController {
     private Enemy.Detection cachedDetection;
 
     /**
-     * Used so the detection only updates once every interval
+     * Timer until the detection is evaluated again, it only updates once every {@link #DETECTION_PERIOD}
      */
-    private float detectionTime;
+    private int detectionTimer;
+
+    /**
+     * Timer until the chase path may be updated again
+     */
+    private int repathTimer;
 
     public Sound getAttackedSound() {
         return attacked_sound;
@@ -191,161 +229,90 @@ public class EnemyController {
     public EnemyController(Enemy enemy) {
         patrolTarget = new Vector2();
         this.targetPos = new Vector2();
-        this.sourcePos = new Vector2();
         this.enemy = enemy;
         this.stateMachine = new DefaultStateMachine<>(this, EnemyState.INIT, EnemyState.ANY_STATE);
         this.combinedContext = new CombinedContext(enemy);
         cachedDetection = Enemy.Detection.NONE;
 
-        this.raycast = new RaycastInfo(enemy) {
-            @Override
-            public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
-                // Right now, all hit bodies are contained in GameObjects
-                GameObject objHit = (GameObject) fixture.getBody().getUserData();
-
-                if (objHit == requestingObject || ignore.contains(objHit.getType())) {
-                    return 1;
-                }
-                if (outputCollision != null)
-                    outputCollision.set(point, normal);
-                this.fixture = fixture;
-                this.fraction = fraction;
-                this.hit = fraction != 0;
-                if (this.hit) {
-                    this.hitObject = objHit;
-                }
-                return fraction;
-            }
-        };
-
-        this.detectionCast = new RaycastInfo(enemy) {
-            @Override
-            public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
-                // Right now, all hit bodies are contained in GameObjects
-                GameObject objHit = (GameObject) fixture.getBody().getUserData();
-
-                if (objHit == requestingObject || ignore.contains(objHit.getType())) {
-                    return 1;
-                }
-
-                // Further ignore objects that can be overlooked
-                if (objHit.getType() == GameObject.ObjectType.SCENE && ((SceneObject) objHit).isSeeThru()) {
-                    return 1;
-                }
-                if (outputCollision != null)
-                    outputCollision.set(point, normal);
-                this.fixture = fixture;
-                this.fraction = fraction;
-                this.hit = fraction != 0;
-                if (this.hit) {
-                    this.hitObject = objHit;
-                }
-                return fraction;
-            }
-        };
-        this.collCache = new Collision<>(new Vector2(), new Vector2());
+        this.chaseCells = new Vector2[CHASE_LOOKAHEAD];
+        for (int i = 0; i < chaseCells.length; i++) {
+            chaseCells[i] = new Vector2();
+        }
     }
 
     /**
      * Populate attributes used for sensory information.
+     * Behaviors are only built the first time, a pooled enemy spawning again merely has its state reset.
      *
      * @param container holding surrounding model objects
      */
     public void populate(final LevelContainer container) {
-        detectionTime = 0;
+        cachedDetection = Enemy.Detection.NONE;
+        chasing = false;
+        if (battleSB != null) {
+            // Pooled enemy spawning again, its behaviors were built by an earlier spawn
+            reset();
+            return;
+        }
         target = container.getPlayer();
+        timers = container.getTimers();
+        detectionTimer = timers.schedule(DETECTION_PERIOD, null);
 
         switch (enemy.getEnemyType()) {
             case Villager:
-                this.attackHandler = new MeleeHandler(enemy, ((Villager) enemy).attackHitbox);
+                this.attackHandler = new MeleeHandler(enemy, ((Villager) enemy).attackHitbox, container.getTimers());
                 break;
             case Archer:
                 this.attackHandler = new RangeHandler((Archer) enemy, target, container);
                 break;
         }
 
-        this.raycastCollision = new Box2DRaycastCollision(container.getWorld(), detectionCast);
-        raycastCollision
-                .addIgnore(GameObject.ObjectType.ENEMY)
-                .addIgnore(GameObject.ObjectType.HITBOX);
-
-        this.communicationCollision = new Box2DRaycastCollision(container.getWorld(), raycast);
-        communicationCollision
-                .addIgnore(GameObject.ObjectType.WEREWOLF)
-                .addIgnore(GameObject.ObjectType.HITBOX);
+        this.raycasts = container.getRaycasts();
+        this.events = container.getEvents();
 
-        this.pathCollision = new Box2DRaycastCollision(container.getWorld(), raycast);
-        pathCollision
-                .addIgnore(GameObject.ObjectType.WEREWOLF)
-                .addIgnore(GameObject.ObjectType.ENEMY)
-                .addIgnore(GameObject.ObjectType.HITBOX);
-
-        this.pathfinder = container.pathfinder;
+        this.pathScheduler = container.getPathScheduler();
+        this.pathRequest = new PathScheduler.Request();
+        this.patrolRoutes = container.getPatrolRoutes();
+        this.flowField = container.getFlowField();
 
         // Dummy path
-        Array<Vector2> waypoints = new Array<>();
-        waypoints.add(new Vector2());
-        waypoints.add(new Vector2());
-        followPathSB = new FollowPath(enemy, new LinePath(waypoints), 0.05f, 0.5f);
+        idlePath = new WaypointPath().add(0, 0).add(0, 0);
+        followPathSB = new FollowPath<>(enemy, idlePath, 0.05f, 0.5f);
+        chasePath = new WaypointPath();
 
 //        Separation<Vector2> avoid = new Separation<>(enemy, (Proximity<Vector2>) container.getEnemies());
 
 
         // Prefer directions towards target
+        // Battle behaviors read the snapshot of the target, their steering may be planned off the render thread
+        final LocationSnapshot targetSnapshot = container.getPlayerSnapshot();
         attack = new ContextBehavior(enemy, false) {
+            private final Vector2 targetDir = new Vector2();
+
             @Override
             protected ContextMap calculateRealMaps(ContextMap map) {
-                map.setZero();
-                if (getAttackHandler().canStartNewAttack()) {
-                    Vector2 targetDir = target.getPosition().sub(enemy.getPosition()).nor();
-                    for (int i = 0; i < map.getResolution(); i++) {
-                        map.interestMap[i] = Math.max(0, map.dirFromSlot(i).dot(targetDir));
-                    }
-                }
-
-                return map;
+                if (!getAttackHandler().canStartNewAttack()) return map.setZero();
+                targetDir.set(targetSnapshot.getPosition()).sub(enemy.getPosition()).nor();
+                return map.setInterest(targetDir.x, targetDir.y, 1);
             }
         };
 
-        strafe = new Strafe(enemy, target, Strafe.Rotation.COUNTERCLOCKWISE);
-
-        separation = new ContextBehavior(enemy, true) {
-
-            @Override
-            protected ContextMap calculateRealMaps(ContextMap map) {
-                map.setZero();
-                for (int i = 0; i < map.getResolution(); i++) {
-                    Vector2 dir = map.dirFromSlot(i);
-                    // Ray extends two units
-                    rayCache.set(enemy.getPosition(), dir.scl(1.5f).add(enemy.getPosition()));
-                    //System.out.printf("Ray: (%s, %s)\n", rayCache.start, rayCache.end);
-                    communicationCollision.findCollision(collCache, rayCache);
-                    if (raycast.hit) {
-                        map.dangerMap[i] = 1;
-
-                        for (int j = -2; j <= 2; j++) {
-                            map.dangerMap[(i + j + map.getResolution()) % map.getResolution()] = 1;
-                        }
-
-                    }
-                }
+        strafe = new Strafe(enemy, targetSnapshot, Strafe.Rotation.COUNTERCLOCKWISE);
 
-                return map;
-            }
-        };
+        // Stay 1.5 units clear of obstacles and other enemies
+        separation = new ContextSeparation(enemy, container.getDistanceField(), container.getNeighbors(), 1.5f, 2);
 
         evade = new ContextBehavior(enemy, true) {
+            private final Vector2 evade_dir = new Vector2();
+
             @Override
             protected ContextMap calculateRealMaps(ContextMap map) {
-                map.setZero();
-                if (!getAttackHandler().canStartNewAttack()) {
-                    Vector2 evade_dir = enemy.getPosition().sub(target.getPosition());
-                    for (int i = 0; i < map.getResolution(); i++) {
-                        map.interestMap[i] = (1 / evade_dir.len()) * Math.max(0, map.dirFromSlot(i).dot(evade_dir.nor()));
-                    }
-                }
-
-                return map;
+                if (getAttackHandler().canStartNewAttack()) return map.setZero();
+                evade_dir.set(enemy.getPosition()).sub(targetSnapshot.getPosition());
+                // Stronger the closer the target is
+                float scale = 1 / evade_dir.len();
+                evade_dir.nor();
+                return map.setInterest(evade_dir.x, evade_dir.y, scale);
             }
         };
         this.combinedContext.add(attack);
@@ -353,15 +320,44 @@ public class EnemyController {
         this.combinedContext.add(separation);
         this.combinedContext.add(evade);
 
-        avoidSB = new ContextSteering(enemy, separation, 30);
+        avoidSB = new ClearanceAvoidance(enemy, container.getDistanceField(), 0.05f, 0.2f);
+
+        separateSB = new NeighborSeparation(enemy, container.getNeighbors(), 0.3f);
+
+        // Walls first, otherwise follow the path while making way for other enemies
+        BlendedSteering<Vector2> followPathSeparate = new BlendedSteering<>(enemy);
+        // Both output a velocity, so their sum is limited by the speed of the enemy rather than its acceleration
+        followPathSeparate.setLimiter(new NullLimiter() {
+            @Override
+            public float getMaxLinearAcceleration() {
+                return enemy.getMaxLinearSpeed();
+            }
+        });
+        followPathSeparate.add(followPathSB, 1);
+        followPathSeparate.add(separateSB, 0.8f);
 
         followPathAvoid = new PrioritySteering<>(enemy);
         followPathAvoid.add(avoidSB);
-        followPathAvoid.add(followPathSB);
+        followPathAvoid.add(followPathSeparate);
 
         this.battleSB = new ContextSteering(enemy, combinedContext, 30);
     }
 
+    /**
+     * Resets the per-spawn state of a controller whose behaviors are already built
+     */
+    private void reset() {
+        timers.cancel(detectionTimer);
+        timers.cancel(repathTimer);
+        detectionTimer = timers.schedule(DETECTION_PERIOD, null);
+        attackHandler.reset();
+        pathScheduler.cancel(pathRequest);
+        pathRequest.ready = false;
+        followPathSB.setPath(idlePath);
+        strafe.setRotation(Strafe.Rotation.COUNTERCLOCKWISE);
+        stateMachine.changeState(EnemyState.INIT);
+    }
+
     public AttackHandler getAttackHandler() {
         return attackHandler;
     }
@@ -406,25 +402,48 @@ public class EnemyController {
     }
 
     /**
-     * Updates the enemy being controlled by this controller
+     * Updates the enemy being controlled by this controller, thinking this frame
      *
      * @param delta time between last frame in seconds
      */
     public void update(LevelContainer container, float delta) {
-        detectionTime += delta;
-        time += delta;
+        update(container, delta, delta);
+    }
+
+    /**
+     * Updates the enemy being controlled by this controller. The enemy moves and animates every frame,
+     * but only senses and runs its state machine when it thinks, see {@link infinityx.lunarhaze.ai.AIScheduler}.
+     *
+     * @param delta      time between last frame in seconds
+     * @param thinkDelta time since the enemy last thought in seconds, 0 if it does not think this frame
+     */
+    public void update(LevelContainer container, float delta, float thinkDelta) {
         attackHandler.update(delta);
         if (enemy.hp <= 0) {
+            pathScheduler.cancel(pathRequest);
             container.removeEnemy(enemy);
         }
 
-        if (enemy.isInBattle() && stateMachine.getCurrentState() != EnemyState.ALERT && !enemy.isAttacking()) {
-            stateMachine.changeState(EnemyState.ALERT);
+        // Follow the requested path as soon as it is served
+        if (pathRequest.ready) {
+            pathRequest.ready = false;
+            followPathSB.setPath(pathRequest.path);
         }
 
-        // Process the FSM
-        stateMachine.update();
+        boolean think = thinkDelta > 0;
+        this.thinkDelta = thinkDelta;
+        if (think) {
+            time += thinkDelta;
+
+            if (enemy.isInBattle() && stateMachine.getCurrentState() != EnemyState.ALERT && !enemy.isAttacking()) {
+                stateMachine.changeState(EnemyState.ALERT);
+            }
+
+            // Process the FSM
+            stateMachine.update();
+        }
         enemy.update(delta);
+        if (!think) return;
 
         // If the enemy is alerted and the player is close enough, force the flashlight to always shine on the player
         switch (enemy.getDetection()) {
@@ -442,74 +461,35 @@ public class EnemyController {
         }
     }
 
+    /**
+     * @return time covered by the current update of the state machine in seconds
+     */
+    public float getThinkDelta() {
+        return thinkDelta;
+    }
+
 
     /**
-     * @return the current detection the enemy has on the target
+     * @return the current detection the enemy has on the target, as last sensed by the {@link PerceptionSystem}
      */
     public Enemy.Detection getDetection() {
-        /* Area of interests:
-         * Focused view - same angle as flashlight, extends between [2.75, 3]
-         * Short distance - angle of 100, extends between [1.75, 2]
-         * Peripheral vision - angle of 180, extends between [1.25, 2.25]
-         * Hearing radius - angle of 360, extends between [1.75, 3.5]
-         * Lerp between player stealth for max distance,
-         * but maybe add cutoffs for NONE?
-         */
         if (enemy.isInBattle()) return Enemy.Detection.ALERT;
-        if (detectionTime < 0.1f) {
-            return cachedDetection;
-        }
-        detectionTime = 0;
-
-        // Fake range increasing for ALERT and INDICATOR
-        float stealth = target.getStealth();
-        if (enemy.getDetection() == Enemy.Detection.ALERT) {
-            stealth *= 1.5f;
-        } else if (enemy.getDetection() == Enemy.Detection.INDICATOR) {
-            stealth *= 1.2f;
-        }
-        if (enemy.getPosition().dst(target.getPosition()) > 5) {
-            // Early return
-            return Enemy.Detection.NONE;
-        }
-
-        Interpolation lerp = Interpolation.linear;
-        raycastCollision.findCollision(collCache, rayCache.set(enemy.getPosition(), target.getPosition()));
-
-        if (!detectionCast.hit) {
-            // For any reason...
-            cachedDetection = Enemy.Detection.NONE;
-            return Enemy.Detection.NONE;
-        }
-
-        Vector2 enemyToPlayer = target.getPosition().sub(enemy.getPosition());
-        float dist = enemyToPlayer.len();
-
-        // degree between enemy orientation and enemy-to-player
-        double degree = Math.abs(enemy.getOrientation() - enemy.vectorToAngle(enemyToPlayer)) * MathUtils.radiansToDegrees;
+        return cachedDetection;
+    }
 
-        if (detectionCast.hitObject == target) {
-            if (degree <= enemy.getFlashlight().getConeDegree() / 2 && dist <= lerp.apply(FOCUSED_MIN, FOCUSED_MAX, stealth)) {
-                cachedDetection = Enemy.Detection.ALERT;
-                return Enemy.Detection.ALERT;
-            }
-            if (degree <= 50 && dist <= lerp.apply(SHORT_MIN, SHORT_MAX, stealth)) {
-                cachedDetection = Enemy.Detection.ALERT;
-                return Enemy.Detection.ALERT;
-            }
-            if (degree <= 90 && dist <= lerp.apply(PERIPHERAL_MIN, PERIPHERAL_MAX, stealth)) {
-                cachedDetection = Enemy.Detection.ALERT;
-                return Enemy.Detection.ALERT;
-            }
-            if (dist <= target.getNoiseRadius()) {
-                cachedDetection = Enemy.Detection.NOTICED;
-                return Enemy.Detection.NOTICED;
-            }
-        }
+    /**
+     * @return whether the {@link PerceptionSystem} should sense the target for this enemy again
+     */
+    public boolean isDetectionDue() {
+        return !enemy.isInBattle() && !timers.isPending(detectionTimer);
+    }
 
-        // Target is too far away
-        cachedDetection = Enemy.Detection.NONE;
-        return Enemy.Detection.NONE;
+    /**
+     * Stores the detection sensed by the {@link PerceptionSystem}, it is sensed again after {@link #DETECTION_PERIOD}
+     */
+    public void setSensedDetection(Enemy.Detection detection) {
+        cachedDetection = detection;
+        detectionTimer = timers.schedule(DETECTION_PERIOD, null);
     }
 
     /**
@@ -532,21 +512,21 @@ public class EnemyController {
         canvas.shapeRenderer.arc(
                 enemy.getX(),
                 enemy.getY(),
-                lerp.apply(FOCUSED_MIN, FOCUSED_MAX, stealth),
+                lerp.apply(PerceptionSystem.FOCUSED_MIN, PerceptionSystem.FOCUSED_MAX, stealth),
                 enemy.getOrientation() * MathUtils.radiansToDegrees - enemy.getFlashlight().getConeDegree() / 2,
                 enemy.getFlashlight().getConeDegree(), 20
         );
         canvas.shapeRenderer.arc(
                 enemy.getX(),
                 enemy.getY(),
-                lerp.apply(SHORT_MIN, SHORT_MAX, stealth),
+                lerp.apply(PerceptionSystem.SHORT_MIN, PerceptionSystem.SHORT_MAX, stealth),
                 enemy.getOrientation() * MathUtils.radiansToDegrees - 50,
                 100, 20
         );
         canvas.shapeRenderer.arc(
                 enemy.getX(),
                 enemy.getY(),
-                lerp.apply(PERIPHERAL_MIN, PERIPHERAL_MAX, stealth),
+                lerp.apply(PerceptionSystem.PERIPHERAL_MIN, PerceptionSystem.PERIPHERAL_MAX, stealth),
                 enemy.getOrientation() * MathUtils.radiansToDegrees - 90,
                 180, 20
         );
@@ -563,24 +543,108 @@ public class EnemyController {
     }
 
     /**
-     * used to find ray collsion between this enemy and another enemy
+     * @return whether static geometry lies on the segment from the enemy to the given point
      */
-    public void findCollision(Enemy target) {
-        communicationCollision.findCollision(collCache, rayCache.set(enemy.getPosition(), target.getPosition()));
+    public boolean isObstructed(Vector2 to) {
+        Vector2 from = enemy.getPosition();
+        return raycasts.isBlocked(from.x, from.y, to.x, to.y, 0);
     }
 
     /**
-     * Updates path for pathfinding. Source is the enemy position and target is {@link #targetPos}
+     * Requests a new path for pathfinding. Source is the enemy position and target is {@link #targetPos}.
+     * The search is scheduled, the enemy stands still until the path is served (usually this or the next frame).
+     * Enemies near the target or aware of it are served first.
      */
     public void updatePath() {
-        Path path = pathfinder.findPath(sourcePos.set(enemy.getPosition()), targetPos);
-        followPathSB.setPath(path);
+        boolean urgent = enemy.getDetection() != Enemy.Detection.NONE
+                || enemy.getPosition().dst2(target.getPosition()) <= URGENT_PATH_RADIUS * URGENT_PATH_RADIUS;
+        pathScheduler.submit(pathRequest.set(enemy.getPosition(), targetPos), urgent);
+        followPathSB.setPath(null);
+        chasing = false;
+    }
+
+    /**
+     * Updates path for patrolling towards {@link #targetPos}, the waypoint last returned by {@link #getPatrolTarget()}.
+     * When the enemy stands at the waypoint it left from, the route between the two is followed from the cache
+     * without searching. Otherwise, e.g. back from a chase, a path is requested like {@link #updatePath()}.
+     */
+    public void updatePatrolPath() {
+        PatrolPath patrol = enemy.getPatrolPath();
+        WaypointPath route = patrolRoutes.getRoute(patrol, patrol.getPreviousIndex(), patrol.getLastIndex());
+        if (route == null
+                || enemy.getPosition().dst2(route.getStartPoint()) > PATROL_ROUTE_RADIUS * PATROL_ROUTE_RADIUS) {
+            updatePath();
+            return;
+        }
+        // A path requested earlier is no longer needed
+        pathScheduler.cancel(pathRequest);
+        pathRequest.ready = false;
+        followPathSB.setPath(route);
+        chasing = false;
+    }
+
+    /**
+     * @return whether the chase path may be updated, in which case it may not again for {@link #REPATH_PERIOD}
+     */
+    public boolean repathDue() {
+        if (timers.isPending(repathTimer)) return false;
+        repathTimer = timers.schedule(REPATH_PERIOD, null);
+        return true;
+    }
+
+    /**
+     * Updates path for chasing the target, also setting {@link #targetPos} to the target position.
+     * Rather than searching, the next few cells are read off the flow field shared by all chasing enemies,
+     * so this is constant time. The field itself is only recomputed when the target enters another cell.
+     */
+    public void updateChasePath() {
+        targetPos.set(target.getPosition());
+        flowField.setTarget(targetPos);
+
+        Vector2 pos = enemy.getPosition();
+        int count = flowField.trace(pos.x, pos.y, chaseCells);
+        if (count == 0) {
+            // Target is unreachable from here, let A* deal with it
+            updatePath();
+            return;
+        }
+        // A path requested earlier is no longer needed
+        pathScheduler.cancel(pathRequest);
+
+        // The path starts at the enemy so there are always at least two waypoints
+        chasePath.clear().add(pos.x, pos.y);
+        for (int i = 0; i < count; i++) {
+            chasePath.add(chaseCells[i].x, chaseCells[i].y);
+        }
+        followPathSB.setPath(chasePath);
+        chasing = true;
+    }
+
+    /**
+     * @return whether the current path was built by {@link #updateChasePath()}.
+     * Such a path only covers the next few cells, so it will not lead all the way to {@link #targetPos}.
+     */
+    public boolean isChasing() {
+        return chasing;
     }
 
     public StateMachine<EnemyController, EnemyState> getStateMachine() {
         return stateMachine;
     }
 
+    public EventBus<EnemyController> getEvents() {
+        return events;
+    }
+
+    /**
+     * Hands an event sent to this enemy to its current state, then to its global state if the former ignored it
+     */
+    @Override
+    public void handleEvent(EventBus.Event<EnemyController> event) {
+        if (stateMachine.getCurrentState() != null && stateMachine.getCurrentState().onEvent(this, event)) return;
+        if (stateMachine.getGlobalState() != null) stateMachine.getGlobalState().onEvent(this, event);
+    }
+
     public Enemy getEnemy() {
         return enemy;
     }
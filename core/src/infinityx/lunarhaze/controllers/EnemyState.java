@@ -1,12 +1,11 @@
 package infinityx.lunarhaze.controllers;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.ai.fsm.State;
-import com.badlogic.gdx.ai.msg.MessageManager;
 import com.badlogic.gdx.ai.msg.Telegram;
 import com.badlogic.gdx.ai.utils.ArithmeticUtils;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import infinityx.lunarhaze.ai.EventBus;
 import infinityx.lunarhaze.ai.TacticalManager;
 import infinityx.lunarhaze.models.entity.Enemy;
 import infinityx.util.AngleUtils;
@@ -111,7 +110,7 @@ public enum EnemyState implements State<EnemyController> {
             if (entity.getEnemy().getIndicatorAmount() == 1) {
                 // only call for help if first to notice target
                 if (entity.getStateMachine().getPreviousState() == NOTICED) {
-                    MessageManager.getInstance().dispatchMessage(TacticalManager.FOUND, entity);
+                    entity.getEvents().dispatch(TacticalManager.FOUND, entity);
                 }
                 entity.getStateMachine().changeState(ALERT);
             }
@@ -120,21 +119,23 @@ public enum EnemyState implements State<EnemyController> {
             switch (entity.getDetection()) {
                 case NOTICED:
                 case ALERT:
-                    Vector2 tarPos = entity.target.getPosition();
-                    entity.targetPos.set(tarPos);
-                    entity.updatePath();
+                    entity.updateChasePath();
 
                     entity.getEnemy().setIndicatorAmount(
                             MathUtils.clamp(
-                                    entity.getEnemy().getIndicatorAmount() + Gdx.graphics.getDeltaTime() * 0.75f,
+                                    entity.getEnemy().getIndicatorAmount() + entity.getThinkDelta() * 0.75f,
                                     0, 1
                             )
                     );
                     break;
                 case NONE:
+                    // Chase paths stop short of the target, head to the last known position instead
+                    if (entity.isChasing()) {
+                        entity.updatePath();
+                    }
                     // Decrease indicator
                     entity.getEnemy().setIndicatorAmount(
-                            MathUtils.clamp(entity.getEnemy().getIndicatorAmount() - Gdx.graphics.getDeltaTime() / 4, 0, 1)
+                            MathUtils.clamp(entity.getEnemy().getIndicatorAmount() - entity.getThinkDelta() / 4, 0, 1)
                     );
                     // If the enemy has arrived to target and there is no detection, go back to looking around
                     float dist = entity.getEnemy().getPosition().dst(entity.targetPos);
@@ -195,14 +196,13 @@ public enum EnemyState implements State<EnemyController> {
             }
             entity.getEnemy().setDetection(Enemy.Detection.ALERT);
 
-            entity.targetPos.set(entity.getTarget().getPosition());
-            entity.updatePath();
+            entity.updateChasePath();
             entity.getEnemy().setSteeringBehavior(entity.followPathAvoid);
 
             //TODO fix the first part of the and statement, this breaks if enemy attack aand switches to battle. Make
             //each enemy is added in only once
             if (entity.getEnemy().isInBattle()) {
-                MessageManager.getInstance().dispatchMessage(TacticalManager.ADD, entity);
+                entity.getEvents().dispatch(TacticalManager.ADD, entity);
             }
         }
 
@@ -212,7 +212,7 @@ public enum EnemyState implements State<EnemyController> {
                 entity.getStateMachine().changeState(LOCKED_OUT);
             } else {
                 if (!entity.getEnemy().isActive()) {
-                    MessageManager.getInstance().dispatchMessage(TacticalManager.REMOVE, entity);
+                    entity.getEvents().dispatch(TacticalManager.REMOVE, entity);
                 }
 
                 switch (entity.getDetection()) {
@@ -234,30 +234,21 @@ public enum EnemyState implements State<EnemyController> {
                         return;
                     }
                     entity.getEnemy().setIndependentFacing(false);
-                    entity.targetPos.set(entity.getTarget().getPosition());
                     entity.getEnemy().setSteeringBehavior(entity.followPathAvoid);
-                    // Update path every 0.1 seconds
-                    if (entity.time >= 0.1) {
-                        entity.updatePath();
-                        entity.time = 0;
+                    if (entity.repathDue()) {
+                        entity.updateChasePath();
                     }
                 } else {
                     if (targetDst <= entity.getEnemy().getAttackRange() - 0.1f && entity.getAttackHandler().canStartNewAttack()) {
                         entity.getStateMachine().changeState(ATTACK);
                         return;
                     }
-                    entity.rayCache.set(entity.getEnemy().getPosition(), entity.getTarget().getPosition());
-
-                    entity.pathCollision.findCollision(entity.collCache, entity.rayCache);
-                    // use Astar to target if there is obstacle in the way or farther than strafe distance from target
-                    if (entity.raycast.hit || targetDst > entity.getEnemy().getStrafeDistance()) {
+                    // path to target if there is obstacle in the way or farther than strafe distance from target
+                    if (entity.isObstructed(entity.getTarget().getPosition()) || targetDst > entity.getEnemy().getStrafeDistance()) {
                         entity.getEnemy().setMaxLinearSpeed(1.11f);
-                        entity.targetPos.set(entity.getTarget().getPosition());
                         entity.getEnemy().setSteeringBehavior(entity.followPathAvoid);
-                        // Update path every 0.1 seconds
-                        if (entity.time >= 0.1) {
-                            entity.updatePath();
-                            entity.time = 0;
+                        if (entity.repathDue()) {
+                            entity.updateChasePath();
                         }
                     } else {
                         //go to battle mode
@@ -277,18 +268,18 @@ public enum EnemyState implements State<EnemyController> {
         @Override
         public void exit(EnemyController entity) {
             if (!entity.getEnemy().isInBattle()) {
-                MessageManager.getInstance().dispatchMessage(TacticalManager.REMOVE, entity);
+                entity.getEvents().dispatch(TacticalManager.REMOVE, entity);
             }
         }
 
         @Override
-        public boolean onMessage(EnemyController control, Telegram telegram) {
-            if (telegram.message == TacticalManager.ATTACK) {
+        public boolean onEvent(EnemyController control, EventBus.Event<EnemyController> event) {
+            if (event.type == TacticalManager.ATTACK) {
                 control.attack.setEnabled(true);
                 control.strafe.setEnabled(false);
                 control.evade.setEnabled(false);
             }
-            if (telegram.message == TacticalManager.STRAFE) {
+            if (event.type == TacticalManager.STRAFE) {
                 control.strafe.setEnabled(true);
                 control.evade.setEnabled(true);
                 control.attack.setEnabled(false);
@@ -304,7 +295,7 @@ public enum EnemyState implements State<EnemyController> {
             entity.getEnemy().setMaxLinearSpeed(0.8f);
             Vector2 patrol = entity.getPatrolTarget();
             entity.targetPos.set(patrol);
-            entity.updatePath();
+            entity.updatePatrolPath();
             entity.getEnemy().setSteeringBehavior(entity.followPathSB);
             entity.getEnemy().setDetection(Enemy.Detection.NONE);
         }
@@ -320,7 +311,7 @@ public enum EnemyState implements State<EnemyController> {
                 } else {
                     Vector2 patrol = entity.getPatrolTarget();
                     entity.targetPos.set(patrol);
-                    entity.updatePath();
+                    entity.updatePatrolPath();
                 }
             }
 
@@ -409,4 +400,13 @@ public enum EnemyState implements State<EnemyController> {
     public boolean onMessage(EnemyController control, Telegram telegram) {
         return false;
     }
+
+    /**
+     * Handles an event of the level {@link EventBus} sent to the enemy in this state
+     *
+     * @return whether the event was handled
+     */
+    public boolean onEvent(EnemyController control, EventBus.Event<EnemyController> event) {
+        return false;
+    }
 }
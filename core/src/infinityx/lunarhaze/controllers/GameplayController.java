@@ -3,6 +3,9 @@ package infinityx.lunarhaze.controllers;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.utils.Array;
+import infinityx.lunarhaze.ai.AIScheduler;
+import infinityx.lunarhaze.ai.PerceptionSystem;
+import infinityx.lunarhaze.ai.SteeringWorkers;
 import infinityx.lunarhaze.ai.TacticalManager;
 import infinityx.lunarhaze.models.Board;
 import infinityx.lunarhaze.models.LevelContainer;
@@ -93,6 +96,26 @@ public class GameplayController {
      */
     private TacticalManager tacticalManager;
 
+    /**
+     * Decides which enemies think on each frame
+     */
+    private AIScheduler aiScheduler;
+
+    /**
+     * Senses the player for every enemy in one pass
+     */
+    private PerceptionSystem perception;
+
+    /**
+     * Plans the steering of the enemies in parallel
+     */
+    private SteeringWorkers steeringWorkers;
+
+    /**
+     * Enemies thinking this frame, whose steering is planned
+     */
+    private final Array<Enemy> thinking = new Array<>(false, 32);
+
     /**
      * Owns the collision controller, handles collisions.
      * Never accessed due to all methods in the controller being callbacks.
@@ -105,9 +128,9 @@ public class GameplayController {
     private float ambientLightTransitionTimer;
 
     /**
-     * Timer for the phase transition, goes down
+     * Timer of the stealth phase, the phase ends when it fires
      */
-    private float phaseTimer;
+    private int phaseTimer;
 
     /**
      * Number of ticks (frames) since battle began
@@ -167,6 +190,9 @@ public class GameplayController {
         this.phase = Phase.STEALTH;
         this.container = levelContainer;
         this.collisionController = new CollisionController(levelContainer.getWorld(), setting, levelContainer.getDirectory());
+        levelContainer.getHitboxQuery().setListener(collisionController);
+        // Tall grass is tracked by the coverage map during gameplay
+        levelContainer.removeSensorBodies();
 
         lightingController = new LightingController(levelContainer);
 
@@ -174,7 +200,7 @@ public class GameplayController {
         player = levelContainer.getPlayer();
         this.playerController = new PlayerController(levelContainer, setting);
 
-        phaseTimer = levelContainer.getSettings().getPhaseLength();
+        phaseTimer = levelContainer.getTimers().schedule(levelContainer.getSettings().getPhaseLength(), null);
         ambientLightTransitionTimer = 0;
 
         enemies = levelContainer.getEnemies();
@@ -184,6 +210,9 @@ public class GameplayController {
         win_sound = levelContainer.getDirectory().getEntry("level-passed", Sound.class);
         fail_sound = levelContainer.getDirectory().getEntry("level-fail", Sound.class);
         tacticalManager = new TacticalManager(container);
+        aiScheduler = new AIScheduler(container.getPlayer(), container.getVisibility());
+        steeringWorkers = new SteeringWorkers();
+        perception = new PerceptionSystem(container.getPlayer(), container.getRaycasts());
 
         totalMoonlight = levelContainer.getTotalMoonlight();
     }
@@ -208,13 +237,15 @@ public class GameplayController {
 
         // FSM for state and phase
         if (gameState == GameState.PLAY) {
+            // Fires the cooldowns, lockouts and delayed actions that came due, the clock stands still otherwise
+            container.getTimers().update(delta);
             switch (phase) {
                 case STEALTH:
                     lightingController.update(delta);
-                    phaseTimer -= delta;
-                    if (container.getBoard().getRemainingMoonlight() == 0 || phaseTimer <= 0) {
+                    if (container.getBoard().getRemainingMoonlight() == 0 || !container.getTimers().isPending(phaseTimer)) {
                         // Stealth -> Transition
                         phase = Phase.TRANSITION;
+                        container.getTimers().cancel(phaseTimer);
 
                         lightingController.dispose();
                         player.switchToWolf();
@@ -262,7 +293,7 @@ public class GameplayController {
      * Returns remaining time for the STEALTH phase until TRANSITION
      */
     public float getRemainingTime() {
-        return phaseTimer;
+        return container.getTimers().remaining(phaseTimer);
     }
 
     /**
@@ -327,12 +358,26 @@ public class GameplayController {
         // add enemies during battle stage and in play
         if (getPhase() == BATTLE && gameState == GameState.PLAY) {
             container.getEnemySpawner().update(delta);
-            if (battleTicks % 60 == 0) {
-                tacticalManager.update();
-            }
+        }
+        // Snapshot what planning reads, then plan the steering of the enemies thinking this frame in parallel
+        // before acting serially. The others keep moving along the steering they last planned.
+        container.getNeighbors().rebuild(enemies);
+        container.getPlayerSnapshot().set(container.getPlayer());
+        perception.update(enemyControllers);
+        aiScheduler.beginFrame();
+        thinking.clear();
+        for (int i = 0; i < enemyControllers.size; i++) {
+            EnemyController controller = enemyControllers.get(i);
+            if (aiScheduler.schedule(controller, delta) > 0) thinking.add(controller.getEnemy());
+        }
+        steeringWorkers.plan(thinking);
+        if (getPhase() == BATTLE && gameState == GameState.PLAY) {
+            // Staggered internally, every alert enemy still acts once per second
+            tacticalManager.update();
         }
         for (int i = 0; i < enemyControllers.size; i++) {
-            enemyControllers.get(i).update(container, delta);
+            EnemyController controller = enemyControllers.get(i);
+            controller.update(container, delta, aiScheduler.getThinkDelta(controller));
         }
     }
 }
\ No newline at end of file
@@ -15,6 +15,9 @@ import infinityx.lunarhaze.models.LevelContainer;
 import infinityx.lunarhaze.models.Tile;
 import infinityx.lunarhaze.models.entity.Enemy;
 import infinityx.util.PatrolPath;
+import infinityx.util.astar.AStarMap;
+import infinityx.util.astar.AStarPathFinding;
+import infinityx.util.astar.NavGridCache;
 
 /**
  * This class is responsible for parsing JSON objects representing a level's configuration,
@@ -66,6 +69,16 @@ public class LevelParser {
      */
     private LevelContainer levelContainer;
 
+    /**
+     * Search algorithm of the pathfinder of loaded levels
+     */
+    private AStarPathFinding.Algorithm pathfinder = AStarPathFinding.Algorithm.JPS;
+
+    /**
+     * Scene object definitions, part of the navigation grid cache key
+     */
+    private JsonValue objectsFormat;
+
     /**
      * Caches all constants (between levels) from directory
      *
@@ -79,10 +92,11 @@ public class LevelParser {
 
         canvas.setWorldToScreen(new Vector2(sSize[0] / wSize[0], sSize[1] / wSize[1]));
 
+        objectsFormat = directory.getEntry("objects", JsonValue.class);
         levelContainer = new LevelContainer(
                 directory,
                 directory.getEntry("enemies", JsonValue.class),
-                directory.getEntry("objects", JsonValue.class),
+                objectsFormat,
                 directory.getEntry("player", JsonValue.class),
                 directory.getEntry("boards", JsonValue.class)
         );
@@ -90,6 +104,13 @@ public class LevelParser {
         this.tileSheet = directory.getEntry("tile.sheet", FilmStrip.class);
     }
 
+    /**
+     * Sets the search algorithm of the pathfinder for levels loaded from now on
+     */
+    public void setPathfinder(AStarPathFinding.Algorithm pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+
     /**
      * Creates a level given a json value.
      * You gotta call loadConstants before calling this method.
@@ -144,9 +165,17 @@ public class LevelParser {
             }
         }
 
-        // create pathfinder
-        float playerSize = levelContainer.getPlayer().getBoundingRadius();
-        levelContainer.createPathFinder(new Vector2(playerSize * 1.5f, playerSize));
+        // Scene objects are static from here on
+        levelContainer.buildStaticGeometry();
+
+        // create pathfinder, reusing the baked navigation grid if the level is unchanged
+        Vector2 gridSize = levelContainer.getNavGridSize();
+        String navKey = NavGridCache.key(levelContents, objectsFormat, gridSize);
+        levelContainer.createPathFinder(gridSize, pathfinder, navKey);
+
+        // line of sight between tiles, cached the same way
+        String visibilityKey = NavGridCache.key(levelContents, objectsFormat, board.getTileWorldDim());
+        levelContainer.buildVisibility(visibilityKey);
 
         // Generate enemies
         JsonValue enemies = scene.get("enemies");
@@ -174,6 +203,9 @@ public class LevelParser {
             if (enemyInfo.has("scale"))
                 newEnemy.setScale(enemyInfo.getFloat("scale"));
 
+            // Patrol routes never change during play, solve them now rather than while patrolling
+            levelContainer.getPatrolRoutes().warm(newEnemy.getPatrolPath());
+
             curId++;
         }
 
@@ -181,6 +213,12 @@ public class LevelParser {
         JsonValue settings = levelContents.get("settings");
         parseSettings(settings);
 
+        // Build the enemies the spawner will need during battle now rather than mid-fight
+        levelContainer.prewarmEnemies(
+                levelContainer.getSettings().getVillagerCount(),
+                levelContainer.getSettings().getArcherCount()
+        );
+
         return levelContainer;
     }
 
@@ -203,6 +241,20 @@ public class LevelParser {
         return levelContainer;
     }
 
+    /**
+     * Stores the navigation grid of an edited level in the {@link NavGridCache}, so loading the saved level
+     * does not bake it again. Does nothing if the level does not track its navigation grid.
+     *
+     * @param levelContainer edited level
+     * @param levelContents  the JSON tree the level was saved as
+     */
+    public void cacheNavGrid(LevelContainer levelContainer, JsonValue levelContents) {
+        if (levelContainer.pathfinder == null) return;
+        AStarMap map = levelContainer.pathfinder.map;
+        String navKey = NavGridCache.key(levelContents, objectsFormat, map.getGridSize());
+        if (navKey != null) NavGridCache.save(navKey, map);
+    }
+
     /**
      * Creates the Board for the _specific_ level.
      *
@@ -366,6 +366,8 @@ public class LevelSerializer {
             e.printStackTrace();
             return false;
         }
+        // The editor kept the navigation grid up to date, hand it over to the next load of this level
+        LevelParser.LevelParser().cacheNavGrid(levelContainer, newLevel);
         return true;
     }
 
@@ -11,6 +11,7 @@ import infinityx.lunarhaze.models.Board;
 import infinityx.lunarhaze.models.Dust;
 import infinityx.lunarhaze.models.LevelContainer;
 import infinityx.lunarhaze.models.entity.Werewolf;
+import infinityx.util.TimerWheel;
 
 import java.util.Iterator;
 
@@ -51,9 +52,23 @@ public class LightingController {
     private static final float FLASH_INTERVAL = 4.0f;
 
     /**
-     * For use with {@link #FLASH_INTERVAL}
+     * Clock of the level, and the timer of the next lamp toggle
      */
-    private float flash_timer;
+    private final TimerWheel timers;
+    private int flashTimer;
+
+    /**
+     * Toggles every lamp light and schedules the next toggle, allocated once
+     */
+    private final Runnable flashTask = new Runnable() {
+        @Override
+        public void run() {
+            for (PointLight lamp : lampLights) {
+                lamp.setActive(!lamp.isActive());
+            }
+            flashTimer = timers.schedule(FLASH_INTERVAL, this);
+        }
+    };
 
     /**
      * TODO: Maybe the light should update throughout the lifetime of the level??
@@ -64,6 +79,7 @@ public class LightingController {
         this.board = container.getBoard();
         this.player = container.getPlayer();
         this.lampLights = container.getLampLights();
+        this.timers = container.getTimers();
 
         dustInfo = container.getDirectory().getEntry("dust", JsonValue.class);
         JsonValue texInfo = dustInfo.get("texture");
@@ -95,21 +111,14 @@ public class LightingController {
             }
         }
 
-        this.flash_timer = 0;
+        flashTimer = timers.schedule(FLASH_INTERVAL, flashTask);
     }
 
     /**
      * Update dust and lamp lights
      */
     public void update(float delta) {
-        flash_timer += delta;
-        if (flash_timer >= FLASH_INTERVAL) {
-            flash_timer = 0;
-            // Toggle active for all lamp lights
-            for (PointLight lamp : lampLights) {
-                lamp.setActive(!lamp.isActive());
-            }
-        }
+        // Lamp lights toggle by themselves, see flashTask
         updateDust(delta);
     }
 
@@ -190,6 +199,7 @@ public class LightingController {
      * Destroy all dust particles.
      */
     public void dispose() {
+        timers.cancel(flashTimer);
         for (Dust[] pool : dustPools.values()) {
             for (Dust dust : pool) dust.setDestroyed(true);
         }
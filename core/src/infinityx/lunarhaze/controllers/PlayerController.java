@@ -7,6 +7,7 @@ import com.badlogic.gdx.audio.Sound;
 import infinityx.lunarhaze.combat.PlayerAttackHandler;
 import infinityx.lunarhaze.controllers.GameplayController.Phase;
 import infinityx.lunarhaze.models.Board;
+import infinityx.lunarhaze.models.CoverageMap;
 import infinityx.lunarhaze.models.LevelContainer;
 import infinityx.lunarhaze.models.entity.Werewolf;
 import infinityx.lunarhaze.screens.GameSetting;
@@ -62,6 +63,11 @@ public class PlayerController {
      */
     private final Board board;
 
+    /**
+     * Tall grass coverage of the board
+     */
+    private final CoverageMap coverage;
+
     /**
      * Time on current lit tile
      */
@@ -203,6 +209,7 @@ public class PlayerController {
     public PlayerController(LevelContainer levelContainer, GameSetting setting) {
         this.player = levelContainer.getPlayer();
         this.board = levelContainer.getBoard();
+        this.coverage = levelContainer.getCoverage();
         collect_sound = levelContainer.getDirectory().getEntry("collect", Sound.class);
         attack_sound = levelContainer.getDirectory().getEntry("whip", Sound.class);
         attacked_sound = levelContainer.getDirectory().getEntry("werewolf-get-hit", Sound.class);
@@ -210,7 +217,7 @@ public class PlayerController {
         dash_sound = levelContainer.getDirectory().getEntry("dash", Sound.class);
         walk_sound = levelContainer.getDirectory().getEntry("walking-on-soil", Sound.class);
         stateMachine = new DefaultStateMachine<>(this, PlayerState.IDLE);
-        attackHandler = new PlayerAttackHandler(player, player.getAttackHitbox(), dash_sound);
+        attackHandler = new PlayerAttackHandler(player, player.getAttackHitbox(), dash_sound, levelContainer.getTimers());
         allocateReady = false;
         isWalkGrassPlaying = false;
         isDashPlaying = false;
@@ -376,6 +383,7 @@ public class PlayerController {
      * @param lightingController lighting controller to update moonlight particles
      */
     public void update(float delta, Phase currPhase, LightingController lightingController) {
+        player.setConcealed(coverage.isCovered(player.getPosition()));
         attackHandler.update(delta, currPhase);
         resolvePlayer(delta);
         if (currPhase == Phase.STEALTH) {
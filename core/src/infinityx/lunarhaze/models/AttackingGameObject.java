@@ -4,9 +4,11 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.ParticleEffect;
 import com.badlogic.gdx.graphics.g2d.ParticleEffectPool;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
 import infinityx.assets.AssetDirectory;
 import infinityx.lunarhaze.combat.AttackHitbox;
 import infinityx.lunarhaze.graphics.GameCanvas;
+import infinityx.util.TimerWheel;
 
 /**
  * A game object that can and can be attack
@@ -35,34 +37,24 @@ public abstract class AttackingGameObject extends GameObject {
     public float lockout;
 
     /**
-     * Whether the entity is locked out from an attack
+     * Timer of the lock out from an attack, for use with {@link #lockout}
      */
-    public boolean lockedOut;
-
-    /**
-     * For use with {@link #lockout}
-     */
-    protected float lockoutTime;
+    protected int lockoutTimer;
 
     /**
      * Whether the entity is currently attacking
      */
     protected boolean isAttacking;
 
-    /**
-     * Whether the entity is currently attacked
-     */
-    protected boolean isAttacked;
-
     /**
      * Total time duration (in seconds) for attacked frames.
      */
     protected float isAttackedLength;
 
     /**
-     * Current time duration for attacked frames
+     * Timer of the attacked frames, the entity is attacked while it is pending
      */
-    protected float attackedTime;
+    protected int attackedTimer;
 
     /**
      * Hitbox parented to the entity. Only active when {@link #isAttacking}
@@ -89,11 +81,6 @@ public abstract class AttackingGameObject extends GameObject {
      */
     public float attackDamage;
 
-    /**
-     * Whether the entity is immune from other attacks
-     */
-    protected boolean isImmune;
-
     /**
      * Total time duration (in seconds) for immunity frames.
      * Immunity begins when hit or attacking.
@@ -101,15 +88,31 @@ public abstract class AttackingGameObject extends GameObject {
     protected float immunityLength;
 
     /**
-     * Current time duration for immunity frames
+     * Timer of the immunity frames, the entity is immune from other attacks while it is pending
      */
-    protected float immunityTime;
+    protected int immunityTimer;
+
+    /**
+     * Clock of the level, which the timers of this entity run on
+     */
+    protected TimerWheel timers;
 
     /**
      * Particle effect variables
      */
     public ParticleEffectPool particlePool;
-    public ParticleEffect particleEffect;
+    public ParticleEffectPool.PooledEffect particleEffect;
+
+    /**
+     * Particle effect pools by effect file, shared by every entity using the same effect
+     * so the effect is only loaded once.
+     */
+    private static final ObjectMap<String, ParticleEffectPool> particlePools = new ObjectMap<>();
+
+    /**
+     * Effects the pools copy from, by effect file. They own the textures of the effect.
+     */
+    private static final ObjectMap<String, ParticleEffect> particleTemplates = new ObjectMap<>();
 
     /**
      * Initialize attacking attributes for this entity
@@ -118,9 +121,6 @@ public abstract class AttackingGameObject extends GameObject {
         super();
         isAttacking = false;
         canMove = true;
-        isImmune = false;
-        lockedOut = false;
-        isAttacked = false;
     }
 
 
@@ -130,6 +130,7 @@ public abstract class AttackingGameObject extends GameObject {
     @Override
     public void initialize(AssetDirectory directory, JsonValue json, LevelContainer container) {
         super.initialize(directory, json, container);
+        timers = container.getTimers();
         maxHp = hp = json.getFloat("health");
 
         JsonValue attack = json.get("attack");
@@ -143,25 +144,52 @@ public abstract class AttackingGameObject extends GameObject {
 
         // Particle effect
         if (json.get("particle_hit") != null) {
-            JsonValue particle = json.get("particle_hit");
-            ParticleEffect dummyParticleEffect = new ParticleEffect();
-            dummyParticleEffect.load(Gdx.files.internal(particle.getString("effect")), Gdx.files.internal(particle.getString("imagesDir")));
-            particlePool = new ParticleEffectPool(dummyParticleEffect, 4, 8);
+            particlePool = getParticlePool(json.get("particle_hit"));
         }
+    }
 
+    /**
+     * @param particle json holding the effect file and its images directory
+     * @return the shared pool of the particle effect, loading the effect the first time it is asked for
+     */
+    public static ParticleEffectPool getParticlePool(JsonValue particle) {
+        String effect = particle.getString("effect");
+        ParticleEffectPool pool = particlePools.get(effect);
+        if (pool == null) {
+            ParticleEffect dummyParticleEffect = new ParticleEffect();
+            dummyParticleEffect.load(Gdx.files.internal(effect), Gdx.files.internal(particle.getString("imagesDir")));
+            pool = new ParticleEffectPool(dummyParticleEffect, 4, 8);
+            particlePools.put(effect, pool);
+            particleTemplates.put(effect, dummyParticleEffect);
+        }
+        return pool;
+    }
 
+    /**
+     * Disposes the shared particle effects and empties their pools, e.g. when the level is unloaded.
+     * Pools and effects obtained before must no longer be used.
+     */
+    public static void clearParticlePools() {
+        for (ParticleEffectPool pool : particlePools.values()) {
+            pool.clear();
+        }
+        for (ParticleEffect effect : particleTemplates.values()) {
+            effect.dispose();
+        }
+        particlePools.clear();
+        particleTemplates.clear();
     }
 
     /**
      * Begin immunity frames for this entity.
      */
     public void setImmune() {
-        isImmune = true;
-        immunityTime = immunityLength;
+        timers.cancel(immunityTimer);
+        immunityTimer = timers.schedule(immunityLength, null);
     }
 
     public boolean isImmune() {
-        return isImmune;
+        return timers.isPending(immunityTimer);
     }
 
 
@@ -169,12 +197,12 @@ public abstract class AttackingGameObject extends GameObject {
      * Begin lock out for this entity. Should be called when attacked.
      */
     public void setLockedOut() {
-        lockedOut = true;
-        lockoutTime = lockout;
+        timers.cancel(lockoutTimer);
+        lockoutTimer = timers.schedule(lockout, null);
     }
 
     public boolean isLockedOut() {
-        return lockedOut;
+        return timers.isPending(lockoutTimer);
     }
 
     /**
@@ -204,17 +232,18 @@ public abstract class AttackingGameObject extends GameObject {
      * Begin attacked frames for this entity.
      */
     public void setAttacked() {
-        isAttacked = true;
-        attackedTime = isAttackedLength;
+        timers.cancel(attackedTimer);
+        attackedTimer = timers.schedule(isAttackedLength, null);
 
         // Get particle effect from level container
         if (particlePool != null) {
+            if (particleEffect != null) particleEffect.free();
             particleEffect = particlePool.obtain();
         }
     }
 
     public boolean isAttacked() {
-        return isAttacked;
+        return timers.isPending(attackedTimer);
     }
 
     public AttackHitbox getAttackHitbox() {
@@ -224,38 +253,20 @@ public abstract class AttackingGameObject extends GameObject {
     @Override
     public void update(float delta) {
         super.update(delta);
-        canMove = !isAttacking && !lockedOut;
-
-        // Update counters for immunity and lockout
-        if (isImmune) {
-            immunityTime -= delta;
-            if (immunityTime <= 0) {
-                isImmune = false;
-            }
-        }
-
-        if (isAttacked) {
-            attackedTime -= delta;
-            if (attackedTime <= 0) {
-                isAttacked = false;
-                if (particleEffect != null) {
-                    particleEffect.dispose();
-                    particleEffect = null;
-                }
-            }
+        canMove = !isAttacking && !isLockedOut();
 
+        // Immunity and lockout end with their timers, the hit effect is let go once the attacked frames are over
+        if (isAttacked()) {
             if (particleEffect != null) {
                 particleEffect.update(delta);
             }
-        }
-        if (lockedOut) {
-            lockoutTime -= delta;
-            if (lockoutTime <= 0)
-                lockedOut = false;
+        } else if (particleEffect != null) {
+            particleEffect.free();
+            particleEffect = null;
         }
 
         // Particle effect update
-        if (particleEffect != null && isAttacked) {
+        if (particleEffect != null && isAttacked()) {
             particleEffect.update(delta);
         }
     }
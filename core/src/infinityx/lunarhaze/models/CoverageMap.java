@@ -0,0 +1,159 @@
+package infinityx.lunarhaze.models;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import infinityx.lunarhaze.models.entity.SceneObject;
+import infinityx.lunarhaze.physics.MultiShapeObstacle;
+import infinityx.lunarhaze.physics.ShapeRasterizer;
+
+import java.util.Arrays;
+
+/**
+ * Grid over the board marking which cells are covered by tall grass (sensor scene objects).
+ * <p>
+ * A cell is covered by an object if its center lies in one of the colliders of the object, rotation and shape
+ * included. Each cell counts the grass objects covering it, so overlapping grass is handled and objects can be
+ * added, moved or removed incrementally. Checking whether a point is concealed is a single array lookup.
+ */
+public class CoverageMap {
+
+    /**
+     * Width and height of a cell in world units
+     */
+    public static final float CELL_SIZE = 0.125f;
+
+    /**
+     * Dimensions of the grid in cells
+     */
+    private final int width, height;
+
+    /**
+     * Number of objects covering each cell, row major
+     */
+    private final short[] coverage;
+
+    /**
+     * Cells currently stamped by each tracked object
+     */
+    private final ObjectMap<SceneObject, IntArray> stamps;
+
+    /**
+     * Scan-converts the colliders of an object into {@link #stamping}
+     */
+    private final Stamper stamper;
+
+    /**
+     * Cells of the object being stamped, and the stamp each cell was last collected by,
+     * so cells covered by several colliders of the same object are only counted once
+     */
+    private IntArray stamping;
+    private final int[] collected;
+    private int stampId;
+
+    /**
+     * @param worldWidth  width of the board in world units
+     * @param worldHeight height of the board in world units
+     */
+    public CoverageMap(float worldWidth, float worldHeight) {
+        this.width = Math.max(1, MathUtils.ceil(worldWidth / CELL_SIZE));
+        this.height = Math.max(1, MathUtils.ceil(worldHeight / CELL_SIZE));
+        this.coverage = new short[width * height];
+        this.collected = new int[width * height];
+        this.stamps = new ObjectMap<>();
+        this.stamper = new Stamper();
+    }
+
+    /**
+     * Collects the cells whose centers lie in a shape. Shrinking each cell by half its size on every side leaves
+     * only its center, which the rasterizer then tests against the shape.
+     */
+    private class Stamper extends ShapeRasterizer {
+        Stamper() {
+            super(width, height, CELL_SIZE, CELL_SIZE, -CELL_SIZE / 2);
+        }
+
+        @Override
+        protected void block(int x, int y) {
+            int cell = y * width + x;
+            if (collected[cell] == stampId) return;
+            collected[cell] = stampId;
+            stamping.add(cell);
+        }
+    }
+
+    /**
+     * Start tracking the given object and rasterize its colliders into the grid
+     */
+    public void add(SceneObject obj) {
+        if (stamps.containsKey(obj)) return;
+        IntArray cells = new IntArray();
+        stamps.put(obj, cells);
+        stamp(obj, cells);
+    }
+
+    /**
+     * Re-rasterize a tracked object, e.g. after it was moved or scaled in the editor.
+     * Does nothing if the object is not tracked.
+     */
+    public void update(SceneObject obj) {
+        IntArray cells = stamps.get(obj);
+        if (cells == null) return;
+        apply(cells, -1);
+        stamp(obj, cells);
+    }
+
+    /**
+     * Stop tracking the given object and clear its cells
+     */
+    public void remove(SceneObject obj) {
+        IntArray cells = stamps.remove(obj);
+        if (cells == null) return;
+        apply(cells, -1);
+    }
+
+    /**
+     * @return whether the world position (x, y) is covered
+     */
+    public boolean isCovered(float x, float y) {
+        int cx = (int) Math.floor(x / CELL_SIZE);
+        int cy = (int) Math.floor(y / CELL_SIZE);
+        if (cx < 0 || cy < 0 || cx >= width || cy >= height) return false;
+        return coverage[cy * width + cx] > 0;
+    }
+
+    /**
+     * @return whether the world position is covered
+     */
+    public boolean isCovered(Vector2 pos) {
+        return isCovered(pos.x, pos.y);
+    }
+
+    /**
+     * Collects into cells the cells whose centers lie in the colliders of obj, following their rotation and shape,
+     * then covers them
+     */
+    private void stamp(SceneObject obj, IntArray cells) {
+        cells.clear();
+        stamping = cells;
+        if (++stampId == 0) {
+            // Wrapped around, forget every stamp so none is mistaken for the current one
+            Arrays.fill(collected, 0);
+            stampId = 1;
+        }
+        Vector2 pos = obj.getPosition();
+        float angle = obj.getAngle();
+        for (ObjectMap.Entry<String, MultiShapeObstacle.ShapeCache> entry : obj.getShapes()) {
+            stamper.rasterize(entry.value.shape, pos.x, pos.y, angle, 0, 0, width - 1, height - 1);
+        }
+        stamping = null;
+        apply(cells, 1);
+    }
+
+    private void apply(IntArray cells, int amount) {
+        for (int i = 0; i < cells.size; i++) {
+            coverage[cells.get(i)] += amount;
+        }
+    }
+}
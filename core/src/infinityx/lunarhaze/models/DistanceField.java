@@ -0,0 +1,220 @@
+package infinityx.lunarhaze.models;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import infinityx.lunarhaze.physics.ShapeRasterizer;
+import infinityx.lunarhaze.physics.StaticBVH;
+
+import java.util.Arrays;
+
+/**
+ * Signed distance from every point of the board to the boundary of the static obstacles, precomputed on a fine grid
+ * at level load. Positive outside obstacles, negative inside.
+ * <p>
+ * Cells overlapping any scene object collider are obstacles. The distance of the other cells is the exact Euclidean
+ * distance transform of that mask, and that of obstacle cells the transform of the free cells. Samples are taken at
+ * cell centers: {@link #distance(float, float)} is a single array lookup, while {@link #sample(float, float)} and
+ * {@link #gradient(float, float, Vector2)} interpolate bilinearly for smooth steering. Segments are tested against the
+ * obstacles by sphere tracing the field instead of raycasting the colliders. Distances are accurate to about a cell.
+ * <p>
+ * The field is never modified after construction, so it can be queried from any thread.
+ */
+public class DistanceField {
+
+    /**
+     * Width and height of a cell in world units
+     */
+    public static final float CELL_SIZE = 0.125f;
+
+    /**
+     * Clearance at or below which a point is considered to touch an obstacle, that of cells next to an obstacle
+     */
+    private static final float CONTACT = CELL_SIZE / 2;
+
+    /**
+     * Squared distance of cells with no obstacle in sight, while transforming
+     */
+    private static final double FAR = 1e12;
+
+    /**
+     * Dimensions of the grid in cells
+     */
+    private final int width, height;
+
+    /**
+     * Signed distance at the center of each cell in world units, row major
+     */
+    private final float[] field;
+
+    /**
+     * @param geometry    static obstacles of the level
+     * @param worldWidth  width of the board in world units
+     * @param worldHeight height of the board in world units
+     */
+    public DistanceField(StaticBVH geometry, float worldWidth, float worldHeight) {
+        this.width = Math.max(1, MathUtils.ceil(worldWidth / CELL_SIZE));
+        this.height = Math.max(1, MathUtils.ceil(worldHeight / CELL_SIZE));
+        this.field = new float[width * height];
+
+        // Squared distance in cells to the closest obstacle cell, starting with 0 for obstacles
+        final double[] outside = new double[width * height];
+        Arrays.fill(outside, FAR);
+        geometry.rasterize(new ShapeRasterizer(width, height, CELL_SIZE, CELL_SIZE, 0) {
+            @Override
+            protected void block(int x, int y) {
+                outside[y * width + x] = 0;
+            }
+        }, 0);
+        // Squared distance in cells to the closest free cell, starting with 0 for free cells
+        double[] inside = new double[width * height];
+        for (int i = 0; i < inside.length; i++) {
+            inside[i] = outside[i] == 0 ? FAR : 0;
+        }
+
+        int n = Math.max(width, height);
+        double[] f = new double[n];
+        double[] d = new double[n];
+        int[] v = new int[n];
+        double[] z = new double[n + 1];
+        transformGrid(outside, f, d, v, z);
+        transformGrid(inside, f, d, v, z);
+
+        // Bounds the field when the board has no obstacles, or nothing but obstacles
+        float limit = (width + height) * CELL_SIZE;
+        for (int i = 0; i < field.length; i++) {
+            // Measured between cell centers, the boundary lies half a cell closer
+            if (outside[i] > 0) {
+                field[i] = outside[i] >= FAR ? limit : (float) Math.sqrt(outside[i]) * CELL_SIZE - CELL_SIZE / 2;
+            } else {
+                field[i] = inside[i] >= FAR ? -limit : CELL_SIZE / 2 - (float) Math.sqrt(inside[i]) * CELL_SIZE;
+            }
+        }
+    }
+
+    /**
+     * 2D squared Euclidean distance transform in place, separable along columns then rows
+     *
+     * @param squared 0 for the cells to measure from, {@link #FAR} elsewhere
+     */
+    private void transformGrid(double[] squared, double[] f, double[] d, int[] v, double[] z) {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) f[y] = squared[y * width + x];
+            transform(f, height, d, v, z);
+            for (int y = 0; y < height; y++) squared[y * width + x] = d[y];
+        }
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(squared, y * width, f, 0, width);
+            transform(f, width, d, v, z);
+            System.arraycopy(d, 0, squared, y * width, width);
+        }
+    }
+
+    /**
+     * 1D squared Euclidean distance transform of f (Felzenszwalb and Huttenlocher), the lower envelope of the
+     * parabolas rooted at each sample.
+     *
+     * @param n number of samples
+     * @param d receives the transform
+     * @param v scratch for the roots of the parabolas in the envelope
+     * @param z scratch for the boundaries between them
+     */
+    private static void transform(double[] f, int n, double[] d, int[] v, double[] z) {
+        int k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+        for (int q = 1; q < n; q++) {
+            double s = intersect(f, q, v[k]);
+            while (s <= z[k]) {
+                k--;
+                s = intersect(f, q, v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q) k++;
+            double dq = q - v[k];
+            d[q] = dq * dq + f[v[k]];
+        }
+    }
+
+    /**
+     * @return position where the parabolas rooted at q and p intersect
+     */
+    private static double intersect(double[] f, int q, int p) {
+        return ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * q - 2.0 * p);
+    }
+
+    /**
+     * @return signed distance from the world position (x, y) to the closest obstacle boundary, read off the cell
+     * containing it, clamped to the board
+     */
+    public float distance(float x, float y) {
+        int cx = MathUtils.clamp((int) Math.floor(x / CELL_SIZE), 0, width - 1);
+        int cy = MathUtils.clamp((int) Math.floor(y / CELL_SIZE), 0, height - 1);
+        return field[cy * width + cx];
+    }
+
+    /**
+     * @return signed distance from the world position (x, y) to the closest obstacle boundary, interpolated
+     * bilinearly between cell centers, clamped to the board
+     */
+    public float sample(float x, float y) {
+        float gx = MathUtils.clamp(x / CELL_SIZE - 0.5f, 0, width - 1);
+        float gy = MathUtils.clamp(y / CELL_SIZE - 0.5f, 0, height - 1);
+        int x0 = Math.min((int) gx, Math.max(0, width - 2)), y0 = Math.min((int) gy, Math.max(0, height - 2));
+        int x1 = Math.min(x0 + 1, width - 1), y1 = Math.min(y0 + 1, height - 1);
+        float tx = gx - x0, ty = gy - y0;
+        float bottom = MathUtils.lerp(field[y0 * width + x0], field[y0 * width + x1], tx);
+        float top = MathUtils.lerp(field[y1 * width + x0], field[y1 * width + x1], tx);
+        return MathUtils.lerp(bottom, top, ty);
+    }
+
+    /**
+     * Gradient of the bilinearly interpolated field at the world position (x, y), pointing away from the closest
+     * obstacle boundary. About unit length, except where the closest boundary changes (e.g. halfway between two
+     * obstacles) where it shrinks.
+     *
+     * @param out receives the gradient
+     * @return out for chaining
+     */
+    public Vector2 gradient(float x, float y, Vector2 out) {
+        float gx = MathUtils.clamp(x / CELL_SIZE - 0.5f, 0, width - 1);
+        float gy = MathUtils.clamp(y / CELL_SIZE - 0.5f, 0, height - 1);
+        int x0 = Math.min((int) gx, Math.max(0, width - 2)), y0 = Math.min((int) gy, Math.max(0, height - 2));
+        int x1 = Math.min(x0 + 1, width - 1), y1 = Math.min(y0 + 1, height - 1);
+        float tx = gx - x0, ty = gy - y0;
+        float f00 = field[y0 * width + x0], f10 = field[y0 * width + x1];
+        float f01 = field[y1 * width + x0], f11 = field[y1 * width + x1];
+        float dx = x1 == x0 ? 0 : MathUtils.lerp(f10 - f00, f11 - f01, ty) / CELL_SIZE;
+        float dy = y1 == y0 ? 0 : MathUtils.lerp(f01 - f00, f11 - f10, tx) / CELL_SIZE;
+        return out.set(dx, dy);
+    }
+
+    /**
+     * Whether the segment from (x1, y1) to (x2, y2) touches an obstacle.
+     * The segment is sphere traced: every step advances by the clearance at the current point, which is free of
+     * obstacles in all directions, so only a handful of lookups are needed away from obstacles.
+     */
+    public boolean isBlocked(float x1, float y1, float x2, float y2) {
+        float dx = x2 - x1, dy = y2 - y1;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        if (length > 0) {
+            dx /= length;
+            dy /= length;
+        }
+
+        float t = 0;
+        while (true) {
+            float d = distance(x1 + dx * t, y1 + dy * t);
+            // Every step is at least CONTACT long, so this terminates
+            if (d <= CONTACT) return true;
+            t += d;
+            if (t >= length) return false;
+        }
+    }
+}
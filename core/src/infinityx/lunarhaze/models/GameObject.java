@@ -34,6 +34,7 @@ import infinityx.lunarhaze.graphics.Animation;
 import infinityx.lunarhaze.graphics.FilmStrip;
 import infinityx.lunarhaze.graphics.GameCanvas;
 import infinityx.lunarhaze.physics.MultiShapeObstacle;
+import infinityx.lunarhaze.physics.ShapeArchetype;
 import infinityx.lunarhaze.screens.EditorMode;
 import infinityx.util.Drawable;
 
@@ -191,30 +192,10 @@ public abstract class GameObject extends MultiShapeObstacle implements Drawable
         if (json.has("sensor"))
             setSensor(json.getBoolean("sensor"));
 
-        // Shape collision info
+        // Shape collision info, parsed once per object type
         JsonValue p_dim = json.get("colliders");
         if (p_dim == null) return;
-        for (JsonValue coll : p_dim) {
-            String name = coll.name();
-
-            Vector2 offset = new Vector2();
-            if (coll.has("offset")) {
-                offset.set(coll.get("offset").getFloat(0), coll.get("offset").getFloat(1));
-            }
-
-            if (coll.getString("type").equals("box")) {
-                addBox(
-                        name, coll.getFloat("width"), coll.getFloat("height"),
-                        offset, coll.has("angle") ? coll.getFloat("angle") : 0
-                );
-            } else if (coll.getString("type").equals("circle")) {
-                addCircle(name, coll.getFloat("radius"), offset);
-            } else {
-                addEllipse(name, coll.getFloat("width"), coll.getFloat("height"), offset);
-            }
-        }
-
-
+        applyArchetype(ShapeArchetype.obtain(p_dim, getScale(), false));
     }
 
     /**
@@ -9,22 +9,32 @@ import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.math.Vector3;
-import com.badlogic.gdx.physics.box2d.Fixture;
-import com.badlogic.gdx.physics.box2d.QueryCallback;
 import com.badlogic.gdx.physics.box2d.World;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import infinityx.assets.AssetDirectory;
+import infinityx.lunarhaze.ai.EventBus;
+import infinityx.lunarhaze.ai.LocationSnapshot;
+import infinityx.lunarhaze.combat.HitboxQuery;
 import infinityx.lunarhaze.controllers.EnemyController;
 import infinityx.lunarhaze.controllers.EnemySpawner;
 import infinityx.lunarhaze.controllers.InputController;
 import infinityx.lunarhaze.graphics.CameraShake;
 import infinityx.lunarhaze.graphics.GameCanvas;
 import infinityx.lunarhaze.models.entity.*;
+import infinityx.lunarhaze.physics.RaycastService;
+import infinityx.lunarhaze.physics.ShapeArchetype;
+import infinityx.lunarhaze.physics.StaticBVH;
+import infinityx.lunarhaze.physics.VisibilityTable;
 import infinityx.util.Drawable;
 import infinityx.util.PatrolPath;
+import infinityx.util.TimerWheel;
 import infinityx.util.astar.AStarMap;
 import infinityx.util.astar.AStarPathFinding;
+import infinityx.util.astar.FlowField;
+import infinityx.util.astar.NavGridCache;
+import infinityx.util.astar.PathScheduler;
+import infinityx.util.astar.PatrolRoutes;
 
 import java.util.Comparator;
 
@@ -56,6 +66,16 @@ import java.util.Comparator;
  * should the relevant transformation from world to screen be done.
  */
 public class LevelContainer {
+    /**
+     * Margin scene object bodies are fattened by when marking navigation grid obstacles
+     */
+    private static final float NAV_MARGIN = 0.1f;
+
+    /**
+     * Extension of the visibility tables stored in the {@link NavGridCache}
+     */
+    private static final String VISIBILITY_EXTENSION = ".pvs2";
+
     /**
      * Need an ongoing reference to the asset directory
      */
@@ -70,6 +90,50 @@ public class LevelContainer {
      */
     private World world;
 
+    /**
+     * Resolves melee hitboxes against the world
+     */
+    private HitboxQuery hitboxQuery;
+
+    /**
+     * Hierarchy over static geometry, used for static-only raycasts and queries
+     */
+    private StaticBVH staticGeometry;
+
+    /**
+     * Batches and caches AI raycasts against {@link #staticGeometry}
+     */
+    private RaycastService raycasts;
+
+    /**
+     * Tall grass coverage over the board
+     */
+    private CoverageMap coverage;
+
+    /**
+     * Signed distance to the static geometry over the board
+     */
+    private DistanceField distanceField;
+
+    /**
+     * Active enemies bucketed by position, rebuilt every tick
+     */
+    private NeighborGrid neighbors;
+
+    /**
+     * Line of sight between the tiles of the board
+     */
+    private VisibilityTable visibility;
+
+    /**
+     * Clock of the cooldowns, lockouts and delayed actions of this level
+     */
+    private TimerWheel timers;
+
+    /**
+     * Carries the events coordinating the AI of this level
+     */
+    private EventBus<EnemyController> events;
 
     /**
      * Owns the enemy spawner, used for battle phase
@@ -109,6 +173,11 @@ public class LevelContainer {
      */
     private Werewolf player;
 
+    /**
+     * Location of the player taken every tick before the enemies plan their steering
+     */
+    private final LocationSnapshot playerSnapshot = new LocationSnapshot();
+
     /**
      * Stores Board
      */
@@ -119,6 +188,26 @@ public class LevelContainer {
      */
     public AStarPathFinding pathfinder;
 
+    /**
+     * Flow field towards the player, shared by every enemy chasing it
+     */
+    private FlowField flowField;
+
+    /**
+     * Serves A* path requests of enemies within a time budget per frame
+     */
+    private PathScheduler pathScheduler;
+
+    /**
+     * Routes between consecutive patrol waypoints of enemies, solved once and shared
+     */
+    private PatrolRoutes patrolRoutes;
+
+    /**
+     * Keeps the navigation grid in sync with edited scene objects, null unless {@link #trackNavGrid()} was called
+     */
+    private NavGridUpdater navGrid;
+
     /**
      * View translation
      */
@@ -203,6 +292,7 @@ public class LevelContainer {
     private void initialize() {
         totalTime = 0;
         world = new World(new Vector2(0, 0), true);
+        hitboxQuery = new HitboxQuery(world);
         rayHandler = new RayHandler(world, Gdx.graphics.getWidth(), Gdx.graphics.getWidth());
         rayHandler.setAmbientLight(1);
         rayHandler.setLightShader(lightShader);
@@ -213,6 +303,10 @@ public class LevelContainer {
         backing = new Array<>();
         lampLights = new Array<>();
 
+        // Entities schedule their cooldowns on the clock as they are initialized
+        timers = new TimerWheel();
+        events = new EventBus<>(timers);
+
         // There will always be a player
         // So it's fine to initialize now
         Werewolf player = new Werewolf();
@@ -221,6 +315,16 @@ public class LevelContainer {
 
         board = null;
         pathfinder = null;
+        flowField = null;
+        pathScheduler = null;
+        patrolRoutes = null;
+        navGrid = null;
+        staticGeometry = null;
+        raycasts = null;
+        coverage = null;
+        distanceField = null;
+        neighbors = null;
+        visibility = null;
         enemySpawner = new EnemySpawner(this);
         villagers = new EnemyPool<>(20, Villager.class);
         archers = new EnemyPool<>(20, Archer.class);
@@ -257,6 +361,9 @@ public class LevelContainer {
      * "flush" all objects from this level and resets level.
      */
     public void flush() {
+        // Shapes and particle effects of the objects of the old level are no longer needed
+        ShapeArchetype.clearCache();
+        AttackingGameObject.clearParticlePools();
         initialize();
     }
 
@@ -275,6 +382,19 @@ public class LevelContainer {
         return activeEnemies;
     }
 
+    /**
+     * @return the controller of the given enemy
+     */
+    public EnemyController getController(Enemy enemy) {
+        switch (enemy.getEnemyType()) {
+            case Archer:
+                return archers.controls.get((Archer) enemy);
+            case Villager:
+                return villagers.controls.get((Villager) enemy);
+        }
+        return null;
+    }
+
     /**
      * @return All tutorial billboards in level.
      */
@@ -382,13 +502,38 @@ public class LevelContainer {
                 controller = archers.controls.get((Archer) enemy);
                 break;
         }
-        enemy.initialize(directory, enemiesJson.get(type.toString()), this);
+        if (!enemy.isInitialized()) enemy.initialize(directory, enemiesJson.get(type.toString()), this);
         enemy.setPatrolPath(patrol);
         enemy.setPosition(x, y);
 
         return addEnemy(enemy, controller);
     }
 
+    /**
+     * Builds pooled enemies ahead of time, so spawning them mid-level does not parse their attributes,
+     * create their bodies and flashlights or build their behaviors. The enemies go back to their pools inactive.
+     *
+     * @param villagerCount number of villagers to build
+     * @param archerCount   number of archers to build
+     */
+    public void prewarmEnemies(int villagerCount, int archerCount) {
+        prewarmEnemies(villagers, Enemy.EnemyType.Villager, villagerCount);
+        prewarmEnemies(archers, Enemy.EnemyType.Archer, archerCount);
+    }
+
+    private <T extends Enemy> void prewarmEnemies(EnemyPool<T> pool, Enemy.EnemyType type, int count) {
+        Array<T> warmed = new Array<>(count);
+        for (int i = 0; i < count; i++) {
+            T enemy = pool.obtain();
+            if (!enemy.isInitialized()) enemy.initialize(directory, enemiesJson.get(type.toString()), this);
+            pool.controls.get(enemy).populate(this);
+            enemy.setActive(false);
+            enemy.getFlashlight().setActive(false);
+            warmed.add(enemy);
+        }
+        pool.freeAll(warmed);
+    }
+
     /**
      * Adds an arrow to the level
      */
@@ -424,6 +569,13 @@ public class LevelContainer {
         return world;
     }
 
+    /**
+     * Return the melee hitbox query over the world held by this container
+     */
+    public HitboxQuery getHitboxQuery() {
+        return hitboxQuery;
+    }
+
     /**
      * Returns a reference to the currently active player.
      *
@@ -433,6 +585,13 @@ public class LevelContainer {
         return player;
     }
 
+    /**
+     * @return location of the player as of the start of the current tick, safe to read from any thread
+     */
+    public LocationSnapshot getPlayerSnapshot() {
+        return playerSnapshot;
+    }
+
     /**
      * Sets Ambient lighting values during stealth phase
      */
@@ -527,6 +686,58 @@ public class LevelContainer {
     public void setBoard(Board board) {
         this.board = board;
         this.totalMoonlight = board.getRemainingMoonlight();
+
+        coverage = new CoverageMap(board.getWorldWidth(), board.getWorldHeight());
+        for (SceneObject obj : sceneObjects) {
+            if (obj.isSensor()) coverage.add(obj);
+        }
+        neighbors = new NeighborGrid(board.getWorldWidth(), board.getWorldHeight());
+    }
+
+    /**
+     * Return tall grass coverage of the board, null if there is no board yet
+     */
+    public CoverageMap getCoverage() {
+        return coverage;
+    }
+
+    /**
+     * Return clock of the cooldowns, lockouts and delayed actions of this level, advanced by the gameplay
+     */
+    public TimerWheel getTimers() {
+        return timers;
+    }
+
+    /**
+     * Return event bus coordinating the AI of this level
+     */
+    public EventBus<EnemyController> getEvents() {
+        return events;
+    }
+
+    /**
+     * Return grid of the active enemies, null if there is no board yet
+     */
+    public NeighborGrid getNeighbors() {
+        return neighbors;
+    }
+
+    /**
+     * Should be called whenever a scene object is moved, scaled or flipped after being added.
+     */
+    public void sceneObjectChanged(SceneObject obj) {
+        if (coverage != null && obj.isSensor()) coverage.update(obj);
+        if (navGrid != null) navGridChanged(navGrid.update(obj));
+    }
+
+    /**
+     * Destroy the bodies of sensor scene objects (tall grass).
+     * Their coverage is tracked by {@link #getCoverage()}, so during gameplay they need no presence in the world.
+     */
+    public void removeSensorBodies() {
+        for (SceneObject obj : sceneObjects) {
+            if (obj.isSensor() && obj.getBody() != null) obj.deactivatePhysics(world);
+        }
     }
 
     /**
@@ -537,6 +748,8 @@ public class LevelContainer {
         sceneObjects.add(obj);
         drawables.add(obj);
         obj.setActive(true);
+        if (coverage != null && obj.isSensor()) coverage.add(obj);
+        if (navGrid != null) navGridChanged(navGrid.add(obj));
 
         return obj;
     }
@@ -567,6 +780,8 @@ public class LevelContainer {
     public void removeSceneObject(SceneObject object) {
         sceneObjects.removeValue(object, true);
         drawables.removeValue(object, true);
+        if (coverage != null) coverage.remove(object);
+        if (navGrid != null) navGridChanged(navGrid.remove(object));
         // Remove attached light if lamp
         if (object.getName().equalsIgnoreCase("lamp")) {
             Array.ArrayIterator<PointLight> lights = lampLights.iterator();
@@ -598,12 +813,13 @@ public class LevelContainer {
     public SceneObject addSceneObject(String type, float x, float y, float scale, boolean flipped) {
         SceneObject object = new SceneObject(type);
         object.initialize(directory, objectJson.get(type), this);
-        object.activatePhysics(world);
 
+        // Pick the collider archetype before the body exists so fixtures are only created once
         object.setPosition(x, y);
         object.setScale(scale);
         object.setName(type);
         object.setFlipped(flipped);
+        object.activatePhysics(world);
 
         if (type.equalsIgnoreCase("lamp")) {
             PointLight light = new PointLight(
@@ -741,51 +957,172 @@ public class LevelContainer {
         backing.clear();
     }
 
-    // used in pathfinder obstacle callback
-    private boolean scene;
+    /**
+     * Builds the static geometry hierarchy from the scene objects currently in the level.
+     * Should be called once all scene objects have been added.
+     */
+    public void buildStaticGeometry() {
+        staticGeometry = new StaticBVH(sceneObjects);
+        raycasts = new RaycastService(staticGeometry);
+        if (board != null) {
+            distanceField = new DistanceField(staticGeometry, board.getWorldWidth(), board.getWorldHeight());
+        }
+    }
+
+    /**
+     * Precomputes line of sight between the tiles of the board and hands it to the raycast service, so rays between
+     * tiles certainly hidden from each other are not cast. Requires {@link #buildStaticGeometry()} to have been called.
+     * On a cache miss, e.g. after every editor Save+Test of a modified level, this costs up to 25 rays per pair of
+     * tiles within {@link VisibilityTable#RANGE}, see {@link VisibilityTable}.
+     *
+     * @param cacheKey key of the level in the {@link NavGridCache}, see {@link NavGridCache#key}.
+     *                 If null, the table is always built and not cached.
+     */
+    public void buildVisibility(String cacheKey) {
+        Vector2 tileSize = board.getTileWorldDim();
+        visibility = new VisibilityTable(board.getWidth(), board.getHeight(), tileSize.x, tileSize.y);
+
+        long[] words = cacheKey == null ? null
+                : NavGridCache.load(cacheKey, VISIBILITY_EXTENSION, board.getWidth(), board.getHeight());
+        if (words == null || !visibility.setWords(words)) {
+            visibility.build(staticGeometry);
+            if (cacheKey != null) {
+                NavGridCache.save(cacheKey, VISIBILITY_EXTENSION, board.getWidth(), board.getHeight(), visibility.getWords());
+            }
+        }
+        raycasts.setVisibility(visibility);
+    }
+
+    /**
+     * Return line of sight between the tiles of the board, null if not built by {@link #buildVisibility(String)}
+     */
+    public VisibilityTable getVisibility() {
+        return visibility;
+    }
+
+    /**
+     * Return hierarchy over the static geometry of the level, built by {@link #buildStaticGeometry()}
+     */
+    public StaticBVH getStaticGeometry() {
+        return staticGeometry;
+    }
+
+    /**
+     * Return raycast service over the static geometry of the level, built by {@link #buildStaticGeometry()}
+     */
+    public RaycastService getRaycasts() {
+        return raycasts;
+    }
+
+    /**
+     * Return signed distance to the static geometry of the level, built by {@link #buildStaticGeometry()}
+     */
+    public DistanceField getDistanceField() {
+        return distanceField;
+    }
 
     /**
-     * Creates a tiled (grid) A* path finder.
+     * Creates a tiled (grid) A* path finder. Requires {@link #buildStaticGeometry()} to have been called.
      *
      * @param gridSize width and height of each grid in world size
      */
     public void createPathFinder(Vector2 gridSize) {
+        createPathFinder(gridSize, AStarPathFinding.Algorithm.ASTAR);
+    }
+
+    /**
+     * Creates a tiled (grid) path finder. Requires {@link #buildStaticGeometry()} to have been called.
+     *
+     * @param gridSize  width and height of each grid in world size
+     * @param algorithm search algorithm the path finder uses
+     */
+    public void createPathFinder(Vector2 gridSize, AStarPathFinding.Algorithm algorithm) {
+        createPathFinder(gridSize, algorithm, null);
+    }
+
+    /**
+     * Creates a tiled (grid) path finder. Requires {@link #buildStaticGeometry()} to have been called.
+     *
+     * @param gridSize  width and height of each grid in world size
+     * @param algorithm search algorithm the path finder uses
+     * @param cacheKey  key of the navigation grid in the {@link NavGridCache}, see {@link NavGridCache#key}.
+     *                  If null, the grid is always rasterized and not cached.
+     */
+    public void createPathFinder(Vector2 gridSize, AStarPathFinding.Algorithm algorithm, String cacheKey) {
         // fill board space
         int width = (int) (board.getWidth() * board.getTileWorldDim().x / gridSize.x);
         int height = (int) (board.getHeight() * board.getTileWorldDim().y / gridSize.y);
         AStarMap aStarMap = new AStarMap(width, height, gridSize);
 
-        QueryCallback queryCallback = new QueryCallback() {
-            @Override
-            public boolean reportFixture(Fixture fixture) {
-                GameObject hitObj = (GameObject) fixture.getUserData();
-                if (hitObj.getType() == GameObject.ObjectType.SCENE && !hitObj.isSensor()) {
-                    scene = true;
-                    return false; // stop finding other fixtures in the query area
-                }
-                return true;
-            }
-        };
-
-        // If a node overlaps any part of a scene objects body, mark as an obstacle
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                scene = false;
-                world.QueryAABB(
-                        queryCallback,
-                        x * gridSize.x,
-                        y * gridSize.y,
-                        (x + 1) * gridSize.x,
-                        (y + 1) * gridSize.y
-                );
-                if (scene) {
-                    aStarMap.getNodeAt(x, y).isObstacle = true;
-                }
-            }
+        if (cacheKey == null || !NavGridCache.load(cacheKey, aStarMap)) {
+            // If a node overlaps any part of a (fattened) scene objects body, mark as an obstacle.
+            // The margin matches the AABB extension Box2D's broad-phase used to apply to the same query.
+            staticGeometry.rasterize(aStarMap, NAV_MARGIN, 0);
+            if (cacheKey != null) NavGridCache.save(cacheKey, aStarMap);
         }
 
         //System.out.println(aStarMap);
-        pathfinder = new AStarPathFinding(aStarMap);
+        pathfinder = new AStarPathFinding(aStarMap, algorithm);
+        flowField = new FlowField(aStarMap);
+        pathScheduler = new PathScheduler(pathfinder);
+        patrolRoutes = new PatrolRoutes(pathfinder);
+    }
+
+    /**
+     * @return width and height of each navigation grid cell in world size, derived from the size of the player
+     */
+    public Vector2 getNavGridSize() {
+        float playerSize = player.getBoundingRadius();
+        return new Vector2(playerSize * 1.5f, playerSize);
+    }
+
+    /**
+     * Keep the navigation grid up to date as scene objects are added, moved or removed, e.g. while editing.
+     * Only the cells under the changed objects are rasterized again. Creates the path finder if there is none yet.
+     */
+    public void trackNavGrid() {
+        if (navGrid != null) return;
+        if (pathfinder == null) {
+            if (staticGeometry == null) buildStaticGeometry();
+            createPathFinder(getNavGridSize());
+        }
+        navGrid = new NavGridUpdater(pathfinder.map, NAV_MARGIN);
+        for (SceneObject obj : sceneObjects) {
+            navGrid.track(obj);
+        }
+    }
+
+    /**
+     * Updates the pathfinding structures after the walkability of some cells changed
+     *
+     * @param rect cells that changed (x0, y0, x1, y1 inclusive), null if none
+     */
+    private void navGridChanged(int[] rect) {
+        if (rect == null) return;
+        pathfinder.invalidate(rect[0], rect[1], rect[2], rect[3]);
+        flowField.invalidate();
+        pathScheduler.invalidate();
+    }
+
+    /**
+     * Return flow field over the navigation grid, built by {@link #createPathFinder(Vector2)}
+     */
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
+    /**
+     * Return path request scheduler over the navigation grid, built by {@link #createPathFinder(Vector2)}
+     */
+    public PathScheduler getPathScheduler() {
+        return pathScheduler;
+    }
+
+    /**
+     * Return routes between consecutive patrol waypoints, built by {@link #createPathFinder(Vector2)}
+     */
+    public PatrolRoutes getPatrolRoutes() {
+        return patrolRoutes;
     }
 
     public void setLevel(int level) {
@@ -0,0 +1,185 @@
+package infinityx.lunarhaze.models;
+
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.utils.ObjectMap;
+import infinityx.lunarhaze.models.entity.SceneObject;
+import infinityx.lunarhaze.physics.ShapeRasterizer;
+import infinityx.util.astar.AStarMap;
+
+/**
+ * Keeps the obstacles of an {@link AStarMap} in sync with scene objects as they are added, moved or removed,
+ * e.g. while editing a level.
+ * <p>
+ * Each tracked object remembers the rectangle of cells its colliders can block and the transform they were rasterized
+ * at. When an object changes, only the cells under its old and new rectangles are cleared and rasterized again from
+ * the tracked objects overlapping them, so the cost of an edit depends on the size of the object rather than the size
+ * of the level. Changes that leave the transform as it was, e.g. setting the same position again, do nothing.
+ */
+public class NavGridUpdater {
+
+    private final AStarMap map;
+
+    private final ShapeRasterizer rasterizer;
+
+    /**
+     * What is known of a tracked object
+     */
+    private static class Tracked {
+        /**
+         * Cell rectangle (x0, y0, x1, y1 inclusive) the object can block
+         */
+        final int[] rect = new int[4];
+
+        /**
+         * Transform of the colliders when the rectangle was last rasterized
+         */
+        float x, y, angle, scale;
+        boolean flipped;
+
+        /**
+         * Records the current transform of the object
+         *
+         * @return whether it differs from the recorded one
+         */
+        boolean setTransform(SceneObject obj) {
+            Body body = obj.getBody();
+            float x = body.getPosition().x, y = body.getPosition().y, angle = body.getAngle();
+            boolean changed = x != this.x || y != this.y || angle != this.angle
+                    || obj.getScale() != scale || obj.isFlipped() != flipped;
+            this.x = x;
+            this.y = y;
+            this.angle = angle;
+            this.scale = obj.getScale();
+            this.flipped = obj.isFlipped();
+            return changed;
+        }
+    }
+
+    /**
+     * Tracked objects
+     */
+    private final ObjectMap<SceneObject, Tracked> bounds;
+
+    /**
+     * Cells refreshed by the last change, returned to the caller
+     */
+    private final int[] dirty = new int[4];
+
+    /**
+     * Scratch for the new bounds of a changed object
+     */
+    private final int[] next = new int[4];
+
+    /**
+     * @param map    map whose obstacles are updated, should already hold the obstacles of the objects about to be added
+     * @param margin amount each cell is grown by on every side, must match the one the map was rasterized with
+     */
+    public NavGridUpdater(AStarMap map, float margin) {
+        this.map = map;
+        this.rasterizer = new ShapeRasterizer(map, margin);
+        this.bounds = new ObjectMap<>();
+    }
+
+    /**
+     * Start tracking the given object and block the cells under its colliders
+     *
+     * @return cells that were refreshed (x0, y0, x1, y1 inclusive), null if none. The array is reused.
+     */
+    public int[] add(SceneObject obj) {
+        if (bounds.containsKey(obj)) return null;
+        int[] rect = startTracking(obj).rect;
+        if (isEmpty(rect)) return null;
+        rasterizer.rasterize(obj.getBody(), rect[0], rect[1], rect[2], rect[3]);
+        return setDirty(rect);
+    }
+
+    /**
+     * Start tracking the given object without touching the map, its cells must already be blocked
+     */
+    public void track(SceneObject obj) {
+        if (bounds.containsKey(obj)) return;
+        startTracking(obj);
+    }
+
+    private Tracked startTracking(SceneObject obj) {
+        Tracked tracked = new Tracked();
+        tracked.setTransform(obj);
+        rasterizer.cellBounds(obj.getBody(), tracked.rect);
+        bounds.put(obj, tracked);
+        return tracked;
+    }
+
+    /**
+     * Re-rasterize the cells under the old and new colliders of a tracked object, e.g. after it was moved or scaled.
+     * Does nothing if the object is not tracked or its transform did not change.
+     *
+     * @return cells that were refreshed (x0, y0, x1, y1 inclusive), null if none. The array is reused.
+     */
+    public int[] update(SceneObject obj) {
+        Tracked tracked = bounds.get(obj);
+        if (tracked == null || !tracked.setTransform(obj)) return null;
+        int[] rect = tracked.rect;
+        rasterizer.cellBounds(obj.getBody(), next);
+
+        boolean wasEmpty = isEmpty(rect), isEmpty = isEmpty(next);
+        if (wasEmpty && isEmpty) return null;
+        // Cover both rectangles in the result, but refresh them separately in case the object moved far
+        setDirty(wasEmpty ? next : rect);
+        if (!wasEmpty) refresh(rect);
+        if (!isEmpty) {
+            System.arraycopy(next, 0, rect, 0, 4);
+            refresh(rect);
+            growDirty(rect);
+        } else {
+            rect[0] = rect[1] = 0;
+            rect[2] = rect[3] = -1;
+        }
+        return dirty;
+    }
+
+    /**
+     * Stop tracking the given object and clear the cells only it blocked
+     *
+     * @return cells that were refreshed (x0, y0, x1, y1 inclusive), null if none. The array is reused.
+     */
+    public int[] remove(SceneObject obj) {
+        Tracked tracked = bounds.remove(obj);
+        if (tracked == null || isEmpty(tracked.rect)) return null;
+        int[] rect = tracked.rect;
+        refresh(rect);
+        return setDirty(rect);
+    }
+
+    /**
+     * Clears the cells of a rectangle, then blocks them again from every tracked object overlapping it
+     */
+    private void refresh(int[] rect) {
+        for (int x = rect[0]; x <= rect[2]; x++) {
+            for (int y = rect[1]; y <= rect[3]; y++) {
+                map.setObstacle(x, y, false);
+            }
+        }
+        for (ObjectMap.Entry<SceneObject, Tracked> entry : bounds) {
+            int[] other = entry.value.rect;
+            if (isEmpty(other) || entry.key.getBody() == null) continue;
+            if (other[0] > rect[2] || other[2] < rect[0] || other[1] > rect[3] || other[3] < rect[1]) continue;
+            rasterizer.rasterize(entry.key.getBody(), rect[0], rect[1], rect[2], rect[3]);
+        }
+    }
+
+    private int[] setDirty(int[] rect) {
+        System.arraycopy(rect, 0, dirty, 0, 4);
+        return dirty;
+    }
+
+    private void growDirty(int[] rect) {
+        dirty[0] = Math.min(dirty[0], rect[0]);
+        dirty[1] = Math.min(dirty[1], rect[1]);
+        dirty[2] = Math.max(dirty[2], rect[2]);
+        dirty[3] = Math.max(dirty[3], rect[3]);
+    }
+
+    private static boolean isEmpty(int[] rect) {
+        return rect[2] < rect[0] || rect[3] < rect[1];
+    }
+}
@@ -0,0 +1,166 @@
+package infinityx.lunarhaze.models;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over the board bucketing agents by position, for finding the agents near a point.
+ * <p>
+ * The grid is rebuilt from scratch once per tick with a counting sort, so agents need no bookkeeping as they move.
+ * Positions and radii are snapshotted by {@link #rebuild(Array)}, queries during the tick read the snapshot.
+ */
+public class NeighborGrid {
+
+    /**
+     * Width and height of a cell in world units
+     */
+    public static final float CELL_SIZE = 2;
+
+    /**
+     * Dimensions of the grid in cells
+     */
+    private final int width, height;
+
+    /**
+     * Agents of cell c are order[cellStart[c], cellStart[c + 1])
+     */
+    private final int[] cellStart;
+    private int[] order;
+
+    /**
+     * Cell of each agent, used while sorting
+     */
+    private int[] cellOf;
+
+    /**
+     * Snapshot of the agents, their positions and bounding radii
+     */
+    private GameObject[] agents;
+    private float[] xs, ys, radii;
+    private int count;
+
+    /**
+     * Largest bounding radius in the snapshot
+     */
+    private float maxRadius;
+
+    /**
+     * @param worldWidth  width of the board in world units
+     * @param worldHeight height of the board in world units
+     */
+    public NeighborGrid(float worldWidth, float worldHeight) {
+        this.width = Math.max(1, MathUtils.ceil(worldWidth / CELL_SIZE));
+        this.height = Math.max(1, MathUtils.ceil(worldHeight / CELL_SIZE));
+        this.cellStart = new int[width * height + 1];
+        allocate(16);
+    }
+
+    private void allocate(int capacity) {
+        order = new int[capacity];
+        cellOf = new int[capacity];
+        agents = new GameObject[capacity];
+        xs = new float[capacity];
+        ys = new float[capacity];
+        radii = new float[capacity];
+    }
+
+    /**
+     * Replaces the agents in the grid, should be called once per tick before any query
+     */
+    public void rebuild(Array<? extends GameObject> objects) {
+        count = objects.size;
+        if (count > order.length) allocate(Math.max(count, 2 * order.length));
+
+        Arrays.fill(cellStart, 0);
+        maxRadius = 0;
+        for (int i = 0; i < count; i++) {
+            GameObject obj = objects.get(i);
+            Vector2 pos = obj.getPosition();
+            agents[i] = obj;
+            xs[i] = pos.x;
+            ys[i] = pos.y;
+            radii[i] = obj.getBoundingRadius();
+            maxRadius = Math.max(maxRadius, radii[i]);
+            cellOf[i] = cellY(pos.y) * width + cellX(pos.x);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < width * height; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        // Place each agent at the next free spot of its cell, then restore the starts
+        for (int i = 0; i < count; i++) {
+            order[cellStart[cellOf[i]]++] = i;
+        }
+        for (int c = width * height; c > 0; c--) {
+            cellStart[c] = cellStart[c - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Finds the agents whose bounding circle overlaps the disk of the given radius around (x, y)
+     *
+     * @param out cleared, then receives the indices of the agents, see {@link #getAgent(int)}
+     */
+    public void query(float x, float y, float radius, IntArray out) {
+        out.clear();
+        float reach = radius + maxRadius;
+        int x0 = cellX(x - reach), x1 = cellX(x + reach);
+        int y0 = cellY(y - reach), y1 = cellY(y + reach);
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                int cell = cy * width + cx;
+                for (int k = cellStart[cell], end = cellStart[cell + 1]; k < end; k++) {
+                    int i = order[k];
+                    float dx = xs[i] - x, dy = ys[i] - y;
+                    float r = radius + radii[i];
+                    if (dx * dx + dy * dy < r * r) out.add(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of agents in the snapshot
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return agent with the given index in the snapshot
+     */
+    public GameObject getAgent(int i) {
+        return agents[i];
+    }
+
+    /**
+     * @return position of an agent at the last rebuild
+     */
+    public float getX(int i) {
+        return xs[i];
+    }
+
+    public float getY(int i) {
+        return ys[i];
+    }
+
+    /**
+     * @return bounding radius of an agent
+     */
+    public float getRadius(int i) {
+        return radii[i];
+    }
+
+    private int cellX(float x) {
+        return MathUtils.clamp((int) Math.floor(x / CELL_SIZE), 0, width - 1);
+    }
+
+    private int cellY(float y) {
+        return MathUtils.clamp((int) Math.floor(y / CELL_SIZE), 0, height - 1);
+    }
+}
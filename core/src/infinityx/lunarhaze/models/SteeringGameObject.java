@@ -50,7 +50,12 @@ public abstract class SteeringGameObject extends AttackingGameObject implements
     /**
      * Cache for output from steeringBehavior
      */
-    private static final SteeringAcceleration<Vector2> steeringOutput = new SteeringAcceleration<>(new Vector2());
+    private final SteeringAcceleration<Vector2> steeringOutput = new SteeringAcceleration<>(new Vector2());
+
+    /**
+     * Behavior {@link #steeringOutput} was last calculated with, null if this object is not planned by {@link #planSteering()}
+     */
+    private SteeringBehavior<Vector2> plannedBehavior;
 
     public SteeringGameObject(boolean independentFacing) {
         super();
@@ -78,6 +83,17 @@ public abstract class SteeringGameObject extends AttackingGameObject implements
         }
     }
 
+    /**
+     * Calculates the output of the current steering behavior ahead of {@link #update(float)}, which then applies it
+     * instead of calculating it again, and keeps applying it on later frames until the object is planned again or its
+     * behavior changes. Only reads the world and writes to this object, so the steering of many objects can be planned
+     * in parallel, see {@link infinityx.lunarhaze.ai.SteeringWorkers}.
+     */
+    public void planSteering() {
+        plannedBehavior = steeringBehavior;
+        if (steeringBehavior != null) steeringBehavior.calculateSteering(steeringOutput);
+    }
+
     /**
      * Align the vectors direction with the nearest cardinal direction (up, down, left, or right),
      * but only if the original direction deviates from the cardinal direction by more than a specified angle.
@@ -118,7 +134,12 @@ public abstract class SteeringGameObject extends AttackingGameObject implements
      * Adapted from https://github.com/libgdx/gdx-ai/blob/master/tests/src/com/badlogic/gdx/ai/tests/steer/box2d/Box2dSteeringEntity.java.
      */
     protected void applySteering(float deltaTime) {
-        steeringBehavior.calculateSteering(steeringOutput);
+        // Reuse the last planned output unless the behavior changed since
+        if (plannedBehavior != steeringBehavior) {
+            steeringBehavior.calculateSteering(steeringOutput);
+            // Planned objects keep this output until planned again
+            if (plannedBehavior != null) plannedBehavior = steeringBehavior;
+        }
 
         boolean anyAccelerations = false;
         // Update position and linear velocity.
@@ -81,6 +81,11 @@ public abstract class Enemy extends SteeringGameObject implements Pool.Poolable
      */
     private ConeSource flashlight;
 
+    /**
+     * Whether {@link #initialize} has run, pooled enemies keep their parsed attributes, body and light between spawns
+     */
+    private boolean initialized;
+
     /**
      * The direction the enemy is facing
      */
@@ -163,14 +168,16 @@ public abstract class Enemy extends SteeringGameObject implements Pool.Poolable
     @Override
     public void reset() {
         hp = maxHp;
-        isAttacking = isAttacked = false;
+        isAttacking = false;
         canMove = true;
-        isImmune = false;
-        lockedOut = false;
+        timers.cancel(attackedTimer);
+        timers.cancel(immunityTimer);
+        timers.cancel(lockoutTimer);
 
         detection = Detection.NONE;
         tint.set(Color.WHITE);
         setScale(1);
+        updateStrafeDistance();
     }
 
     public void setInBattle(boolean inBattle) {
@@ -207,6 +214,14 @@ public abstract class Enemy extends SteeringGameObject implements Pool.Poolable
         if (body == null) activatePhysics(container.getWorld());
         setFlashlight(flashLight);
         setFlashlightOn(true);
+        initialized = true;
+    }
+
+    /**
+     * @return whether this enemy was initialized by an earlier spawn, and only has to be placed again
+     */
+    public boolean isInitialized() {
+        return initialized;
     }
 
     public void updateStrafeDistance() {
@@ -59,6 +59,7 @@ public class SceneObject extends GameObject implements Drawable {
         this.type = type;
         this.flipped = false;
         this.seeThru = false;
+        this.dirty = true;
         this.emitTimer = MathUtils.random(MIN_EMIT_DELAY, MAX_EMIT_DELAY);
     }
 
@@ -69,6 +70,33 @@ public class SceneObject extends GameObject implements Drawable {
         this.dirty = true;
     }
 
+    @Override
+    public void setPosition(float x, float y) {
+        super.setPosition(x, y);
+        setDirty();
+        changed();
+    }
+
+    @Override
+    public void setPosition(Vector2 value) {
+        super.setPosition(value);
+        setDirty();
+        changed();
+    }
+
+    @Override
+    public void setScale(float s) {
+        super.setScale(s);
+        changed();
+    }
+
+    /**
+     * Notify the container the colliders of this object have moved
+     */
+    private void changed() {
+        if (container != null) container.sceneObjectChanged(this);
+    }
+
     @Override
     public Vector2 getPosition() {
         if (!dirty)
@@ -164,11 +192,18 @@ public class SceneObject extends GameObject implements Drawable {
         if (this.flipped == flipped) return;
         this.flipped = flipped;
 
-        // Flip the collider offset
+        // Mirror the colliders
+        if (getArchetype() != null) {
+            applyArchetype(getArchetype().with(scale, flipped));
+            changed();
+            return;
+        }
         ShapeCache bodyInfo = getShapeInformation("body");
         if (bodyInfo == null) return; // Prolly a better way to do this
-        if (bodyInfo.shape.getType() == Shape.Type.Polygon && !bodyInfo.offset.isZero())
+        if (bodyInfo.shape.getType() == Shape.Type.Polygon && !bodyInfo.offset.isZero()) {
             resizeBox("body", bodyInfo.width, bodyInfo.height, bodyInfo.offset.scl(-1, 1));
+            changed();
+        }
     }
 
     public boolean isFlipped() {
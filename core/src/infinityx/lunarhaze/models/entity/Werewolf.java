@@ -1,7 +1,6 @@
 package infinityx.lunarhaze.models.entity;
 
 import box2dLight.PointLight;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.ai.utils.Location;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.Texture;
@@ -9,7 +8,6 @@ import com.badlogic.gdx.graphics.g2d.ParticleEffect;
 import com.badlogic.gdx.graphics.g2d.ParticleEffectPool;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import infinityx.assets.AssetDirectory;
 import infinityx.lunarhaze.combat.AttackHitbox;
@@ -71,14 +69,14 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
     public Direction direction;
 
     /**
-     * Whether the werewolf is locked out from heavy attacks
+     * How long (in seconds) the werewolf is locked out from heavy attacks after one
      */
-    public boolean heavyLockedOut;
+    private static final float HEAVY_LOCKOUT = 0.4f;
 
     /**
-     * For use with {@link #heavyLockedOut}
+     * Timer of the lock out from heavy attacks
      */
-    public float heavyLockoutTime;
+    private int heavyLockoutTimer;
 
     public boolean isWindingUp;
 
@@ -87,7 +85,7 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
     /**
      * Whether the player is in tall grass
      */
-    public Array<SceneObject> inTallGrass;
+    private boolean concealed;
 
     public boolean isHeavyAttacking;
 
@@ -182,14 +180,12 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
         super();
         stealth = 0.0f;
         moonlightCollected = 0;
-        heavyLockedOut = false;
         isWindingUp = false;
-        heavyLockoutTime = 0.4f; // this can be changed later
         direction = Direction.RIGHT;
         werewolfInfo = new WerewolfInfo();
         isHeavyAttacking = false;
         isDashing = false;
-        inTallGrass = new Array<>();
+        concealed = false;
         isWerewolf = false;
     }
 
@@ -213,8 +209,8 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
      * Begin heavy lock out for this werewolf. Should be called when attacked.
      */
     public void setHeavyLockedOut() {
-        heavyLockedOut = true;
-        heavyLockoutTime = 0.4f;
+        timers.cancel(heavyLockoutTimer);
+        heavyLockoutTimer = timers.schedule(HEAVY_LOCKOUT, null);
     }
 
     public void setWindingUp(boolean b) {
@@ -222,7 +218,7 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
     }
 
     public boolean isHeavyLockedOut() {
-        return heavyLockedOut;
+        return timers.isPending(heavyLockoutTimer);
     }
 
     public float getTargetStealth() {
@@ -238,7 +234,18 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
      * @return The radius of the werewolf's noise in world length
      */
     public float getNoiseRadius() {
-        return Interpolation.linear.apply(0.72f, 3.7f, inTallGrass.size != 0 ? 0 : stealth);
+        return Interpolation.linear.apply(0.72f, 3.7f, concealed ? 0 : stealth);
+    }
+
+    /**
+     * @return whether the werewolf is concealed by tall grass
+     */
+    public boolean isConcealed() {
+        return concealed;
+    }
+
+    public void setConcealed(boolean concealed) {
+        this.concealed = concealed;
     }
 
     /**
@@ -299,10 +306,7 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
         // Create particles
         // Particle effect
         if (json.get("particle_dash") != null) {
-            JsonValue particle = json.get("particle_dash");
-            ParticleEffect dummyParticleEffect = new ParticleEffect();
-            dummyParticleEffect.load(Gdx.files.internal(particle.getString("effect")), Gdx.files.internal(particle.getString("imagesDir")));
-            dashEffectPool = new ParticleEffectPool(dummyParticleEffect, 4, 8);
+            dashEffectPool = getParticlePool(json.get("particle_dash"));
         }
     }
 
@@ -327,13 +331,7 @@ public class Werewolf extends AttackingGameObject implements Location<Vector2> {
      */
     public void update(float delta) {
         super.update(delta);
-        canMove = canMove && !heavyLockedOut && !isCollecting && !isDashing;
-
-        if (heavyLockedOut) {
-            heavyLockoutTime -= delta;
-            if (heavyLockoutTime <= 0)
-                heavyLockedOut = false;
-        }
+        canMove = canMove && !isHeavyLockedOut() && !isCollecting && !isDashing;
 
         if (isDashing && dashParticle != null) {
             dashParticle.update(delta);
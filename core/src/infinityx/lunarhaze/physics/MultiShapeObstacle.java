@@ -18,7 +18,7 @@ public class MultiShapeObstacle extends SimpleObstacle {
     /**
      * Type of the shape for internal usage
      */
-    private enum ShapeType {
+    enum ShapeType {
         CIRCLE,
         BOX,
         ELLIPSE
@@ -58,6 +58,11 @@ public class MultiShapeObstacle extends SimpleObstacle {
      */
     private ObjectMap<String, ShapeCache> geometries;
 
+    /**
+     * Archetype the shapes were created from, null if shapes were added individually
+     */
+    private ShapeArchetype archetype;
+
 
     /**
      * Creates a new simple physics object with no initial shapes
@@ -79,8 +84,27 @@ public class MultiShapeObstacle extends SimpleObstacle {
         return geometries.get(name);
     }
 
+    /**
+     * @return every shape on this object keyed by name, must not be modified
+     */
+    public ObjectMap<String, ShapeCache> getShapes() {
+        return geometries;
+    }
+
+    /**
+     * @return archetype the shapes of this object were created from, may be null
+     */
+    public ShapeArchetype getArchetype() {
+        return archetype;
+    }
+
     @Override
     public void setScale(float s) {
+        if (archetype != null) {
+            applyArchetype(archetype.with(s, archetype.isFlipped()));
+            super.setScale(s);
+            return;
+        }
         for (ObjectMap.Entry<String, ShapeCache> entry : geometries) {
             ShapeCache cache = entry.value;
             switch (cache.shapeType) {
@@ -102,10 +126,38 @@ public class MultiShapeObstacle extends SimpleObstacle {
     }
 
 
+    /**
+     * Replace the shapes of this object with those of the given archetype.
+     * No geometry is computed, fixtures are created directly from the precomputed shapes.
+     * Does nothing if the object already has the shapes of the archetype.
+     */
+    protected void applyArchetype(ShapeArchetype archetype) {
+        if (archetype == this.archetype) return;
+        releaseFixtures();
+        for (ShapeArchetype.Entry entry : archetype.getEntries()) {
+            ShapeCache cache = geometries.get(entry.name);
+            if (cache == null) {
+                cache = new ShapeCache();
+                cache.offset = new Vector2();
+            }
+            cache.fixture = null;
+            cache.shape = entry.shape;
+            cache.shapeType = entry.shapeType;
+            cache.width = entry.width;
+            cache.height = entry.height;
+            cache.offset.set(entry.offsetX, entry.offsetY);
+            cache.angle = entry.angle;
+
+            createFixture(entry.name, cache);
+        }
+        this.archetype = archetype;
+    }
+
     /**
      * Add an oriented box shape to this object
      */
     protected void addBox(String name, float width, float height, Vector2 offset, float angle) {
+        archetype = null;
         PolygonShape shape = new PolygonShape();
         shape.setAsBox(width / 2, height / 2, offset, angle);
 
@@ -183,6 +235,7 @@ public class MultiShapeObstacle extends SimpleObstacle {
      * Add a circle shape to this object
      */
     protected void addCircle(String name, float radius, Vector2 offset) {
+        archetype = null;
         CircleShape shape = new CircleShape();
         shape.setRadius(radius);
         shape.setPosition(offset);
@@ -250,6 +303,7 @@ public class MultiShapeObstacle extends SimpleObstacle {
      * @param offset Offset of the ellipse's center from the object's center
      */
     protected void addEllipse(String name, float width, float height, Vector2 offset) {
+        archetype = null;
         int numSegments = 8; // Increase this for a smoother ellipse
         Vector2[] vertices = new Vector2[numSegments];
 
@@ -282,6 +336,7 @@ public class MultiShapeObstacle extends SimpleObstacle {
         }
         releaseFixture(name);
         geometries.remove(name);
+        archetype = null;
     }
 
 
@@ -0,0 +1,244 @@
+package infinityx.lunarhaze.physics;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+import infinityx.lunarhaze.models.entity.SceneObject;
+
+/**
+ * Central service for AI raycasts against the static geometry of a level.
+ * <p>
+ * Requests submitted during the AI phase are executed together in {@link #flush()}, which should be called
+ * once per frame right after the physics step. Identical or near-identical segments (same endpoints after
+ * quantizing to {@link #RESOLUTION} of a world unit) are only cast once per frame; every answer is kept
+ * in a frame-scoped cache which also serves immediate queries through {@link #isBlocked}.
+ * If a {@link VisibilityTable} is set, segments between cells that certainly cannot see each other are answered
+ * without a cast.
+ */
+public class RaycastService {
+
+    /**
+     * Endpoints are quantized to 1 / RESOLUTION world units when deduplicating
+     */
+    private static final int RESOLUTION = 16;
+
+    /**
+     * A deferred raycast, owned and reused by the requester
+     */
+    public static class Request {
+        public float x1, y1, x2, y2;
+        /**
+         * Primitives with any of these {@link StaticBVH} flags are ignored
+         */
+        public int skip;
+
+        /**
+         * Whether the segment was blocked, valid once {@link #ready}
+         */
+        public boolean blocked;
+
+        /**
+         * Object blocking the segment, null if none
+         */
+        public SceneObject hitObject;
+
+        /**
+         * Set once the request has been executed, the requester should clear this after consuming the result
+         */
+        public boolean ready;
+
+        private boolean pending;
+
+        /**
+         * Sets the segment and flags of this request
+         *
+         * @return this request for chaining
+         */
+        public Request set(float x1, float y1, float x2, float y2, int skip) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.skip = skip;
+            return this;
+        }
+    }
+
+    /**
+     * Cached answer for a quantized segment. Cache keys only hash the segment, so the entry keeps the segment and
+     * flags it answers for, and is only used for exactly those.
+     */
+    private static class Entry {
+        int qx1, qy1, qx2, qy2;
+        int skip;
+        boolean blocked;
+        SceneObject hitObject;
+
+        boolean matches(int qx1, int qy1, int qx2, int qy2, int skip) {
+            return this.qx1 == qx1 && this.qy1 == qy1 && this.qx2 == qx2 && this.qy2 == qy2 && this.skip == skip;
+        }
+    }
+
+    private final StaticBVH geometry;
+    private final StaticBVH.Query query;
+
+    /**
+     * Rejects occluded segments before casting, null if there is none
+     */
+    private VisibilityTable visibility;
+
+    /**
+     * Requests collected since the last flush
+     */
+    private final Array<Request> pending;
+
+    /**
+     * Frame-scoped cache of answers keyed by a hash of the quantized segment and flags
+     */
+    private final LongMap<Entry> cache;
+
+    /**
+     * Entries of the cache, reused every frame
+     */
+    private final Array<Entry> entries;
+    private int entriesUsed;
+
+    /**
+     * Object blocking the last segment passed to {@link #isBlocked}, null if none
+     */
+    private SceneObject hitObject;
+
+    /// Counters for the frame in progress
+    private int requests;
+    private int casts;
+
+    /// Counters of the last complete frame
+    private int lastRequests;
+    private int lastCasts;
+
+    /**
+     * @param geometry static geometry to cast against
+     */
+    public RaycastService(StaticBVH geometry) {
+        this.geometry = geometry;
+        this.query = new StaticBVH.Query();
+        this.pending = new Array<>(false, 32);
+        this.cache = new LongMap<>(128);
+        this.entries = new Array<>(false, 128);
+    }
+
+    /**
+     * Queue a request to be executed in the next {@link #flush()}. Submitting a request that is already pending does nothing.
+     */
+    public void submit(Request request) {
+        request.ready = false;
+        if (request.pending) return;
+        request.pending = true;
+        pending.add(request);
+    }
+
+    /**
+     * Starts a new frame and executes every pending request. Should be called right after the physics step.
+     */
+    public void flush() {
+        lastRequests = requests;
+        lastCasts = casts;
+        requests = 0;
+        casts = 0;
+        cache.clear();
+        entriesUsed = 0;
+
+        for (int i = 0; i < pending.size; i++) {
+            Request request = pending.get(i);
+            request.blocked = isBlocked(request.x1, request.y1, request.x2, request.y2, request.skip);
+            request.hitObject = hitObject;
+            request.pending = false;
+            request.ready = true;
+        }
+        pending.clear();
+    }
+
+    /**
+     * Whether static geometry lies on the segment from (x1, y1) to (x2, y2). Answered from the frame cache if
+     * a near-identical segment was already cast this frame, otherwise cast immediately.
+     *
+     * @param skip primitives with any of these {@link StaticBVH} flags are ignored
+     */
+    public boolean isBlocked(float x1, float y1, float x2, float y2, int skip) {
+        requests++;
+        int qx1 = quantize(x1), qy1 = quantize(y1), qx2 = quantize(x2), qy2 = quantize(y2);
+        long key = key(qx1, qy1, qx2, qy2, skip);
+        Entry entry = cache.get(key);
+        if (entry != null && entry.matches(qx1, qy1, qx2, qy2, skip)) {
+            hitObject = entry.hitObject;
+            return entry.blocked;
+        }
+
+        boolean blocked;
+        // The table ignores see-through objects, so it holds for segments ignoring at most those
+        if (visibility != null && (skip & ~StaticBVH.SEE_THRU) == 0 && visibility.isOccluded(x1, y1, x2, y2)) {
+            blocked = true;
+            hitObject = null;
+        } else {
+            casts++;
+            blocked = geometry.isBlocked(x1, y1, x2, y2, skip, query);
+            hitObject = query.hitObject;
+        }
+        // On a hash collision the segment already cached keeps its entry
+        if (entry == null) {
+            entry = obtainEntry();
+            entry.qx1 = qx1;
+            entry.qy1 = qy1;
+            entry.qx2 = qx2;
+            entry.qy2 = qy2;
+            entry.skip = skip;
+            entry.blocked = blocked;
+            entry.hitObject = hitObject;
+            cache.put(key, entry);
+        }
+        return blocked;
+    }
+
+    /**
+     * Sets the table used to reject occluded segments, null to always cast
+     */
+    public void setVisibility(VisibilityTable visibility) {
+        this.visibility = visibility;
+    }
+
+    /**
+     * @return object blocking the segment of the last {@link #isBlocked} call, null if none or if the segment
+     * was rejected by the visibility table
+     */
+    public SceneObject getHitObject() {
+        return hitObject;
+    }
+
+    /**
+     * @return number of rays requested during the last complete frame
+     */
+    public int getRequestsPerFrame() {
+        return lastRequests;
+    }
+
+    /**
+     * @return number of rays actually cast during the last complete frame, the rest were served from the cache
+     */
+    public int getRaysPerFrame() {
+        return lastCasts;
+    }
+
+    private Entry obtainEntry() {
+        if (entriesUsed == entries.size) entries.add(new Entry());
+        return entries.get(entriesUsed++);
+    }
+
+    private static long key(int qx1, int qy1, int qx2, int qy2, int skip) {
+        long key = ((long) qx1 << 32) ^ (qy1 & 0xffffffffL);
+        key = key * 0x9E3779B97F4A7C15L + (((long) qx2 << 32) ^ (qy2 & 0xffffffffL));
+        return key * 0x9E3779B97F4A7C15L + skip;
+    }
+
+    private static int quantize(float value) {
+        return (int) Math.floor(value * RESOLUTION);
+    }
+}
@@ -0,0 +1,250 @@
+package infinityx.lunarhaze.physics;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Immutable set of colliders for an object type at a given scale and flip.
+ * <p>
+ * Every archetype owns precomputed Box2D shapes, so a {@link MultiShapeObstacle} can create its fixtures
+ * without parsing json or recomputing vertices. Box2D clones shapes when creating fixtures, hence the shapes
+ * are safely shared between all instances of the same archetype.
+ * <p>
+ * Archetypes are cached until the level is unloaded, see {@link #clearCache()}, keyed by the collider json of
+ * the object type, the scale and whether the colliders are mirrored horizontally. Scales are rounded to the
+ * resolution of the cache, so scaling an object in small steps reuses the archetypes of nearby scales.
+ */
+public final class ShapeArchetype {
+
+    /**
+     * Scales are rounded to multiples of 1 / SCALE_RESOLUTION, both for keying the cache and building the shapes.
+     * Scales below that are raised to it, so no shape collapses to a point.
+     */
+    private static final int SCALE_RESOLUTION = 100;
+
+    /**
+     * Number of vertices approximating an ellipse
+     */
+    private static final int ELLIPSE_SEGMENTS = 8;
+
+    /**
+     * Unit circle sampled at the ellipse vertices, shared by all ellipses
+     */
+    private static final float[] ELLIPSE_COS = new float[ELLIPSE_SEGMENTS];
+    private static final float[] ELLIPSE_SIN = new float[ELLIPSE_SEGMENTS];
+
+    static {
+        for (int i = 0; i < ELLIPSE_SEGMENTS; i++) {
+            float angle = i / (float) ELLIPSE_SEGMENTS * 2 * MathUtils.PI;
+            ELLIPSE_COS[i] = MathUtils.cos(angle);
+            ELLIPSE_SIN[i] = MathUtils.sin(angle);
+        }
+    }
+
+    /**
+     * Maps collider json of an object type to its archetypes, keyed by quantized scale and flip
+     */
+    private static final ObjectMap<JsonValue, IntMap<ShapeArchetype>> cache = new ObjectMap<>();
+
+    /**
+     * Immutable information regarding a single named shape
+     */
+    public static final class Entry {
+        public final String name;
+        final MultiShapeObstacle.ShapeType shapeType;
+        /**
+         * Width of box or ellipse, diameter if circle
+         */
+        public final float width;
+        public final float height;
+        public final float offsetX;
+        public final float offsetY;
+        public final float angle;
+        /**
+         * Precomputed shape, must not be modified
+         */
+        public final Shape shape;
+
+        private Entry(String name, MultiShapeObstacle.ShapeType shapeType, float width, float height,
+                      float offsetX, float offsetY, float angle) {
+            this.name = name;
+            this.shapeType = shapeType;
+            this.width = width;
+            this.height = height;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.angle = angle;
+            this.shape = createShape();
+        }
+
+        /**
+         * @return this entry scaled and possibly mirrored across the y-axis
+         */
+        private Entry transform(float scale, boolean flipped) {
+            float sign = flipped ? -1 : 1;
+            return new Entry(
+                    name, shapeType, width * scale, height * scale,
+                    sign * offsetX * scale, offsetY * scale, sign * angle
+            );
+        }
+
+        private Shape createShape() {
+            switch (shapeType) {
+                case BOX: {
+                    PolygonShape box = new PolygonShape();
+                    box.setAsBox(width / 2, height / 2, new Vector2(offsetX, offsetY), angle);
+                    return box;
+                }
+                case CIRCLE: {
+                    CircleShape circle = new CircleShape();
+                    circle.setRadius(width / 2);
+                    circle.setPosition(new Vector2(offsetX, offsetY));
+                    return circle;
+                }
+                case ELLIPSE:
+                default: {
+                    float[] vertices = new float[ELLIPSE_SEGMENTS * 2];
+                    for (int i = 0; i < ELLIPSE_SEGMENTS; i++) {
+                        vertices[2 * i] = width / 2 * ELLIPSE_COS[i] + offsetX;
+                        vertices[2 * i + 1] = height / 2 * ELLIPSE_SIN[i] + offsetY;
+                    }
+                    PolygonShape ellipse = new PolygonShape();
+                    ellipse.set(vertices);
+                    return ellipse;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collider json this archetype was built from
+     */
+    private final JsonValue colliders;
+
+    private final float scale;
+
+    private final boolean flipped;
+
+    private final Entry[] entries;
+
+    private ShapeArchetype(JsonValue colliders, float scale, boolean flipped, Entry[] entries) {
+        this.colliders = colliders;
+        this.scale = scale;
+        this.flipped = flipped;
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the (cached) archetype of the given colliders. The json is only parsed the first time an object type is seen.
+     *
+     * @param colliders "colliders" json of an object type
+     * @param scale     scale of every collider
+     * @param flipped   whether the colliders are mirrored horizontally
+     */
+    public static ShapeArchetype obtain(JsonValue colliders, float scale, boolean flipped) {
+        IntMap<ShapeArchetype> archetypes = cache.get(colliders);
+        if (archetypes == null) {
+            archetypes = new IntMap<>();
+            archetypes.put(key(1, false), parse(colliders));
+            cache.put(colliders, archetypes);
+        }
+
+        int key = key(scale, flipped);
+        ShapeArchetype archetype = archetypes.get(key);
+        if (archetype == null) {
+            // Every scale sharing the key gets the same shapes
+            scale = (key >> 1) / (float) SCALE_RESOLUTION;
+            Entry[] base = archetypes.get(key(1, false)).entries;
+            Entry[] entries = new Entry[base.length];
+            for (int i = 0; i < base.length; i++) {
+                entries[i] = base[i].transform(scale, flipped);
+            }
+            archetype = new ShapeArchetype(colliders, scale, flipped, entries);
+            archetypes.put(key, archetype);
+        }
+        return archetype;
+    }
+
+    /**
+     * Disposes the shapes of every cached archetype and empties the cache, e.g. when the level is unloaded.
+     * Archetypes obtained before must no longer be used.
+     */
+    public static void clearCache() {
+        for (IntMap<ShapeArchetype> archetypes : cache.values()) {
+            for (ShapeArchetype archetype : archetypes.values()) {
+                for (Entry entry : archetype.entries) {
+                    entry.shape.dispose();
+                }
+            }
+        }
+        cache.clear();
+    }
+
+    /**
+     * @return the archetype of the same object type with the given scale and flip
+     */
+    public ShapeArchetype with(float scale, boolean flipped) {
+        return obtain(colliders, scale, flipped);
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public boolean isFlipped() {
+        return flipped;
+    }
+
+    /**
+     * @return the shapes of this archetype, must not be modified
+     */
+    public Entry[] getEntries() {
+        return entries;
+    }
+
+    private static int key(float scale, boolean flipped) {
+        return (Math.max(1, Math.round(scale * SCALE_RESOLUTION)) << 1) | (flipped ? 1 : 0);
+    }
+
+    /**
+     * Parse the unscaled, unflipped archetype from collider json
+     */
+    private static ShapeArchetype parse(JsonValue colliders) {
+        Entry[] entries = new Entry[colliders.size];
+        int i = 0;
+        for (JsonValue coll : colliders) {
+            float offsetX = 0, offsetY = 0;
+            if (coll.has("offset")) {
+                offsetX = coll.get("offset").getFloat(0);
+                offsetY = coll.get("offset").getFloat(1);
+            }
+
+            String type = coll.getString("type");
+            if (type.equals("box")) {
+                entries[i++] = new Entry(
+                        coll.name(), MultiShapeObstacle.ShapeType.BOX,
+                        coll.getFloat("width"), coll.getFloat("height"),
+                        offsetX, offsetY, coll.has("angle") ? coll.getFloat("angle") : 0
+                );
+            } else if (type.equals("circle")) {
+                float diameter = coll.getFloat("radius") * 2;
+                entries[i++] = new Entry(
+                        coll.name(), MultiShapeObstacle.ShapeType.CIRCLE,
+                        diameter, diameter, offsetX, offsetY, 0
+                );
+            } else {
+                entries[i++] = new Entry(
+                        coll.name(), MultiShapeObstacle.ShapeType.ELLIPSE,
+                        coll.getFloat("width"), coll.getFloat("height"), offsetX, offsetY, 0
+                );
+            }
+        }
+        return new ShapeArchetype(colliders, 1, false, entries);
+    }
+}
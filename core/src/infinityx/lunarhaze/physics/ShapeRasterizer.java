@@ -0,0 +1,332 @@
+package infinityx.lunarhaze.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import infinityx.util.astar.AStarMap;
+
+/**
+ * Scan-converts convex shapes into the obstacles of an {@link AStarMap}, or of any other uniform grid
+ * by overriding {@link #block(int, int)}.
+ * <p>
+ * A cell is blocked if it, grown by a margin on every side, overlaps a shape. Shapes are processed row by row:
+ * the x-extent of a convex shape within the (grown) band of a row directly gives the run of cells it blocks.
+ * Rasterization can be clipped to a rectangle of cells, so a region of the map can be rebuilt on its own.
+ * <p>
+ * Subclasses can instead mark only the cells that, grown by the margin, lie entirely inside a shape. Shapes are
+ * convex, so such a cell is one whose top and bottom edges both lie within the x-extent of the shape along them.
+ */
+public class ShapeRasterizer {
+
+    /**
+     * Box2D polygons have at most 8 vertices
+     */
+    private static final int MAX_VERTICES = 8;
+
+    /**
+     * Map whose nodes are marked, null for other grids
+     */
+    private AStarMap map;
+
+    /**
+     * Grid dimensions in cells, and the world size of each cell
+     */
+    private final int width, height;
+    private final float cellWidth, cellHeight;
+
+    /**
+     * Amount each cell is grown by on every side, in world units
+     */
+    private final float margin;
+
+    /**
+     * Whether cells are marked when they lie inside a shape rather than overlap it
+     */
+    private final boolean inner;
+
+    /**
+     * Scratch world vertices of the polygon being rasterized, the x-extent of a shape within a band
+     * and the rows a shape spans
+     */
+    private final float[] verts = new float[2 * MAX_VERTICES];
+    private final float[] span = new float[2];
+    private final float[] innerSpan = new float[2];
+    private final int[] rowRange = new int[2];
+    private final Vector2 local = new Vector2();
+
+    /**
+     * @param map    map whose nodes are marked
+     * @param margin amount each cell is grown by on every side, in world units
+     */
+    public ShapeRasterizer(AStarMap map, float margin) {
+        this(map.getWidth(), map.getHeight(), map.getGridSize().x, map.getGridSize().y, margin);
+        this.map = map;
+    }
+
+    /**
+     * Creates a rasterizer over another grid, whose cells are marked by {@link #block(int, int)}.
+     * Cell (x, y) spans [x * cellWidth, (x + 1) * cellWidth] by [y * cellHeight, (y + 1) * cellHeight] in world space.
+     *
+     * @param width  grid width in cells
+     * @param height grid height in cells
+     * @param margin amount each cell is grown by on every side, in world units
+     */
+    protected ShapeRasterizer(int width, int height, float cellWidth, float cellHeight, float margin) {
+        this(width, height, cellWidth, cellHeight, margin, false);
+    }
+
+    /**
+     * Creates a rasterizer over another grid, see {@link #ShapeRasterizer(int, int, float, float, float)}
+     *
+     * @param inner whether to only mark the cells that, grown by the margin, lie entirely inside a shape
+     */
+    protected ShapeRasterizer(int width, int height, float cellWidth, float cellHeight, float margin, boolean inner) {
+        this.width = width;
+        this.height = height;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.margin = margin;
+        this.inner = inner;
+    }
+
+    /**
+     * Marks cell (x, y) as blocked
+     */
+    protected void block(int x, int y) {
+        map.setObstacle(x, y, true);
+    }
+
+    /**
+     * @return grid width in cells
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return grid height in cells
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Computes the rectangle of cells the non-sensor fixtures of a body can block
+     *
+     * @param rect receives the cell rectangle (x0, y0, x1, y1 inclusive), empty (x1 < x0) if nothing can be blocked
+     */
+    public void cellBounds(Body body, int[] rect) {
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        if (body != null) {
+            for (Fixture fixture : body.getFixtureList()) {
+                if (fixture.isSensor()) continue;
+                Shape shape = fixture.getShape();
+                if (shape.getType() == Shape.Type.Circle) {
+                    CircleShape circle = (CircleShape) shape;
+                    Vector2 center = body.getWorldPoint(circle.getPosition());
+                    float r = circle.getRadius();
+                    minX = Math.min(minX, center.x - r);
+                    minY = Math.min(minY, center.y - r);
+                    maxX = Math.max(maxX, center.x + r);
+                    maxY = Math.max(maxY, center.y + r);
+                } else if (shape.getType() == Shape.Type.Polygon) {
+                    PolygonShape polygon = (PolygonShape) shape;
+                    for (int i = 0; i < polygon.getVertexCount(); i++) {
+                        polygon.getVertex(i, local);
+                        Vector2 world = body.getWorldPoint(local);
+                        minX = Math.min(minX, world.x);
+                        minY = Math.min(minY, world.y);
+                        maxX = Math.max(maxX, world.x);
+                        maxY = Math.max(maxY, world.y);
+                    }
+                }
+            }
+        }
+
+        if (minX > maxX) {
+            rect[0] = rect[1] = 0;
+            rect[2] = rect[3] = -1;
+            return;
+        }
+        rect[0] = Math.max(0, (int) Math.ceil((minX - margin) / cellWidth) - 1);
+        rect[1] = Math.max(0, (int) Math.ceil((minY - margin) / cellHeight) - 1);
+        rect[2] = Math.min(width - 1, (int) Math.floor((maxX + margin) / cellWidth));
+        rect[3] = Math.min(height - 1, (int) Math.floor((maxY + margin) / cellHeight));
+    }
+
+    /**
+     * Marks the cells within the given rectangle blocked by the non-sensor fixtures of a body as obstacles.
+     * Cells are only ever marked, never cleared.
+     */
+    public void rasterize(Body body, int x0, int y0, int x1, int y1) {
+        Vector2 position = body.getPosition();
+        float angle = body.getAngle();
+        for (Fixture fixture : body.getFixtureList()) {
+            if (fixture.isSensor()) continue;
+            rasterize(fixture.getShape(), position.x, position.y, angle, x0, y0, x1, y1);
+        }
+    }
+
+    /**
+     * Marks the cells within the given rectangle blocked by a circle or convex polygon as obstacles,
+     * e.g. a shape not attached to any body
+     *
+     * @param shape shape in the local space of its body
+     * @param x     world x of the body
+     * @param y     world y of the body
+     * @param angle rotation of the body in radians
+     */
+    public void rasterize(Shape shape, float x, float y, float angle, int x0, int y0, int x1, int y1) {
+        float cos = (float) Math.cos(angle), sin = (float) Math.sin(angle);
+        if (shape.getType() == Shape.Type.Circle) {
+            CircleShape circle = (CircleShape) shape;
+            Vector2 center = circle.getPosition();
+            rasterizeCircle(x + cos * center.x - sin * center.y, y + sin * center.x + cos * center.y,
+                    circle.getRadius(), x0, y0, x1, y1);
+        } else if (shape.getType() == Shape.Type.Polygon) {
+            PolygonShape polygon = (PolygonShape) shape;
+            int count = Math.min(MAX_VERTICES, polygon.getVertexCount());
+            for (int i = 0; i < count; i++) {
+                polygon.getVertex(i, local);
+                verts[2 * i] = x + cos * local.x - sin * local.y;
+                verts[2 * i + 1] = y + sin * local.x + cos * local.y;
+            }
+            rasterizePolygon(verts, 0, count, x0, y0, x1, y1);
+        }
+    }
+
+    /**
+     * Marks the cells within the given rectangle blocked by a circle as obstacles
+     */
+    public void rasterizeCircle(float cx, float cy, float r, int x0, int y0, int x1, int y1) {
+        int[] rows = rows(cy - r, cy + r, y0, y1);
+        for (int y = rows[0]; y <= rows[1]; y++) {
+            if (inner) {
+                if (circleSpan(cx, cy, r, bandLow(y), bandLow(y), span)
+                        && circleSpan(cx, cy, r, bandHigh(y), bandHigh(y), innerSpan)) fillInner(y, x0, x1);
+            } else if (circleSpan(cx, cy, r, bandLow(y), bandHigh(y), span)) {
+                fill(y, x0, x1);
+            }
+        }
+    }
+
+    /**
+     * Marks the cells within the given rectangle blocked by a convex polygon as obstacles
+     *
+     * @param verts world vertices, interleaved x and y
+     * @param start index of the first vertex
+     * @param count number of vertices
+     */
+    public void rasterizePolygon(float[] verts, int start, int count, int x0, int y0, int x1, int y1) {
+        float minY = Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        for (int i = start; i < start + count; i++) {
+            minY = Math.min(minY, verts[2 * i + 1]);
+            maxY = Math.max(maxY, verts[2 * i + 1]);
+        }
+        int[] rows = rows(minY, maxY, y0, y1);
+        for (int y = rows[0]; y <= rows[1]; y++) {
+            if (inner) {
+                if (polygonSpan(verts, start, count, bandLow(y), bandLow(y), span)
+                        && polygonSpan(verts, start, count, bandHigh(y), bandHigh(y), innerSpan)) fillInner(y, x0, x1);
+            } else if (polygonSpan(verts, start, count, bandLow(y), bandHigh(y), span)) {
+                fill(y, x0, x1);
+            }
+        }
+    }
+
+    /**
+     * @return first and last row, clipped to [y0, y1], whose grown band touches the y-extent [minY, maxY]
+     */
+    private int[] rows(float minY, float maxY, int y0, int y1) {
+        rowRange[0] = Math.max(y0, (int) Math.ceil((minY - margin) / cellHeight) - 1);
+        rowRange[1] = Math.min(y1, (int) Math.floor((maxY + margin) / cellHeight));
+        return rowRange;
+    }
+
+    private float bandLow(int y) {
+        return y * cellHeight - margin;
+    }
+
+    private float bandHigh(int y) {
+        return (y + 1) * cellHeight + margin;
+    }
+
+    /**
+     * Marks the cells of row y, clipped to [x0, x1], whose grown cell overlaps {@link #span}
+     */
+    private void fill(int y, int x0, int x1) {
+        int first = Math.max(x0, (int) Math.ceil((span[0] - margin) / cellWidth) - 1);
+        int last = Math.min(x1, (int) Math.floor((span[1] + margin) / cellWidth));
+        for (int x = first; x <= last; x++) {
+            block(x, y);
+        }
+    }
+
+    /**
+     * Marks the cells of row y, clipped to [x0, x1], whose grown cell lies within both {@link #span} along its bottom
+     * edge and {@link #innerSpan} along its top edge
+     */
+    private void fillInner(int y, int x0, int x1) {
+        float lo = Math.max(span[0], innerSpan[0]), hi = Math.min(span[1], innerSpan[1]);
+        int first = Math.max(x0, (int) Math.ceil((lo + margin) / cellWidth));
+        int last = Math.min(x1, (int) Math.floor((hi - margin) / cellWidth) - 1);
+        for (int x = first; x <= last; x++) {
+            block(x, y);
+        }
+    }
+
+    /**
+     * x-extent of a circle within the horizontal band [lo, hi]
+     *
+     * @param span receives the min and max x
+     * @return false if the circle does not reach the band
+     */
+    public static boolean circleSpan(float cx, float cy, float r, float lo, float hi, float[] span) {
+        // Distance from the center to the closest point of the band
+        float dy = Math.max(lo, Math.min(hi, cy)) - cy;
+        if (Math.abs(dy) > r) return false;
+        float half = (float) Math.sqrt(r * r - dy * dy);
+        span[0] = cx - half;
+        span[1] = cx + half;
+        return true;
+    }
+
+    /**
+     * x-extent of a convex polygon within the horizontal band [lo, hi], found from the vertices inside
+     * the band and the crossings of the edges with its borders
+     *
+     * @param verts world vertices, interleaved x and y
+     * @param start index of the first vertex
+     * @param count number of vertices
+     * @param span  receives the min and max x
+     * @return false if the polygon does not reach the band
+     */
+    public static boolean polygonSpan(float[] verts, int start, int count, float lo, float hi, float[] span) {
+        float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int a = start + i, b = start + (i + 1) % count;
+            float ax = verts[2 * a], ay = verts[2 * a + 1];
+            float bx = verts[2 * b], by = verts[2 * b + 1];
+            if (ay >= lo && ay <= hi) {
+                minX = Math.min(minX, ax);
+                maxX = Math.max(maxX, ax);
+            }
+            for (int border = 0; border < 2; border++) {
+                float line = border == 0 ? lo : hi;
+                if ((ay < line && by > line) || (ay > line && by < line)) {
+                    float x = ax + (bx - ax) * (line - ay) / (by - ay);
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                }
+            }
+        }
+        if (minX > maxX) return false;
+        span[0] = minX;
+        span[1] = maxX;
+        return true;
+    }
+}
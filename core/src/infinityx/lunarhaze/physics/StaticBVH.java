@@ -0,0 +1,546 @@
+package infinityx.lunarhaze.physics;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Body;
+import com.badlogic.gdx.physics.box2d.CircleShape;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.PolygonShape;
+import com.badlogic.gdx.physics.box2d.Shape;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import infinityx.lunarhaze.models.entity.SceneObject;
+import infinityx.util.astar.AStarMap;
+
+/**
+ * Bounding volume hierarchy over the static geometry (scene object fixtures) of a level.
+ * Sensors are left out since they block nothing; tall grass cover is tracked by
+ * {@link infinityx.lunarhaze.models.CoverageMap}.
+ * <p>
+ * The hierarchy is built once at level load and is immutable afterwards. Queries are pure Java and
+ * never allocate; all per-query state lives in a {@link Query} owned by the caller, so queries can be made
+ * from any thread as long as each thread uses its own {@link Query}.
+ */
+public class StaticBVH {
+
+    /**
+     * Primitive flag, the owning object can be seen past (fences, small stones)
+     */
+    public static final int SEE_THRU = 1;
+
+    /**
+     * Max number of primitives held by a leaf
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * Size of the traversal stack, the tree is balanced so this is plenty
+     */
+    private static final int STACK_SIZE = 64;
+
+    /**
+     * Per-caller query state and result
+     */
+    public static class Query {
+        /**
+         * Traversal stack
+         */
+        private final int[] stack = new int[STACK_SIZE];
+
+        /**
+         * Fraction of the segment at the hit, only valid for {@link #raycast}
+         */
+        public float fraction;
+
+        /**
+         * Object owning the hit primitive
+         */
+        public SceneObject hitObject;
+
+        /**
+         * Hit point and surface normal, only valid for {@link #raycast}
+         */
+        public final Vector2 point = new Vector2();
+        public final Vector2 normal = new Vector2();
+    }
+
+    /// Primitives
+    private final int primCount;
+    /**
+     * minX, minY, maxX, maxY per primitive
+     */
+    private final float[] primBounds;
+    private final int[] primFlags;
+    /**
+     * Index of first vertex in {@link #verts}, or -1 if the primitive is a circle
+     */
+    private final int[] vertStart;
+    private final int[] vertCount;
+    /**
+     * cx, cy, radius per primitive, only meaningful for circles
+     */
+    private final float[] circles;
+    private final SceneObject[] owners;
+    /**
+     * Polygon vertices in world coordinates (counter-clockwise) and the outward normal of the edge starting at each vertex
+     */
+    private final float[] verts;
+    private final float[] normals;
+
+    /// Nodes
+    /**
+     * minX, minY, maxX, maxY per node
+     */
+    private final float[] nodeBounds;
+    /**
+     * Index of left child, the right child is at {@link #nodeRight}. -1 if the node is a leaf.
+     */
+    private final int[] nodeLeft;
+    private final int[] nodeRight;
+    /**
+     * Range in {@link #order} held by a leaf
+     */
+    private final int[] nodeStart;
+    private final int[] nodeSize;
+    private int nodeCount;
+
+    /**
+     * Primitive indices, leaves reference contiguous ranges of this
+     */
+    private final int[] order;
+
+    /**
+     * Used only while building
+     */
+    private final float[] centroids;
+
+    /**
+     * Builds the hierarchy over every fixture of the given scene objects.
+     * Scene objects must have their physics activated.
+     */
+    public StaticBVH(Array<SceneObject> objects) {
+        FloatArray bounds = new FloatArray();
+        IntArray flags = new IntArray();
+        IntArray starts = new IntArray();
+        IntArray counts = new IntArray();
+        FloatArray circ = new FloatArray();
+        Array<SceneObject> owned = new Array<>();
+        FloatArray vertices = new FloatArray();
+        Vector2 local = new Vector2();
+
+        for (SceneObject obj : objects) {
+            Body body = obj.getBody();
+            if (body == null) continue;
+            int flag = obj.isSeeThru() ? SEE_THRU : 0;
+            for (Fixture fixture : body.getFixtureList()) {
+                if (fixture.isSensor()) continue;
+                Shape shape = fixture.getShape();
+                if (shape.getType() == Shape.Type.Circle) {
+                    CircleShape circle = (CircleShape) shape;
+                    Vector2 center = body.getWorldPoint(circle.getPosition());
+                    float r = circle.getRadius();
+                    bounds.addAll(center.x - r, center.y - r, center.x + r, center.y + r);
+                    circ.addAll(center.x, center.y, r);
+                    starts.add(-1);
+                    counts.add(0);
+                } else if (shape.getType() == Shape.Type.Polygon) {
+                    PolygonShape polygon = (PolygonShape) shape;
+                    float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+                    float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+                    starts.add(vertices.size / 2);
+                    counts.add(polygon.getVertexCount());
+                    for (int i = 0; i < polygon.getVertexCount(); i++) {
+                        polygon.getVertex(i, local);
+                        Vector2 world = body.getWorldPoint(local);
+                        vertices.add(world.x, world.y);
+                        minX = Math.min(minX, world.x);
+                        minY = Math.min(minY, world.y);
+                        maxX = Math.max(maxX, world.x);
+                        maxY = Math.max(maxY, world.y);
+                    }
+                    bounds.addAll(minX, minY, maxX, maxY);
+                    circ.addAll(0, 0, 0);
+                } else {
+                    // Scene objects only hold circles and polygons
+                    continue;
+                }
+                flags.add(flag);
+                owned.add(obj);
+            }
+        }
+
+        primCount = flags.size;
+        primBounds = bounds.toArray();
+        primFlags = flags.toArray();
+        vertStart = starts.toArray();
+        vertCount = counts.toArray();
+        circles = circ.toArray();
+        owners = owned.toArray(SceneObject.class);
+        verts = vertices.toArray();
+
+        // Outward edge normals, Box2D polygons are counter-clockwise
+        normals = new float[verts.length];
+        for (int p = 0; p < primCount; p++) {
+            if (vertStart[p] < 0) continue;
+            int start = vertStart[p], count = vertCount[p];
+            for (int i = 0; i < count; i++) {
+                int a = start + i, b = start + (i + 1) % count;
+                float ex = verts[2 * b] - verts[2 * a];
+                float ey = verts[2 * b + 1] - verts[2 * a + 1];
+                float len = (float) Math.sqrt(ex * ex + ey * ey);
+                normals[2 * a] = len == 0 ? 0 : ey / len;
+                normals[2 * a + 1] = len == 0 ? 0 : -ex / len;
+            }
+        }
+
+        order = new int[primCount];
+        centroids = new float[primCount * 2];
+        for (int p = 0; p < primCount; p++) {
+            order[p] = p;
+            centroids[2 * p] = (primBounds[4 * p] + primBounds[4 * p + 2]) / 2;
+            centroids[2 * p + 1] = (primBounds[4 * p + 1] + primBounds[4 * p + 3]) / 2;
+        }
+
+        int maxNodes = Math.max(1, 2 * primCount - 1);
+        nodeBounds = new float[maxNodes * 4];
+        nodeLeft = new int[maxNodes];
+        nodeRight = new int[maxNodes];
+        nodeStart = new int[maxNodes];
+        nodeSize = new int[maxNodes];
+        nodeCount = 0;
+        buildNode(0, primCount);
+    }
+
+    /**
+     * @return number of primitives (fixtures) in the hierarchy
+     */
+    public int size() {
+        return primCount;
+    }
+
+    /**
+     * Recursively build the node holding the primitives order[start, end)
+     *
+     * @return index of the created node
+     */
+    private int buildNode(int start, int end) {
+        int node = nodeCount++;
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+        float cMinX = Float.MAX_VALUE, cMinY = Float.MAX_VALUE;
+        float cMaxX = -Float.MAX_VALUE, cMaxY = -Float.MAX_VALUE;
+        for (int i = start; i < end; i++) {
+            int p = order[i];
+            minX = Math.min(minX, primBounds[4 * p]);
+            minY = Math.min(minY, primBounds[4 * p + 1]);
+            maxX = Math.max(maxX, primBounds[4 * p + 2]);
+            maxY = Math.max(maxY, primBounds[4 * p + 3]);
+            cMinX = Math.min(cMinX, centroids[2 * p]);
+            cMinY = Math.min(cMinY, centroids[2 * p + 1]);
+            cMaxX = Math.max(cMaxX, centroids[2 * p]);
+            cMaxY = Math.max(cMaxY, centroids[2 * p + 1]);
+        }
+        nodeBounds[4 * node] = minX;
+        nodeBounds[4 * node + 1] = minY;
+        nodeBounds[4 * node + 2] = maxX;
+        nodeBounds[4 * node + 3] = maxY;
+
+        if (end - start <= LEAF_SIZE) {
+            nodeLeft[node] = -1;
+            nodeRight[node] = -1;
+            nodeStart[node] = start;
+            nodeSize[node] = end - start;
+            return node;
+        }
+
+        // Median split along the longest axis of the centroids
+        int axis = (cMaxX - cMinX) >= (cMaxY - cMinY) ? 0 : 1;
+        int mid = (start + end) / 2;
+        select(start, end - 1, mid, axis);
+
+        nodeLeft[node] = buildNode(start, mid);
+        nodeRight[node] = buildNode(mid, end);
+        nodeStart[node] = start;
+        nodeSize[node] = end - start;
+        return node;
+    }
+
+    /**
+     * Partially sorts order[lo, hi] so that the k-th element is in place along the given axis
+     */
+    private void select(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            float pivot = centroids[2 * order[(lo + hi) >>> 1] + axis];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (centroids[2 * order[i] + axis] < pivot) i++;
+                while (centroids[2 * order[j] + axis] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds the closest primitive hit by the segment from (x1, y1) to (x2, y2).
+     * Like Box2D, primitives containing the start of the segment are not hit.
+     *
+     * @param skip  primitives with any of these flags are ignored
+     * @param query holds the result, i.e. fraction, point, normal and hit object
+     * @return whether anything was hit
+     */
+    public boolean raycast(float x1, float y1, float x2, float y2, int skip, Query query) {
+        return cast(x1, y1, x2, y2, skip, query, false);
+    }
+
+    /**
+     * Whether any primitive is hit by the segment from (x1, y1) to (x2, y2).
+     * Faster than {@link #raycast} as it returns on the first hit found; only {@link Query#hitObject} is set.
+     *
+     * @param skip primitives with any of these flags are ignored
+     */
+    public boolean isBlocked(float x1, float y1, float x2, float y2, int skip, Query query) {
+        return cast(x1, y1, x2, y2, skip, query, true);
+    }
+
+    private boolean cast(float x1, float y1, float x2, float y2, int skip, Query query, boolean anyHit) {
+        query.hitObject = null;
+        if (primCount == 0) return false;
+
+        float dx = x2 - x1, dy = y2 - y1;
+        float invDx = dx == 0 ? Float.POSITIVE_INFINITY : 1 / dx;
+        float invDy = dy == 0 ? Float.POSITIVE_INFINITY : 1 / dy;
+        float maxFraction = 1;
+        int hitPrim = -1;
+        float hitNx = 0, hitNy = 0;
+
+        int[] stack = query.stack;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!segmentHitsBox(x1, y1, dx, dy, invDx, invDy, maxFraction, nodeBounds, 4 * node)) continue;
+
+            if (nodeLeft[node] >= 0) {
+                stack[top++] = nodeLeft[node];
+                stack[top++] = nodeRight[node];
+                continue;
+            }
+
+            for (int i = nodeStart[node], end = i + nodeSize[node]; i < end; i++) {
+                int p = order[i];
+                if ((primFlags[p] & skip) != 0) continue;
+                if (!segmentHitsBox(x1, y1, dx, dy, invDx, invDy, maxFraction, primBounds, 4 * p)) continue;
+
+                float fraction;
+                if (vertStart[p] < 0) {
+                    fraction = raycastCircle(x1, y1, x2, y2, circles[3 * p], circles[3 * p + 1], circles[3 * p + 2], maxFraction);
+                    if (fraction < 0) continue;
+                    float cx = x1 + fraction * dx - circles[3 * p];
+                    float cy = y1 + fraction * dy - circles[3 * p + 1];
+                    float len = (float) Math.sqrt(cx * cx + cy * cy);
+                    hitNx = len == 0 ? 0 : cx / len;
+                    hitNy = len == 0 ? 0 : cy / len;
+                } else {
+                    int edge = raycastPolygon(x1, y1, dx, dy, p, maxFraction, query);
+                    if (edge < 0) continue;
+                    fraction = query.fraction;
+                    hitNx = normals[2 * edge];
+                    hitNy = normals[2 * edge + 1];
+                }
+
+                maxFraction = fraction;
+                hitPrim = p;
+                query.normal.set(hitNx, hitNy);
+                if (anyHit) {
+                    query.hitObject = owners[p];
+                    return true;
+                }
+            }
+        }
+
+        if (hitPrim < 0) return false;
+        query.fraction = maxFraction;
+        query.point.set(x1 + maxFraction * dx, y1 + maxFraction * dy);
+        query.hitObject = owners[hitPrim];
+        return true;
+    }
+
+    /**
+     * Slab test of the segment p + t * d, t in [0, maxFraction], against the box stored at boxes[offset]
+     */
+    private static boolean segmentHitsBox(float x, float y, float dx, float dy, float invDx, float invDy,
+                                          float maxFraction, float[] boxes, int offset) {
+        float tMin = 0, tMax = maxFraction;
+        if (dx == 0) {
+            if (x < boxes[offset] || x > boxes[offset + 2]) return false;
+        } else {
+            float t1 = (boxes[offset] - x) * invDx;
+            float t2 = (boxes[offset + 2] - x) * invDx;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        if (dy == 0) {
+            if (y < boxes[offset + 1] || y > boxes[offset + 3]) return false;
+        } else {
+            float t1 = (boxes[offset + 1] - y) * invDy;
+            float t2 = (boxes[offset + 3] - y) * invDy;
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        return tMin <= tMax;
+    }
+
+    /**
+     * Raycast against a convex polygon, mirrors b2PolygonShape::RayCast.
+     *
+     * @return index of the vertex starting the hit edge, -1 if no hit. The fraction is written to the query.
+     */
+    private int raycastPolygon(float x, float y, float dx, float dy, int p, float maxFraction, Query query) {
+        float lower = 0, upper = maxFraction;
+        int index = -1;
+        for (int i = vertStart[p], end = i + vertCount[p]; i < end; i++) {
+            float nx = normals[2 * i], ny = normals[2 * i + 1];
+            float numerator = nx * (verts[2 * i] - x) + ny * (verts[2 * i + 1] - y);
+            float denominator = nx * dx + ny * dy;
+
+            if (denominator == 0) {
+                if (numerator < 0) return -1;
+            } else if (denominator < 0 && numerator < lower * denominator) {
+                lower = numerator / denominator;
+                index = i;
+            } else if (denominator > 0 && numerator < upper * denominator) {
+                upper = numerator / denominator;
+            }
+
+            if (upper < lower) return -1;
+        }
+        if (index >= 0) query.fraction = lower;
+        return index;
+    }
+
+    /**
+     * Raycast of the segment from (x1, y1) to (x2, y2) against a circle, mirrors b2CircleShape::RayCast.
+     * Segments starting inside the circle do not hit it.
+     *
+     * @return fraction of the segment at the hit, or -1 if no hit within maxFraction
+     */
+    public static float raycastCircle(float x1, float y1, float x2, float y2,
+                                      float cx, float cy, float radius, float maxFraction) {
+        float sx = x1 - cx, sy = y1 - cy;
+        float b = sx * sx + sy * sy - radius * radius;
+        float rx = x2 - x1, ry = y2 - y1;
+        float c = sx * rx + sy * ry;
+        float rr = rx * rx + ry * ry;
+        float sigma = c * c - rr * b;
+
+        if (sigma < 0 || rr < 1.19e-7f) return -1;
+
+        float a = -(c + (float) Math.sqrt(sigma));
+        if (0 <= a && a <= maxFraction * rr) return a / rr;
+        return -1;
+    }
+
+    /**
+     * Whether the bounds of any primitive overlap the given box. Like Box2D's {@code QueryAABB},
+     * this tests bounds only, not the exact shape.
+     *
+     * @param skip  primitives with any of these flags are ignored
+     * @param query {@link Query#hitObject} holds the owner of the first overlapping primitive found
+     */
+    public boolean overlaps(float minX, float minY, float maxX, float maxY, int skip, Query query) {
+        query.hitObject = null;
+        if (primCount == 0) return false;
+
+        int[] stack = query.stack;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (!boxesOverlap(minX, minY, maxX, maxY, nodeBounds, 4 * node)) continue;
+
+            if (nodeLeft[node] >= 0) {
+                stack[top++] = nodeLeft[node];
+                stack[top++] = nodeRight[node];
+                continue;
+            }
+
+            for (int i = nodeStart[node], end = i + nodeSize[node]; i < end; i++) {
+                int p = order[i];
+                if ((primFlags[p] & skip) != 0) continue;
+                if (boxesOverlap(minX, minY, maxX, maxY, primBounds, 4 * p)) {
+                    query.hitObject = owners[p];
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks every node of the map whose cell, grown by margin on every side, overlaps a primitive as an obstacle.
+     * See {@link ShapeRasterizer}.
+     *
+     * @param skip primitives with any of these flags are ignored
+     */
+    public void rasterize(AStarMap map, float margin, int skip) {
+        rasterize(new ShapeRasterizer(map, margin), skip);
+    }
+
+    /**
+     * Scan-converts every primitive into the grid of the rasterizer
+     *
+     * @param skip primitives with any of these flags are ignored
+     */
+    public void rasterize(ShapeRasterizer rasterizer, int skip) {
+        for (int p = 0; p < primCount; p++) {
+            if ((primFlags[p] & skip) == 0) rasterizePrimitive(rasterizer, p);
+        }
+    }
+
+    /**
+     * Scan-converts a single primitive into the grid of the rasterizer
+     *
+     * @param p index of the primitive, from 0 to {@link #size()} exclusive
+     */
+    public void rasterizePrimitive(ShapeRasterizer rasterizer, int p) {
+        int width = rasterizer.getWidth(), height = rasterizer.getHeight();
+        if (vertStart[p] < 0) {
+            rasterizer.rasterizeCircle(circles[3 * p], circles[3 * p + 1], circles[3 * p + 2],
+                    0, 0, width - 1, height - 1);
+        } else {
+            rasterizer.rasterizePolygon(verts, vertStart[p], vertCount[p], 0, 0, width - 1, height - 1);
+        }
+    }
+
+    /**
+     * @return flags of the primitive with index p, e.g. {@link #SEE_THRU}
+     */
+    public int getFlags(int p) {
+        return primFlags[p];
+    }
+
+    /**
+     * @return whether the bounding box of the primitive with index p overlaps the given box, borders included
+     */
+    public boolean boundsOverlap(int p, float minX, float minY, float maxX, float maxY) {
+        return boxesOverlap(minX, minY, maxX, maxY, primBounds, 4 * p);
+    }
+
+    private static boolean boxesOverlap(float minX, float minY, float maxX, float maxY, float[] boxes, int offset) {
+        return minX <= boxes[offset + 2] && maxX >= boxes[offset]
+                && minY <= boxes[offset + 3] && maxY >= boxes[offset + 1];
+    }
+}
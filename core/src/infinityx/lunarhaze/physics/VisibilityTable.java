@@ -0,0 +1,341 @@
+package infinityx.lunarhaze.physics;
+
+import com.badlogic.gdx.math.MathUtils;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed line of sight between the cells of a level (a potentially visible set), used to reject rays that are
+ * certainly occluded without casting them, e.g. by the {@link RaycastService}.
+ * <p>
+ * The board is split into cells, and for every pair of cells within {@link #RANGE} world units of each other a bit
+ * records whether they may see each other through opaque static geometry, see-through objects never block. The bit is
+ * conservative: it is only left clear when every segment between the two cells is proven to hit an opaque object.
+ * A pair is first tested with a few sampled sight lines (each cell's center and inset corners); if any is clear the
+ * pair may see each other. Otherwise a flood fill over a finer grid checks that the cells lying entirely inside opaque
+ * objects cut every path from one cell to the other within the region the segments sweep.
+ * <p>
+ * The table is built once at level load, or read back from a cache, and is never modified afterwards, so it can be
+ * queried from any thread. Building it on a cache miss costs up to 25 BVH rays per pair of cells within range, plus a
+ * flood fill for pairs whose sampled sight lines are all blocked. The cache key changes with the level contents, so
+ * this is paid again on every editor Save+Test of a modified level.
+ */
+public class VisibilityTable {
+
+    /**
+     * Pairs of cells further apart than this, in world units, are not recorded
+     */
+    public static final float RANGE = 8;
+
+    /**
+     * Sample points are moved into the cell by this fraction of its size, so they do not lie on shared edges
+     */
+    private static final float INSET = 0.1f;
+
+    /**
+     * Subdivisions of each cell along x and y in the grid used to prove occlusion
+     */
+    private static final int FINE = 4;
+
+    /**
+     * Dimensions of the grid in cells, and the world size of each cell
+     */
+    private final int width, height;
+    private final float cellWidth, cellHeight;
+
+    /**
+     * Cells within reach of one another along x and y
+     */
+    private final int reachX, reachY;
+
+    /**
+     * Width and height of the window of cells around each cell, and its number of cells
+     */
+    private final int windowWidth, windowHeight, windowSize;
+
+    /**
+     * Bit (cell * windowSize + offset) is set if the cell may see the cell at the given offset in its window
+     */
+    private final long[] visible;
+
+    /**
+     * Creates an empty table, where every pair is hidden. Fill it with {@link #build(StaticBVH)} or {@link #setWords(long[])}.
+     *
+     * @param width  grid width in cells
+     * @param height grid height in cells
+     */
+    public VisibilityTable(int width, int height, float cellWidth, float cellHeight) {
+        this.width = width;
+        this.height = height;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.reachX = MathUtils.ceil(RANGE / cellWidth);
+        this.reachY = MathUtils.ceil(RANGE / cellHeight);
+        this.windowWidth = 2 * reachX + 1;
+        this.windowHeight = 2 * reachY + 1;
+        this.windowSize = windowWidth * windowHeight;
+        this.visible = new long[(int) (((long) width * height * windowSize + 63) / 64)];
+    }
+
+    /**
+     * Computes the visibility of every recorded pair of cells from the static geometry
+     */
+    public void build(StaticBVH geometry) {
+        StaticBVH.Query query = new StaticBVH.Query();
+        Occluders occluders = new Occluders(geometry);
+        float[] from = new float[10];
+        float[] to = new float[10];
+        for (int ay = 0; ay < height; ay++) {
+            for (int ax = 0; ax < width; ax++) {
+                samples(ax, ay, from);
+                // Each pair is computed once, from the cell that comes first in row major order
+                for (int by = ay; by <= Math.min(height - 1, ay + reachY); by++) {
+                    int startX = by == ay ? ax : Math.max(0, ax - reachX);
+                    for (int bx = startX; bx <= Math.min(width - 1, ax + reachX); bx++) {
+                        samples(bx, by, to);
+                        if (anyClear(geometry, query, from, to) || !occluders.separate(ax, ay, bx, by)) {
+                            set(ax, ay, bx, by);
+                            set(bx, by, ax, ay);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the world positions of the sample points of a cell, interleaved x and y
+     */
+    private void samples(int x, int y, float[] out) {
+        float x0 = (x + INSET) * cellWidth, x1 = (x + 1 - INSET) * cellWidth;
+        float y0 = (y + INSET) * cellHeight, y1 = (y + 1 - INSET) * cellHeight;
+        out[0] = (x + 0.5f) * cellWidth;
+        out[1] = (y + 0.5f) * cellHeight;
+        out[2] = x0;
+        out[3] = y0;
+        out[4] = x1;
+        out[5] = y0;
+        out[6] = x0;
+        out[7] = y1;
+        out[8] = x1;
+        out[9] = y1;
+    }
+
+    /**
+     * @return whether any segment between a point of from and a point of to misses the opaque static geometry
+     */
+    private static boolean anyClear(StaticBVH geometry, StaticBVH.Query query, float[] from, float[] to) {
+        for (int i = 0; i < from.length; i += 2) {
+            for (int j = 0; j < to.length; j += 2) {
+                if (!geometry.isBlocked(from[i], from[i + 1], to[j], to[j + 1], StaticBVH.SEE_THRU, query)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void set(int ax, int ay, int bx, int by) {
+        long bit = bit(ax, ay, bx, by);
+        visible[(int) (bit >>> 6)] |= 1L << bit;
+    }
+
+    private long bit(int ax, int ay, int bx, int by) {
+        int offset = (by - ay + reachY) * windowWidth + (bx - ax + reachX);
+        return (long) (ay * width + ax) * windowSize + offset;
+    }
+
+    /**
+     * Whether the segment from (x1, y1) to (x2, y2) is certainly blocked by opaque static geometry. If false, it may
+     * or may not be, e.g. for points out of the board or further apart than {@link #RANGE}.
+     */
+    public boolean isOccluded(float x1, float y1, float x2, float y2) {
+        int ax = (int) Math.floor(x1 / cellWidth), ay = (int) Math.floor(y1 / cellHeight);
+        int bx = (int) Math.floor(x2 / cellWidth), by = (int) Math.floor(y2 / cellHeight);
+        if (ax < 0 || ay < 0 || ax >= width || ay >= height) return false;
+        if (bx < 0 || by < 0 || bx >= width || by >= height) return false;
+        if (Math.abs(bx - ax) > reachX || Math.abs(by - ay) > reachY) return false;
+
+        long bit = bit(ax, ay, bx, by);
+        return (visible[(int) (bit >>> 6)] & (1L << bit)) == 0;
+    }
+
+    /**
+     * @return grid width in cells
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return grid height in cells
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the bits of the table, backed by the table
+     */
+    public long[] getWords() {
+        return visible;
+    }
+
+    /**
+     * Replaces the bits of the table, e.g. with ones read from a cache
+     *
+     * @return false if the words do not fit this table, which is then left unchanged
+     */
+    public boolean setWords(long[] words) {
+        if (words.length != visible.length) return false;
+        System.arraycopy(words, 0, visible, 0, words.length);
+        return true;
+    }
+
+    /**
+     * Proves that opaque static geometry separates two cells, on a grid {@link #FINE} times finer than the table
+     */
+    private class Occluders {
+
+        private final StaticBVH geometry;
+
+        /**
+         * Dimensions of the fine grid in cells, and the world size of each cell
+         */
+        private final int fineWidth, fineHeight;
+        private final float fineCellWidth, fineCellHeight;
+
+        /**
+         * Slack added to every test against the geometry, so rounding never makes a cell look more blocked than it is
+         */
+        private final float margin;
+
+        /**
+         * Opaque primitive a fine cell lies entirely inside, -1 if none
+         */
+        private final int[] owner;
+
+        /**
+         * Fine cells seen by the search with the same id, and the queue of cells to expand
+         */
+        private final int[] reached;
+        private final int[] queue;
+        private int searchId;
+
+        /**
+         * Primitive being rasterized
+         */
+        private int current;
+
+        Occluders(StaticBVH geometry) {
+            this.geometry = geometry;
+            this.fineWidth = width * FINE;
+            this.fineHeight = height * FINE;
+            this.fineCellWidth = cellWidth / FINE;
+            this.fineCellHeight = cellHeight / FINE;
+            this.margin = 0.01f * Math.min(fineCellWidth, fineCellHeight);
+            this.owner = new int[fineWidth * fineHeight];
+            this.reached = new int[owner.length];
+            this.queue = new int[(reachX + 1) * (reachY + 1) * FINE * FINE];
+
+            Arrays.fill(owner, -1);
+            ShapeRasterizer rasterizer = new ShapeRasterizer(fineWidth, fineHeight, fineCellWidth, fineCellHeight,
+                    margin, true) {
+                @Override
+                protected void block(int x, int y) {
+                    owner[y * fineWidth + x] = current;
+                }
+            };
+            for (int p = 0; p < geometry.size(); p++) {
+                if ((geometry.getFlags(p) & StaticBVH.SEE_THRU) != 0) continue;
+                current = p;
+                geometry.rasterizePrimitive(rasterizer, p);
+            }
+        }
+
+        /**
+         * Whether every segment from a point of cell a to a point of cell b hits an opaque primitive.
+         * <p>
+         * The segments stay within the region swept by cell a moving to cell b, and cross the fine cells they pass
+         * through in 8-connected order. So they are all blocked if no 8-connected path of fine cells leads from a to b
+         * within that region without entering a cell inside a primitive. A primitive reaching into cell a or b does not
+         * count, as a ray starting inside a primitive does not hit it.
+         */
+        boolean separate(int ax, int ay, int bx, int by) {
+            if (ax == bx && ay == by) return false;
+            int minX = Math.min(ax, bx) * FINE, minY = Math.min(ay, by) * FINE;
+            int maxX = (Math.max(ax, bx) + 1) * FINE - 1, maxY = (Math.max(ay, by) + 1) * FINE - 1;
+
+            searchId++;
+            int head = 0, tail = 0;
+            for (int fy = ay * FINE; fy < (ay + 1) * FINE; fy++) {
+                for (int fx = ax * FINE; fx < (ax + 1) * FINE; fx++) {
+                    int cell = fy * fineWidth + fx;
+                    reached[cell] = searchId;
+                    queue[tail++] = cell;
+                }
+            }
+
+            while (head < tail) {
+                int cell = queue[head++];
+                int fx = cell % fineWidth, fy = cell / fineWidth;
+                for (int ny = Math.max(minY, fy - 1); ny <= Math.min(maxY, fy + 1); ny++) {
+                    for (int nx = Math.max(minX, fx - 1); nx <= Math.min(maxX, fx + 1); nx++) {
+                        int next = ny * fineWidth + nx;
+                        if (reached[next] == searchId) continue;
+                        reached[next] = searchId;
+                        if (nx / FINE == bx && ny / FINE == by) return false;
+                        if (passable(nx, ny, ax, ay, bx, by)) queue[tail++] = next;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Whether a path from cell a to cell b may cross fine cell (x, y)
+         */
+        private boolean passable(int x, int y, int ax, int ay, int bx, int by) {
+            if (!inSweep(x, y, ax, ay, bx, by)) return false;
+            int p = owner[y * fineWidth + x];
+            return p < 0 || overlapsCell(p, ax, ay) || overlapsCell(p, bx, by);
+        }
+
+        /**
+         * Whether fine cell (x, y) overlaps the region swept by cell a moving to cell b, i.e. whether the segment
+         * between their centers hits the fine cell grown by half a cell on every side
+         */
+        private boolean inSweep(int x, int y, int ax, int ay, int bx, int by) {
+            float growX = cellWidth / 2 + margin, growY = cellHeight / 2 + margin;
+            float minX = x * fineCellWidth - growX, maxX = (x + 1) * fineCellWidth + growX;
+            float minY = y * fineCellHeight - growY, maxY = (y + 1) * fineCellHeight + growY;
+            float px = (ax + 0.5f) * cellWidth, py = (ay + 0.5f) * cellHeight;
+            float dx = (bx - ax) * cellWidth, dy = (by - ay) * cellHeight;
+
+            float tMin = 0, tMax = 1;
+            if (dx == 0) {
+                if (px < minX || px > maxX) return false;
+            } else {
+                float t1 = (minX - px) / dx, t2 = (maxX - px) / dx;
+                tMin = Math.max(tMin, Math.min(t1, t2));
+                tMax = Math.min(tMax, Math.max(t1, t2));
+            }
+            if (dy == 0) {
+                if (py < minY || py > maxY) return false;
+            } else {
+                float t1 = (minY - py) / dy, t2 = (maxY - py) / dy;
+                tMin = Math.max(tMin, Math.min(t1, t2));
+                tMax = Math.min(tMax, Math.max(t1, t2));
+            }
+            return tMin <= tMax;
+        }
+
+        /**
+         * Whether the bounds of primitive p, grown by the margin, overlap cell (x, y) of the table
+         */
+        private boolean overlapsCell(int p, int x, int y) {
+            return geometry.boundsOverlap(p, x * cellWidth - margin, y * cellHeight - margin,
+                    (x + 1) * cellWidth + margin, (y + 1) * cellHeight + margin);
+        }
+    }
+}
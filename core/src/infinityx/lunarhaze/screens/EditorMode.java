@@ -506,6 +506,11 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
      */
     public static final Color OVERLAPPED_COLOR = Color.RED.cpy().mul(1, 1, 1, 0.8f);
 
+    /**
+     * Color of navigation grid cells blocked by scene objects
+     */
+    public static final Color WALKABILITY_COLOR = new Color(1, 0, 0, 0.35f);
+
 
     /**
      * Holds world coordinates of cursor
@@ -567,6 +572,11 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
      */
     private boolean showBattleLighting;
 
+    /**
+     * Whether to draw the cells of the navigation grid blocked by scene objects
+     */
+    private boolean showWalkability;
+
     /**
      * Whether an undo or redo was pressed this frame
      */
@@ -1260,6 +1270,9 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
 
         canvas.begin(GameCanvas.DrawPass.SHAPE, level.getView().x, level.getView().y);
         board.drawOutline(canvas);
+        if (showWalkability && level.pathfinder != null) {
+            level.pathfinder.map.drawObstacles(canvas, WALKABILITY_COLOR);
+        }
         canvas.end();
 
         ImGui.setNextWindowSize(800, 400, ImGuiCond.FirstUseEver);
@@ -1373,6 +1386,7 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
             showCannotSaveError = false;
 
         showBattleLighting = false;
+        showWalkability = false;
         showSaveLevelPopup = false;
         showOverwritePrompt = false;
         selectedWaypointIndex = -1;
@@ -1393,6 +1407,8 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
     public void setLevel(LevelContainer level) {
         this.level = level;
         board = level.getBoard();
+        // Patch the navigation grid as objects are edited instead of rebuilding it
+        level.trackNavGrid();
 
         // Center board on screen
         level.setViewTranslation(
@@ -1534,12 +1550,14 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
 
         switch (selected.getType()) {
             case EXIST_OBJECT:
+                SceneObject object = ((ExistingObject) selected).object;
+                Vector2 dragTo = mouseWorld;
                 if (Gdx.input.isKeyPressed(Input.Keys.CONTROL_LEFT)) {
                     mouseBoard.set(boardX, boardY);
-                    ((ExistingObject) selected).object.setPosition(mouseBoard);
-                } else {
-                    ((ExistingObject) selected).object.setPosition(mouseWorld);
+                    dragTo = mouseBoard;
                 }
+                // Snapping leaves the object in place until the mouse reaches another tile
+                if (!object.getPosition().equals(dragTo)) object.setPosition(dragTo);
                 break;
             case EXIST_ENEMY:
                 ((ExistingEnemy) selected).enemy.setPosition(mouseWorld.x, mouseWorld.y);
@@ -1939,14 +1957,14 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
                         // Position
                         float[] posX = new float[]{object.getX()};
                         float[] posY = new float[]{object.getY()};
-                        ImGui.dragFloat("X", posX, 0.05f);
-                        ImGui.dragFloat("Y", posY, 0.05f);
-                        object.setPosition(posX[0], posY[0]);
+                        // Only touch the object on edits, moving it refreshes the navigation grid
+                        boolean moved = ImGui.dragFloat("X", posX, 0.05f);
+                        moved |= ImGui.dragFloat("Y", posY, 0.05f);
+                        if (moved) object.setPosition(posX[0], posY[0]);
 
                         // Scale
                         float[] scale = new float[]{object.getScale()};
-                        ImGui.dragFloat("Scale", scale, 0.01f);
-                        object.setScale(scale[0]);
+                        if (ImGui.dragFloat("Scale", scale, 0.01f)) object.setScale(scale[0]);
 
                         ImBoolean flip = new ImBoolean(object.isFlipped());
                         if (ImGui.checkbox("Flip", flip)) {
@@ -2380,7 +2398,7 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
 
 
     /**
-     * View menu with Toggle Stealth / Battle Lighting
+     * View menu with Toggle Stealth / Battle Lighting and Toggle Walkability
      */
     private void createViewMenu() {
         if (ImGui.beginMenu("   View   ")) {
@@ -2393,6 +2411,11 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
                 else
                     level.getRayHandler().setAmbientLight(stealthLighting[0], stealthLighting[1], stealthLighting[2], stealthLighting[3]);
             }
+            ImGui.spacing();
+            ImGui.spacing();
+            if (ImGui.menuItem("Toggle Walkability")) {
+                showWalkability = !showWalkability;
+            }
             ImGui.endMenu();
         }
     }
@@ -2416,6 +2439,7 @@ public class EditorMode extends ScreenObservable implements Screen, InputProcess
 
         if (ImGui.button("Create")) {
             level = LevelParser.LevelParser().loadEmpty(boardSize[0], boardSize[1]);
+            level.trackNavGrid();
 
             level.hidePlayer();
             board = level.getBoard();
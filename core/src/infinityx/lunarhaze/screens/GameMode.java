@@ -254,6 +254,7 @@ public class GameMode extends ScreenObservable implements Screen, InputProcessor
             Gdx.app.error("GameMode", "Level does not exist!", new RuntimeException());
             Gdx.app.exit();
         }
+        ps.setPathfinder(setting.getPathfinder());
         levelContainer = ps.loadLevel(directory, levelData);
         levelContainer.setLevel(level);
         gameplayController.start(levelContainer);
@@ -267,6 +268,10 @@ public class GameMode extends ScreenObservable implements Screen, InputProcessor
      */
     protected void play(float delta) {
         levelContainer.getWorld().step(delta, 6, 2);
+        // Rays requested by the AI last frame are cast against the settled world
+        levelContainer.getRaycasts().flush();
+        // Path searches requested by the AI are served within a fixed budget
+        levelContainer.getPathScheduler().run();
         gameplayController.resolveActions(delta);
     }
 
@@ -3,6 +3,7 @@ package infinityx.lunarhaze.screens;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.Preferences;
+import infinityx.util.astar.AStarPathFinding;
 
 public class GameSetting {
     //TODO: NOT FINISH YET
@@ -11,6 +12,7 @@ public class GameSetting {
     private static final String SOUND_ENABLED = "sound_enabled";
     private static final String SOUND_VOLUME = "sound_volume";
     private static final String MOVE_UP = "move_up";
+    private static final String PATHFINDER = "pathfinder";
     private static final String SETTING_NAME = "default";
     private Preferences preferences;
 
@@ -74,6 +76,23 @@ public class GameSetting {
         return getPrefs().getInteger(MOVE_UP, Keys.W);
     }
 
+    /**
+     * @return search algorithm enemies find paths with, jump point search unless changed
+     */
+    public AStarPathFinding.Algorithm getPathfinder() {
+        String name = getPrefs().getString(PATHFINDER, AStarPathFinding.Algorithm.JPS.name());
+        try {
+            return AStarPathFinding.Algorithm.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return AStarPathFinding.Algorithm.JPS;
+        }
+    }
+
+    public void setPathfinder(AStarPathFinding.Algorithm algorithm) {
+        getPrefs().putString(PATHFINDER, algorithm.name());
+        getPrefs().flush();
+    }
+
     public void setBinding(String key, int keycode) {
         getPrefs().putInteger(key, keycode);
         getPrefs().flush();
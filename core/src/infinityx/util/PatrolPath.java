@@ -13,6 +13,17 @@ public class PatrolPath {
      */
     private int currentWayPoint;
 
+    /**
+     * Direction the enemy walks {@link #path} in, 1 or -1
+     */
+    private int step = 1;
+
+    /**
+     * Indices of the last two waypoints returned by {@link #getNextPatrol()}, -1 if none
+     */
+    private int lastWayPoint = -1;
+    private int previousWayPoint = -1;
+
     /**
      * Vertices of path
      */
@@ -35,24 +46,40 @@ public class PatrolPath {
     }
 
     /**
-     * Returns the next waypoint in the patrol path.
+     * Returns the next waypoint in the patrol path. The path is walked back and forth, turning around at its ends.
      *
      * @return the next waypoint in the patrol path
      */
     public Vector2 getNextPatrol() {
+        previousWayPoint = lastWayPoint;
+        if (path.size == 1) {
+            lastWayPoint = 0;
+            return path.get(0);
+        }
         Vector2 next = path.get(currentWayPoint);
-        currentWayPoint++;
-        if (currentWayPoint > path.size - 1) {
-            if (path.size == 1) {
-                currentWayPoint = 0;
-                return next;
-            }
-            path.reverse();
-            currentWayPoint = 1;
+        lastWayPoint = currentWayPoint;
+        if (currentWayPoint + step < 0 || currentWayPoint + step > path.size - 1) {
+            step = -step;
         }
+        currentWayPoint += step;
         return next;
     }
 
+    /**
+     * @return index of the waypoint last returned by {@link #getNextPatrol()}, -1 if none
+     */
+    public int getLastIndex() {
+        return lastWayPoint;
+    }
+
+    /**
+     * @return index of the waypoint returned by {@link #getNextPatrol()} before the last one, -1 if none.
+     * The enemy walks from this waypoint to that of {@link #getLastIndex()}.
+     */
+    public int getPreviousIndex() {
+        return previousWayPoint;
+    }
+
     /**
      * Returns the number of waypoints in the patrol path.
      *
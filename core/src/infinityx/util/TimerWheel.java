@@ -0,0 +1,260 @@
+package infinityx.util;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timer wheel, the single clock for cooldowns, lockouts and delayed actions of a level.
+ * <p>
+ * Time advances in ticks of {@link #TICK} seconds. A timer waits in one of {@link #LEVELS} wheels of {@link #SLOTS}
+ * slots depending on how far away it is due: the first wheel has a slot per tick, each further one a slot per turn
+ * of the previous wheel. When a wheel completes a turn, the timers of the next slot of the wheel above are moved
+ * down. Scheduling and cancelling are constant time, and a tick only looks at the timers due on it, so idle timers
+ * cost nothing. Timers are stored in parallel arrays and recycled, scheduling does not allocate once they are large
+ * enough.
+ * <p>
+ * Timers are referred to by handles. A handle stays valid until its timer fires or is cancelled, after which every
+ * query on it treats the timer as expired, even once its storage is reused. 0 is never a valid handle, so fields can
+ * start at 0 for "no timer".
+ * <p>
+ * The whole clock can be paused or time-scaled.
+ */
+public class TimerWheel {
+
+    /**
+     * Length of a tick in seconds, delays are rounded up to it
+     */
+    public static final float TICK = 1 / 60f;
+
+    /**
+     * Bits of the tick selecting the slot of each wheel
+     */
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    /**
+     * Timers due further away than this many ticks (about 77 hours) are due at the end of the span instead
+     */
+    private static final long SPAN = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * Handles pack the index of the timer in its low bits and its generation above
+     */
+    private static final int INDEX_BITS = 20;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - INDEX_BITS)) - 1;
+
+    /**
+     * heads[level * SLOTS + slot] is the first timer of that slot, -1 if empty
+     */
+    private final int[] heads = new int[LEVELS * SLOTS];
+
+    /**
+     * Per timer: neighbours in its slot (next also links the free list), slot it is in (-1 if not scheduled),
+     * generation, tick it is due on and what it runs
+     */
+    private int[] next, prev, slotOf, generation;
+    private long[] due;
+    private Runnable[] tasks;
+    private int capacity;
+
+    /**
+     * First free timer, -1 if none
+     */
+    private int free;
+
+    /**
+     * Current tick, and the scaled time elapsed into the next one
+     */
+    private long now;
+    private float accumulator;
+
+    private float timeScale = 1;
+    private boolean paused;
+
+    public TimerWheel() {
+        Arrays.fill(heads, -1);
+        capacity = 0;
+        free = -1;
+        grow(64);
+    }
+
+    private void grow(int newCapacity) {
+        next = Arrays.copyOf(next == null ? new int[0] : next, newCapacity);
+        prev = Arrays.copyOf(prev == null ? new int[0] : prev, newCapacity);
+        slotOf = Arrays.copyOf(slotOf == null ? new int[0] : slotOf, newCapacity);
+        generation = Arrays.copyOf(generation == null ? new int[0] : generation, newCapacity);
+        due = Arrays.copyOf(due == null ? new long[0] : due, newCapacity);
+        tasks = Arrays.copyOf(tasks == null ? new Runnable[0] : tasks, newCapacity);
+        // Chain the new timers into the free list
+        for (int i = newCapacity - 1; i >= capacity; i--) {
+            slotOf[i] = -1;
+            next[i] = free;
+            free = i;
+        }
+        capacity = newCapacity;
+    }
+
+    /**
+     * Schedules a task
+     *
+     * @param delay seconds of game time before the task runs, at least a tick
+     * @param task  run when the timer fires, may be null for timers that are only queried
+     * @return handle of the timer
+     */
+    public int schedule(float delay, Runnable task) {
+        if (free == -1) {
+            if (capacity == INDEX_MASK + 1) throw new IllegalStateException("Too many timers");
+            grow(Math.min(capacity * 2, INDEX_MASK + 1));
+        }
+        int timer = free;
+        free = next[timer];
+
+        // Skip 0 so no handle is 0
+        generation[timer] = (generation[timer] + 1) & GENERATION_MASK;
+        if (generation[timer] == 0) generation[timer] = 1;
+        long ticks = Math.max(1, (long) Math.ceil((delay - accumulator) / TICK));
+        due[timer] = now + Math.min(ticks, SPAN - 1);
+        tasks[timer] = task;
+        link(timer);
+        return (generation[timer] << INDEX_BITS) | timer;
+    }
+
+    /**
+     * Cancels a timer, its task will not run. Does nothing if the timer already expired.
+     *
+     * @return whether the timer was pending
+     */
+    public boolean cancel(int handle) {
+        int timer = timerOf(handle);
+        if (timer == -1) return false;
+        unlink(timer);
+        release(timer);
+        return true;
+    }
+
+    /**
+     * @return whether the timer has yet to fire
+     */
+    public boolean isPending(int handle) {
+        return timerOf(handle) != -1;
+    }
+
+    /**
+     * @return seconds of game time until the timer fires, 0 if it expired
+     */
+    public float remaining(int handle) {
+        int timer = timerOf(handle);
+        if (timer == -1) return 0;
+        return Math.max(0, (due[timer] - now) * TICK - accumulator);
+    }
+
+    /**
+     * @return index of the pending timer of the handle, -1 if it expired
+     */
+    private int timerOf(int handle) {
+        int timer = handle & INDEX_MASK;
+        if (handle <= 0 || timer >= capacity) return -1;
+        if (generation[timer] != handle >>> INDEX_BITS || slotOf[timer] == -1) return -1;
+        return timer;
+    }
+
+    /**
+     * Advances the clock, running the tasks of the timers that come due. Should be called once per frame.
+     *
+     * @param delta seconds since the last frame, scaled by the time scale
+     */
+    public void update(float delta) {
+        if (paused) return;
+        accumulator += delta * timeScale;
+        while (accumulator >= TICK) {
+            accumulator -= TICK;
+            tick();
+        }
+    }
+
+    private void tick() {
+        now++;
+        // Move the timers of the next slot of a wheel down when the wheel below completes a turn
+        for (int level = 1; level < LEVELS; level++) {
+            if ((now & ((1L << (SLOT_BITS * level)) - 1)) != 0) break;
+            int slot = level * SLOTS + (int) ((now >>> (SLOT_BITS * level)) & (SLOTS - 1));
+            int timer = heads[slot];
+            heads[slot] = -1;
+            while (timer != -1) {
+                int following = next[timer];
+                link(timer);
+                timer = following;
+            }
+        }
+
+        int slot = (int) (now & (SLOTS - 1));
+        while (heads[slot] != -1) {
+            int timer = heads[slot];
+            unlink(timer);
+            Runnable task = tasks[timer];
+            // Released first, so the task may schedule again
+            release(timer);
+            if (task != null) task.run();
+        }
+    }
+
+    /**
+     * Inserts a timer in the slot of the lowest wheel that reaches its due tick
+     */
+    private void link(int timer) {
+        long ticks = Math.max(0, due[timer] - now);
+        int level = 0;
+        while (level < LEVELS - 1 && ticks >= 1L << (SLOT_BITS * (level + 1))) level++;
+        int slot = level * SLOTS + (int) ((due[timer] >>> (SLOT_BITS * level)) & (SLOTS - 1));
+
+        slotOf[timer] = slot;
+        prev[timer] = -1;
+        next[timer] = heads[slot];
+        if (heads[slot] != -1) prev[heads[slot]] = timer;
+        heads[slot] = timer;
+    }
+
+    private void unlink(int timer) {
+        int slot = slotOf[timer];
+        if (prev[timer] != -1) next[prev[timer]] = next[timer];
+        else heads[slot] = next[timer];
+        if (next[timer] != -1) prev[next[timer]] = prev[timer];
+        slotOf[timer] = -1;
+    }
+
+    private void release(int timer) {
+        tasks[timer] = null;
+        next[timer] = free;
+        free = timer;
+    }
+
+    /**
+     * @return seconds of game time elapsed since the wheel was created
+     */
+    public float getTime() {
+        return now * TICK + accumulator;
+    }
+
+    /**
+     * @param timeScale factor applied to the time advancing the clock, 1 for real time
+     */
+    public void setTimeScale(float timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    public float getTimeScale() {
+        return timeScale;
+    }
+
+    /**
+     * @param paused whether the clock stands still, no timer fires while paused
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
@@ -1,21 +1,36 @@
 package infinityx.util.astar;
 
-import com.badlogic.gdx.ai.pfa.Connection;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
 import infinityx.lunarhaze.graphics.GameCanvas;
 
+import java.util.Arrays;
+
 /**
  * Grid (tiled) map
+ * <p>
+ * Nodes are stored in a flat array indexed like {@link Node#getIndex()}, and walkability in a packed bitset.
+ * Connectivity is implicit, every node is connected to its walkable 8 neighbours, see {@link #canStep}.
  */
 public class AStarMap {
 
     /**
-     * The node grid
+     * Grid offsets of the neighbours of a node
      */
-    private Node[][] map;
+    public static final int[] OFFSET_X = new int[]{-1, 0, 0, 1, -1, -1, 1, 1};
+    public static final int[] OFFSET_Y = new int[]{0, -1, 1, 0, 1, -1, -1, 1};
+
+    /**
+     * The node grid, node (x, y) is at index x * height + y
+     */
+    private final Node[] nodes;
+
+    /**
+     * Walkable nodes, bit i is set if the node with index i is not an obstacle
+     */
+    private final long[] walkable;
 
     /**
      * Map width in grids
@@ -28,6 +43,11 @@ public class AStarMap {
     private final int height;
     private final Vector2 gridSize;
 
+    /**
+     * Incremented whenever the walkability of a node changes
+     */
+    private int revision;
+
     /**
      * Creates a new tiled map of the given size
      *
@@ -40,14 +60,21 @@ public class AStarMap {
         this.height = height;
         this.gridSize = gridSize;
 
-        map = new Node[width][height];
+        nodes = new Node[width * height];
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
                 float wx = (float) ((x + 0.5) * gridSize.x);
                 float wy = (float) ((y + 0.5) * gridSize.y);
-                map[x][y] = new Node(this, x, y, wx, wy);
+                Node node = new Node(this, x, y, wx, wy);
+                nodes[node.getIndex()] = node;
             }
         }
+
+        // Everything is walkable until obstacles are marked
+        int count = width * height;
+        walkable = new long[(count + 63) >>> 6];
+        Arrays.fill(walkable, -1L);
+        if ((count & 63) != 0) walkable[walkable.length - 1] = (1L << (count & 63)) - 1;
     }
 
 
@@ -74,13 +101,28 @@ public class AStarMap {
         return height;
     }
 
+    /**
+     * @return width and height of each grid in world size
+     */
+    public Vector2 getGridSize() {
+        return gridSize;
+    }
+
     /**
      * @param x Number of grids along horizontal
      * @param y Number of grids along vertical
      * @return Node at position (x, y)
      */
     public Node getNodeAt(int x, int y) {
-        return map[MathUtils.clamp(x, 0, width - 1)][MathUtils.clamp(y, 0, height - 1)];
+        return nodes[MathUtils.clamp(x, 0, width - 1) * height + MathUtils.clamp(y, 0, height - 1)];
+    }
+
+    /**
+     * @param index index of the node, see {@link Node#getIndex()}
+     * @return Node with the given index
+     */
+    public Node getNode(int index) {
+        return nodes[index];
     }
 
     /**
@@ -89,7 +131,114 @@ public class AStarMap {
      * @return Node in which (x, y) is inside. Clamps to edge if out of bounds.
      */
     public Node getNodeAtWorld(float x, float y) {
-        return map[MathUtils.clamp(worldToGridX(x), 0, width - 1)][MathUtils.clamp(worldToGridY(y), 0, height - 1)];
+        return getNodeAt(worldToGridX(x), worldToGridY(y));
+    }
+
+    /**
+     * @param index index of the node, see {@link Node#getIndex()}
+     * @return whether the node is not an obstacle
+     */
+    public boolean isWalkable(int index) {
+        return (walkable[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    /**
+     * @return whether node (x, y) is inside the map and not an obstacle
+     */
+    public boolean isWalkable(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        return isWalkable(x * height + y);
+    }
+
+    /**
+     * Whether a step from node (x, y) by (dx, dy), one of the offsets in {@link #OFFSET_X} and {@link #OFFSET_Y},
+     * ends on a walkable node of the map. Diagonal steps also need both nodes they pass between to be walkable,
+     * so paths never cut the corner of an obstacle. Every pathfinder over the map follows this rule.
+     */
+    public boolean canStep(int x, int y, int dx, int dy) {
+        if (!isWalkable(x + dx, y + dy)) return false;
+        return dx == 0 || dy == 0 || (isWalkable(x + dx, y) && isWalkable(x, y + dy));
+    }
+
+    /**
+     * Whether every node the segment from world (x1, y1) to (x2, y2) passes through is walkable.
+     * The nodes are visited in order along the segment, stepping into the neighbour whose border is crossed first.
+     * A segment passing exactly through the corner of a node steps diagonally, which needs both nodes beside the
+     * corner to be walkable, as in {@link #canStep}.
+     */
+    public boolean isSegmentWalkable(float x1, float y1, float x2, float y2) {
+        int x = worldToGridX(x1), y = worldToGridY(y1);
+        float dx = x2 - x1, dy = y2 - y1;
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1;
+
+        // Fraction of the segment at which the next vertical and horizontal borders are crossed, and between borders
+        float nextX = dx == 0 ? Float.POSITIVE_INFINITY : ((dx > 0 ? x + 1 : x) * gridSize.x - x1) / dx;
+        float nextY = dy == 0 ? Float.POSITIVE_INFINITY : ((dy > 0 ? y + 1 : y) * gridSize.y - y1) / dy;
+        float deltaX = dx == 0 ? Float.POSITIVE_INFINITY : gridSize.x / Math.abs(dx);
+        float deltaY = dy == 0 ? Float.POSITIVE_INFINITY : gridSize.y / Math.abs(dy);
+
+        while (true) {
+            if (!isWalkable(x, y)) return false;
+            if (Math.min(nextX, nextY) >= 1) return true;
+            if (nextX < nextY) {
+                x += stepX;
+                nextX += deltaX;
+            } else if (nextY < nextX) {
+                y += stepY;
+                nextY += deltaY;
+            } else {
+                if (!canStep(x, y, stepX, stepY)) return false;
+                x += stepX;
+                y += stepY;
+                nextX += deltaX;
+                nextY += deltaY;
+            }
+        }
+    }
+
+    /**
+     * Marks node (x, y) as an obstacle or walkable
+     */
+    public void setObstacle(int x, int y, boolean obstacle) {
+        revision++;
+        int index = x * height + y;
+        if (obstacle) {
+            walkable[index >>> 6] &= ~(1L << (index & 63));
+        } else {
+            walkable[index >>> 6] |= 1L << (index & 63);
+        }
+    }
+
+    /**
+     * @return a copy of the walkability bitset, bit i is set if the node with index i is not an obstacle
+     */
+    public long[] copyWalkable() {
+        return walkable.clone();
+    }
+
+    /**
+     * Copies the walkability bitset into out, which must have as many words as {@link #copyWalkable()}
+     */
+    public void copyWalkable(long[] out) {
+        System.arraycopy(walkable, 0, out, 0, walkable.length);
+    }
+
+    /**
+     * @return number of walkability changes so far, copies of the walkability are stale once this changes
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Replaces the walkability of every node, e.g. with a bitset from {@link #copyWalkable()} of a map of the same size
+     */
+    public void setWalkable(long[] words) {
+        if (words.length != walkable.length) {
+            throw new IllegalArgumentException("Expected " + walkable.length + " words, got " + words.length);
+        }
+        System.arraycopy(words, 0, walkable, 0, walkable.length);
+        revision++;
     }
 
     /**
@@ -97,29 +246,51 @@ public class AStarMap {
      */
     public void drawMap(GameCanvas canvas) {
         canvas.shapeRenderer.begin(ShapeRenderer.ShapeType.Line);
-        for (Node[] row : map) {
-            for (Node node : row) {
-                canvas.shapeRenderer.setColor(node.isObstacle ? Color.RED : Color.BLUE);
-                canvas.shapeRenderer.rect(
-                        node.position.x - gridSize.x / 2,
-                        node.position.y - gridSize.y / 2,
-                        gridSize.x, gridSize.y
-                );
-                canvas.shapeRenderer.setColor(Color.WHITE);
-                for (Connection conn : node.getConnections()) {
-                    canvas.shapeRenderer.line(node.position, ((Node) conn.getToNode()).position);
+        for (Node node : nodes) {
+            boolean walkable = isWalkable(node.getIndex());
+            canvas.shapeRenderer.setColor(walkable ? Color.BLUE : Color.RED);
+            canvas.shapeRenderer.rect(
+                    node.position.x - gridSize.x / 2,
+                    node.position.y - gridSize.y / 2,
+                    gridSize.x, gridSize.y
+            );
+            if (!walkable) continue;
+            canvas.shapeRenderer.setColor(Color.WHITE);
+            for (int i = 0; i < OFFSET_X.length; i++) {
+                int nx = node.x + OFFSET_X[i];
+                int ny = node.y + OFFSET_Y[i];
+                if (canStep(node.x, node.y, OFFSET_X[i], OFFSET_Y[i])) {
+                    canvas.shapeRenderer.line(node.position, nodes[nx * height + ny].position);
                 }
             }
         }
         canvas.shapeRenderer.end();
     }
 
+    /**
+     * Draws every obstacle as a filled cell of the given color, e.g. as a walkability overlay in the editor.
+     * The shape renderer must not have begun.
+     */
+    public void drawObstacles(GameCanvas canvas, Color color) {
+        canvas.shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        canvas.shapeRenderer.setColor(color);
+        for (Node node : nodes) {
+            if (isWalkable(node.getIndex())) continue;
+            canvas.shapeRenderer.rect(
+                    node.position.x - gridSize.x / 2,
+                    node.position.y - gridSize.y / 2,
+                    gridSize.x, gridSize.y
+            );
+        }
+        canvas.shapeRenderer.end();
+    }
+
     @Override
     public String toString() {
         StringBuilder stringBuilder = new StringBuilder();
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
-                stringBuilder.append(map[x][y].isObstacle ? "#" : "O");
+                stringBuilder.append(isWalkable(x, y) ? "O" : "#");
             }
             stringBuilder.append("\n");
         }
@@ -2,188 +2,190 @@ package infinityx.util.astar;
 
 import com.badlogic.gdx.ai.pfa.Connection;
 import com.badlogic.gdx.ai.pfa.DefaultConnection;
-import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.GraphPath;
 import com.badlogic.gdx.ai.pfa.PathFinder;
-import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
 import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
-import com.badlogic.gdx.ai.steer.utils.Path;
-import com.badlogic.gdx.ai.steer.utils.paths.LinePath;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.physics.box2d.Fixture;
 import com.badlogic.gdx.utils.Array;
-import infinityx.lunarhaze.models.GameObject;
-import infinityx.lunarhaze.physics.RaycastInfo;
 
 /**
  * A* pathfinding utility class
  */
 public class AStarPathFinding {
+
     /**
-     * Map containing all the nodes in our level
+     * Search algorithms the pathfinder can use
      */
-    public final AStarMap map;
+    public enum Algorithm {
+        /**
+         * {@link GridAStarPathFinder} over the implicit grid with an octile heuristic
+         */
+        ASTAR,
+        /**
+         * {@link JumpPointPathFinder} over a walkability bitset with an octile heuristic
+         */
+        JPS,
+        /**
+         * {@link HierarchicalPathFinder} over sectors of the grid, searching precomputed entrances before refining
+         */
+        HPA
+    }
 
     /**
-     * Libgdx's pathfinder
+     * Map containing all the nodes in our level
      */
-    private final PathFinder<Node> pathfinder;
+    public final AStarMap map;
 
     /**
-     * Heuristic function used in A* algorithm
+     * Graph over the nodes of {@link #map}
      */
-    private final Heuristic<Node> heuristic;
+    private final AStarGraph graph;
 
     /**
-     * The output path for pathfinder
+     * Algorithm used by the pathfinders
      */
-    private final SmoothGraphPath<Node> connectionPath;
+    private final Algorithm algorithm;
 
     /**
-     * Waypoints cache for findPath
+     * Hierarchical pathfinder shared by every caller, created on first use as its precomputation is costly
      */
-    private Array<Vector2> waypoints;
+    private HierarchicalPathFinder hierarchical;
 
     /**
      * @param map Map pathfinding will be perform on
      */
     public AStarPathFinding(AStarMap map) {
-        this.map = map;
-        this.pathfinder = new IndexedAStarPathFinder(createGraph(map));
-        this.connectionPath = new SmoothGraphPath();
-        this.waypoints = new Array<>();
-        this.heuristic = new Heuristic<Node>() {
-            @Override
-            public float estimate(Node node, Node endNode) {
-                // Euclidean distance, enemy should prefer diagonal movement if possible
-                return endNode.position.dst(node.position);
-            }
-        };
-
-        RaycastInfo collRay = new RaycastInfo(null) {
-            @Override
-            public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
-                // Right now, all hit bodies are contained in GameObjects
-                GameObject objHit = (GameObject) fixture.getBody().getUserData();
-
-                if (ignore.contains(objHit.getType())) {
-                    return 1;
-                }
+        this(map, Algorithm.ASTAR);
+    }
 
-                outputCollision.set(point, normal);
-                this.fixture = fixture;
-                this.fraction = fraction;
-                this.hit = fraction != 0;
-                if (this.hit) {
-                    this.hitObject = objHit;
-                }
-                return fraction;
-            }
-        };
+    /**
+     * @param map       Map pathfinding will be perform on
+     * @param algorithm search algorithm to use
+     */
+    public AStarPathFinding(AStarMap map, Algorithm algorithm) {
+        this.map = map;
+        this.algorithm = algorithm;
+        this.graph = createGraph(map);
     }
 
     /**
-     * @param source world position of source
-     * @param target world position of target
-     * @return Path from source to target using A*
+     * Returns the node to start or end a search at for an endpoint. If the endpoint lies on an obstacle,
+     * an adjacent walkable node in the direction of the other endpoint is used instead.
+     *
+     * @param endpoint world position of the endpoint
+     * @param other    world position of the other endpoint of the path
      */
-    public Path findPath(Vector2 source, Vector2 target) {
-        // Check adjacent nodes if source or target node is an obstacle
-        Node sourceNode = map.getNodeAtWorld(source.x, source.y);
-        if (sourceNode.isObstacle) {
+    public Node getEndpointNode(Vector2 endpoint, Vector2 other) {
+        // Check adjacent nodes if node is an obstacle
+        Node node = map.getNodeAtWorld(endpoint.x, endpoint.y);
+        if (!map.isWalkable(node.getIndex())) {
+            Node center = node;
             for (int i = -1; i < 2; i++) {
                 for (int j = -1; j < 2; j++) {
-                    Node next = map.getNodeAt(sourceNode.x + i, sourceNode.y + j);
-                    float dot = target.dot(next.position) - target.dot(source) - source.dot(next.position) + source.len2();
-                    if (!next.isObstacle && dot < 0) sourceNode = next;
+                    Node next = map.getNodeAt(center.x + i, center.y + j);
+                    float dot = other.dot(next.position) - other.dot(endpoint) - endpoint.dot(next.position) + endpoint.len2();
+                    if (map.isWalkable(next.getIndex()) && dot < 0) node = next;
                 }
             }
         }
+        return node;
+    }
 
-        Node targetNode = map.getNodeAtWorld(target.x, target.y);
-        if (targetNode.isObstacle) {
-            for (int i = -1; i < 2; i++) {
-                for (int j = -1; j < 2; j++) {
-                    Node next = map.getNodeAt(targetNode.x + i, targetNode.y + j);
-                    float dot = source.dot(next.position) - source.dot(target) - target.dot(next.position) + target.len2();
-                    if (!next.isObstacle && dot < 0) targetNode = next;
-                }
-            }
+    /**
+     * Converts a node path found by a search into a path that can be followed.
+     * The source and target world positions are used instead of the start and goal node.
+     * This is so we always have at least two waypoints and the path is more accurate.
+     *
+     * @param nodes nodes found by the search
+     * @param path  receives the waypoints, its arrays are reused
+     * @return path for chaining
+     */
+    public WaypointPath createPath(Vector2 source, Vector2 target, GraphPath<Node> nodes, WaypointPath path) {
+        path.clear();
+        path.add(source.x, source.y);
+        for (int i = 1; i < nodes.getCount() - 1; i++) {
+            Node node = nodes.get(i);
+            path.add(node.position.x, node.position.y);
         }
+        path.add(target.x, target.y);
+        return path;
+    }
 
-        if (sourceNode == null || targetNode == null) {
-            return null;
+    /**
+     * Creates a new pathfinder over {@link #map} using the configured algorithm.
+     * Every algorithm estimates costs with its own octile distance, so the heuristic passed to a search may be null.
+     * Pathfinders keep search state, so interruptible searches need their own instance.
+     * The hierarchical pathfinder is the exception, its searches always complete in one call so a single instance is shared.
+     */
+    public PathFinder<Node> createFinder() {
+        switch (algorithm) {
+            case JPS:
+                return new JumpPointPathFinder(map);
+            case HPA:
+                if (hierarchical == null) hierarchical = new HierarchicalPathFinder(map);
+                return hierarchical;
+            case ASTAR:
+            default:
+                return new GridAStarPathFinder(map);
         }
+    }
 
-        connectionPath.clear();
-        pathfinder.searchNodePath(sourceNode, targetNode, heuristic, connectionPath);
-
-        // Use the source and target world positions instead of start and goal node
-        // This is so we always have at least two waypoints and the path is more accurate
-        waypoints.clear();
-        waypoints.add(source);
-        for (int i = 1; i < connectionPath.getCount() - 1; i++) {
-            Node node = connectionPath.get(i);
-            waypoints.add(node.position);
-        }
-        waypoints.add(target);
+    /**
+     * Updates the pathfinding structures after the walkability of the cells (x0, y0) to (x1, y1) inclusive changed.
+     * Connectivity is implicit in the map, so only the connections cached by {@link #getGraph()} around the region
+     * are dropped. The hierarchical pathfinder is recreated on its next use, finders created before must be
+     * replaced, see {@link PathScheduler#invalidate()}. Other finders read the new walkability by themselves.
+     */
+    public void invalidate(int x0, int y0, int x1, int y1) {
+        // Neighbours of the region gain or lose connections into it
+        graph.invalidate(x0 - 1, y0 - 1, x1 + 1, y1 + 1);
+        hierarchical = null;
+    }
 
-        Path path = new LinePath(waypoints);
-        return path;
+    /**
+     * @return algorithm used by the pathfinders
+     */
+    public Algorithm getAlgorithm() {
+        return algorithm;
     }
 
-    private static final int[][] NEIGHBORHOOD = new int[][]{
-            new int[]{-1, 0},
-            new int[]{0, -1},
-            new int[]{0, 1},
-            new int[]{1, 0},
-            new int[]{-1, 1},
-            new int[]{-1, -1},
-            new int[]{1, -1},
-            new int[]{1, 1}
-    };
+    /**
+     * @return graph over the nodes of {@link #map}, for use with gdx-ai's finders
+     */
+    public IndexedGraph<Node> getGraph() {
+        return graph;
+    }
 
     /**
-     * Create graph with adjacent and diagonal connections between nodes.
+     * Create graph with adjacent and diagonal connections between nodes, diagonals never cutting obstacle corners.
      *
      * @param map Map holding nodes
      */
     public static AStarGraph createGraph(AStarMap map) {
-        final int height = map.getHeight();
-        final int width = map.getWidth();
-        AStarGraph graph = new AStarGraph(map);
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                Node node = map.getNodeAt(x, y);
-                if (node.isObstacle) {
-                    continue;
-                }
-                // Add a connection for each valid neighbor
-                for (int offset = 0; offset < NEIGHBORHOOD.length; offset++) {
-                    int neighborX = node.x + NEIGHBORHOOD[offset][0];
-                    int neighborY = node.y + NEIGHBORHOOD[offset][1];
-                    if (neighborX >= 0 && neighborX < width && neighborY >= 0 && neighborY < height) {
-                        Node neighbor = map.getNodeAt(neighborX, neighborY);
-                        if (!neighbor.isObstacle) {
-                            // Add connection to walkable neighbor
-                            node.getConnections().add(new DefaultConnection(node, neighbor));
-                        }
-                    }
-                }
-                node.getConnections().shuffle();
-            }
-        }
-        return graph;
+        return new AStarGraph(map);
     }
 
 
     /**
-     * Wrapper around AStarMap to implement IndexedGraph
+     * Wrapper around AStarMap to implement IndexedGraph.
+     * <p>
+     * Connectivity is implicit in the map, each walkable node is connected to its 8 neighbours as allowed by
+     * {@link AStarMap#canStep}.
+     * gdx-ai's finders keep references to the connections they traverse, so connection objects are only created,
+     * then cached, for the nodes such a finder expands. {@link GridAStarPathFinder} never asks for them.
      */
     public static class AStarGraph implements IndexedGraph<Node> {
         AStarMap map;
 
+        /**
+         * Connections of each node, null until first requested
+         */
+        private final Array<Connection<Node>>[] connections;
+
+        @SuppressWarnings("unchecked")
         public AStarGraph(AStarMap map) {
             this.map = map;
+            this.connections = new Array[map.getWidth() * map.getHeight()];
         }
 
         @Override
@@ -193,7 +195,35 @@ public class AStarPathFinding {
 
         @Override
         public Array<Connection<Node>> getConnections(Node fromNode) {
-            return fromNode.getConnections();
+            Array<Connection<Node>> nodeConnections = connections[fromNode.getIndex()];
+            if (nodeConnections == null) {
+                nodeConnections = new Array<>(8);
+                if (map.isWalkable(fromNode.getIndex())) {
+                    // Add a connection for each neighbor that can be stepped to
+                    for (int i = 0; i < AStarMap.OFFSET_X.length; i++) {
+                        int neighborX = fromNode.x + AStarMap.OFFSET_X[i];
+                        int neighborY = fromNode.y + AStarMap.OFFSET_Y[i];
+                        if (map.canStep(fromNode.x, fromNode.y, AStarMap.OFFSET_X[i], AStarMap.OFFSET_Y[i])) {
+                            nodeConnections.add(new DefaultConnection<>(fromNode, map.getNodeAt(neighborX, neighborY)));
+                        }
+                    }
+                    nodeConnections.shuffle();
+                }
+                connections[fromNode.getIndex()] = nodeConnections;
+            }
+            return nodeConnections;
+        }
+
+        /**
+         * Drops the cached connections of the nodes (x0, y0) to (x1, y1) inclusive, clamped to the map
+         */
+        void invalidate(int x0, int y0, int x1, int y1) {
+            int height = map.getHeight();
+            for (int x = Math.max(0, x0); x <= Math.min(map.getWidth() - 1, x1); x++) {
+                for (int y = Math.max(0, y0); y <= Math.min(height - 1, y1); y++) {
+                    connections[x * height + y] = null;
+                }
+            }
         }
 
         @Override
@@ -202,4 +232,4 @@ public class AStarPathFinding {
         }
 
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,268 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.math.Vector2;
+
+import java.util.Arrays;
+
+/**
+ * Flow field towards a single target over an {@link AStarMap}.
+ * <p>
+ * The integration field holds the cost of the shortest path from every cell to the target cell, computed with Dijkstra's
+ * algorithm over the same 8-neighbour connectivity as {@link AStarPathFinding#createGraph}. The direction field stores
+ * for every cell the neighbour to move to next. Both are only recomputed when the target enters another cell, so any
+ * number of agents chasing the same target can sample their next steps in constant time.
+ */
+public class FlowField {
+
+    /**
+     * Cost of cells the target cannot be reached from
+     */
+    private static final float UNREACHABLE = Float.MAX_VALUE;
+
+    /**
+     * Grid offsets of the neighbours of a cell
+     */
+    private static final int[] OFFSET_X = new int[]{-1, 0, 0, 1, -1, -1, 1, 1};
+    private static final int[] OFFSET_Y = new int[]{0, -1, 1, 0, 1, -1, -1, 1};
+
+    private final AStarMap map;
+
+    /**
+     * Map dimensions in cells
+     */
+    private final int width, height;
+
+    /**
+     * World distance to each neighbour, cells are not necessarily square
+     */
+    private final float[] stepCost;
+
+    /**
+     * Integration field, cost from each cell to the target. Cells are indexed like {@link Node#getIndex()}.
+     */
+    private final float[] cost;
+
+    /**
+     * Direction field, index of the neighbour to move to from each cell. -1 for the target and unreachable cells.
+     */
+    private final int[] next;
+
+    /**
+     * Binary min-heap of cells ordered by cost, and the position of each cell in it (-1 if absent)
+     */
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    /**
+     * Cell the fields currently lead to, -1 if not computed yet
+     */
+    private int targetCell;
+
+    /**
+     * Whether obstacles changed since the fields were computed, they are then recomputed on their next use
+     */
+    private boolean stale;
+
+    /**
+     * Exact world position of the target
+     */
+    private final Vector2 target;
+
+    /**
+     * @param map Map the field is computed over
+     */
+    public FlowField(AStarMap map) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+
+        Vector2 gridSize = map.getGridSize();
+        this.stepCost = new float[OFFSET_X.length];
+        for (int i = 0; i < stepCost.length; i++) {
+            stepCost[i] = Vector2.len(OFFSET_X[i] * gridSize.x, OFFSET_Y[i] * gridSize.y);
+        }
+
+        int count = width * height;
+        this.cost = new float[count];
+        this.next = new int[count];
+        this.heap = new int[count];
+        this.heapIndex = new int[count];
+        this.targetCell = -1;
+        this.target = new Vector2();
+    }
+
+    /**
+     * Moves the target of the field. The fields are only recomputed if the target entered another cell.
+     *
+     * @param position world position of the target
+     * @return whether the fields were recomputed
+     */
+    public boolean setTarget(Vector2 position) {
+        target.set(position);
+        int cell = map.getNodeAtWorld(position.x, position.y).getIndex();
+        if (cell == targetCell && !stale) return false;
+        targetCell = cell;
+        stale = false;
+        integrate();
+        return true;
+    }
+
+    /**
+     * Marks the fields as out of date, should be called after obstacles of the map changed.
+     * They are recomputed on their next use, so many changes in a row cost a single recomputation.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Follows the direction field from the given world position towards the target.
+     * At most out.length cells are visited, so this runs in constant time.
+     *
+     * @param x   world x-position to start from
+     * @param y   world y-position to start from
+     * @param out receives the world positions of the visited cell centers, in order.
+     *            If the target cell is reached the last position is the exact target position.
+     * @return number of positions written to out, 0 if the target cannot be reached from (x, y)
+     */
+    public int trace(float x, float y, Vector2[] out) {
+        if (targetCell < 0) return 0;
+        if (stale) {
+            stale = false;
+            integrate();
+        }
+
+        int cell = map.getNodeAtWorld(x, y).getIndex();
+        int count = 0;
+        if (cost[cell] == UNREACHABLE) {
+            // Start is likely inside an obstacle, step out to the best neighbour first
+            cell = cheapestNeighbor(cell);
+            if (cell < 0) return 0;
+            if (cell != targetCell) out[count++].set(positionOf(cell));
+        }
+
+        while (count < out.length) {
+            if (cell == targetCell) {
+                out[count++].set(target);
+                break;
+            }
+            cell = next[cell];
+            if (cell != targetCell) out[count++].set(positionOf(cell));
+        }
+        return count;
+    }
+
+    /**
+     * Dijkstra from the target cell over every walkable cell
+     */
+    private void integrate() {
+        Arrays.fill(cost, UNREACHABLE);
+        Arrays.fill(next, -1);
+        Arrays.fill(heapIndex, -1);
+        heapSize = 0;
+
+        // The target cell is always expanded, even if it is an obstacle
+        cost[targetCell] = 0;
+        push(targetCell);
+
+        while (heapSize > 0) {
+            int cell = pop();
+            int cx = cell / height;
+            int cy = cell % height;
+            float cellCost = cost[cell];
+            for (int i = 0; i < OFFSET_X.length; i++) {
+                int nx = cx + OFFSET_X[i];
+                int ny = cy + OFFSET_Y[i];
+                if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+                int neighbor = nx * height + ny;
+                if (!map.canStep(cx, cy, OFFSET_X[i], OFFSET_Y[i])) continue;
+
+                float newCost = cellCost + stepCost[i];
+                if (newCost < cost[neighbor]) {
+                    cost[neighbor] = newCost;
+                    next[neighbor] = cell;
+                    if (heapIndex[neighbor] < 0) {
+                        push(neighbor);
+                    } else {
+                        siftUp(heapIndex[neighbor]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the reachable neighbour of the cell with the lowest cost, -1 if there is none
+     */
+    private int cheapestNeighbor(int cell) {
+        int cx = cell / height;
+        int cy = cell % height;
+        int best = -1;
+        float bestCost = UNREACHABLE;
+        for (int i = 0; i < OFFSET_X.length; i++) {
+            int nx = cx + OFFSET_X[i];
+            int ny = cy + OFFSET_Y[i];
+            if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+            int neighbor = nx * height + ny;
+            if (cost[neighbor] < bestCost && map.canStep(cx, cy, OFFSET_X[i], OFFSET_Y[i])) {
+                bestCost = cost[neighbor];
+                best = neighbor;
+            }
+        }
+        return best;
+    }
+
+    private Vector2 positionOf(int cell) {
+        return map.getNodeAt(cell / height, cell % height).position;
+    }
+
+    private void push(int cell) {
+        heap[heapSize] = cell;
+        heapIndex[cell] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int cell = heap[i];
+        float c = cost[cell];
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (cost[heap[parent]] <= c) break;
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+
+    private void siftDown(int i) {
+        int cell = heap[i];
+        float c = cost[cell];
+        int half = heapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && cost[heap[right]] < cost[heap[child]]) child = right;
+            if (cost[heap[child]] >= c) break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = cell;
+        heapIndex[cell] = i;
+    }
+}
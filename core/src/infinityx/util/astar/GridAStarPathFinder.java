@@ -0,0 +1,291 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultConnection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * A* over the implicit 8-neighbour grid of an {@link AStarMap}.
+ * <p>
+ * Unlike {@link IndexedAStarPathFinder}, no connection or node record objects are involved. Neighbours are read from
+ * the walkability bitset of the map, and the search state of every node lives in primitive arrays indexed like
+ * {@link Node#getIndex()}, reused across searches. Connectivity matches {@link AStarPathFinding.AStarGraph}, moves cost
+ * their world length and an octile heuristic (generalized to non-square cells) is always used, the heuristic passed
+ * to the search methods is ignored and may be null.
+ * <p>
+ * Walkability is read live from the map, so obstacle changes are seen by the next search.
+ */
+public class GridAStarPathFinder implements PathFinder<Node> {
+
+    private final AStarMap map;
+
+    /**
+     * Map dimensions in cells
+     */
+    private final int width, height;
+
+    /**
+     * Cost of moving to each neighbour, and of horizontal, vertical and diagonal moves
+     */
+    private final float[] stepCost;
+    private final float straightX, straightY, diagonal;
+
+    /**
+     * Per node records, indexed like {@link Node#getIndex()}
+     */
+    private final float[] cost;
+    private final float[] estimate;
+    private final int[] parent;
+
+    /**
+     * Id of the search a node was last opened and closed in
+     */
+    private final int[] openedIn;
+    private final int[] closedIn;
+    private int searchId;
+
+    /**
+     * Binary min-heap of open nodes ordered by estimated total cost, and the position of each node in it
+     */
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    /**
+     * Goal of the current search
+     */
+    private int goal;
+
+    /**
+     * Nodes expanded by the current search
+     */
+    private int expanded;
+
+    /**
+     * @param map Map holding nodes
+     */
+    public GridAStarPathFinder(AStarMap map) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+
+        Vector2 gridSize = map.getGridSize();
+        this.straightX = gridSize.x;
+        this.straightY = gridSize.y;
+        this.diagonal = gridSize.len();
+        this.stepCost = new float[AStarMap.OFFSET_X.length];
+        for (int i = 0; i < stepCost.length; i++) {
+            stepCost[i] = Vector2.len(AStarMap.OFFSET_X[i] * gridSize.x, AStarMap.OFFSET_Y[i] * gridSize.y);
+        }
+
+        int count = width * height;
+        this.cost = new float[count];
+        this.estimate = new float[count];
+        this.parent = new int[count];
+        this.openedIn = new int[count];
+        this.closedIn = new int[count];
+        this.heap = new int[count];
+        this.heapIndex = new int[count];
+    }
+
+    /**
+     * @return number of nodes expanded by the last search
+     */
+    public int getExpandedNodes() {
+        return expanded;
+    }
+
+    @Override
+    public boolean searchNodePath(Node startNode, Node endNode, Heuristic<Node> heuristic, GraphPath<Node> outPath) {
+        if (!search(startNode, endNode)) return false;
+        generateNodePath(outPath);
+        return true;
+    }
+
+    @Override
+    public boolean searchConnectionPath(Node startNode, Node endNode, Heuristic<Node> heuristic, GraphPath<Connection<Node>> outPath) {
+        if (!search(startNode, endNode)) return false;
+
+        int node = goal;
+        while (parent[node] >= 0) {
+            outPath.add(new DefaultConnection<>(map.getNode(parent[node]), map.getNode(node)));
+            node = parent[node];
+        }
+        outPath.reverse();
+        return true;
+    }
+
+    @Override
+    public boolean search(PathFinderRequest<Node> request, long timeToRun) {
+        long lastTime = TimeUtils.nanoTime();
+
+        // We have to initialize the search if the status has just changed
+        if (request.statusChanged) {
+            initSearch(request.startNode, request.endNode);
+            request.statusChanged = false;
+        }
+
+        while (heapSize > 0) {
+            // Check the available time
+            long currentTime = TimeUtils.nanoTime();
+            timeToRun -= currentTime - lastTime;
+            if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+            int current = pop();
+            if (current == goal) {
+                request.pathFound = true;
+                generateNodePath(request.resultPath);
+                return true;
+            }
+            expand(current);
+
+            lastTime = currentTime;
+        }
+
+        // The open list is empty and we've not found a path
+        request.pathFound = false;
+        return true;
+    }
+
+    /**
+     * Runs a complete search
+     *
+     * @return whether a path was found
+     */
+    private boolean search(Node startNode, Node endNode) {
+        initSearch(startNode, endNode);
+        while (heapSize > 0) {
+            int current = pop();
+            if (current == goal) return true;
+            expand(current);
+        }
+        return false;
+    }
+
+    private void initSearch(Node startNode, Node endNode) {
+        // Bumping the search id invalidates the records of previous searches
+        searchId++;
+        heapSize = 0;
+        expanded = 0;
+        goal = endNode.getIndex();
+
+        int start = startNode.getIndex();
+        cost[start] = 0;
+        parent[start] = -1;
+        open(start, octile(start, goal));
+    }
+
+    /**
+     * Relaxes every walkable neighbour of the node
+     */
+    private void expand(int node) {
+        expanded++;
+        int x = node / height;
+        int y = node % height;
+        float nodeCost = cost[node];
+        for (int i = 0; i < stepCost.length; i++) {
+            int nx = x + AStarMap.OFFSET_X[i];
+            int ny = y + AStarMap.OFFSET_Y[i];
+            if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+            int neighbor = nx * height + ny;
+            if (closedIn[neighbor] == searchId || !map.canStep(x, y, AStarMap.OFFSET_X[i], AStarMap.OFFSET_Y[i])) continue;
+
+            float newCost = nodeCost + stepCost[i];
+            boolean isOpen = openedIn[neighbor] == searchId;
+            if (isOpen && newCost >= cost[neighbor]) continue;
+            cost[neighbor] = newCost;
+            parent[neighbor] = node;
+            float total = newCost + octile(neighbor, goal);
+            if (isOpen) {
+                estimate[neighbor] = total;
+                siftUp(heapIndex[neighbor]);
+            } else {
+                open(neighbor, total);
+            }
+        }
+    }
+
+    /**
+     * Octile distance between two nodes for cells of size straightX by straightY,
+     * the exact cost between them on an empty grid
+     */
+    private float octile(int from, int to) {
+        int nx = Math.abs(from / height - to / height);
+        int ny = Math.abs(from % height - to % height);
+        int diagonals = Math.min(nx, ny);
+        return diagonals * diagonal + (nx - diagonals) * straightX + (ny - diagonals) * straightY;
+    }
+
+    /**
+     * Adds the nodes from the start to the goal to outPath
+     */
+    private void generateNodePath(GraphPath<Node> outPath) {
+        int node = goal;
+        while (node >= 0) {
+            outPath.add(map.getNode(node));
+            node = parent[node];
+        }
+        outPath.reverse();
+    }
+
+    private void open(int node, float total) {
+        openedIn[node] = searchId;
+        estimate[node] = total;
+        heap[heapSize] = node;
+        heapIndex[node] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Removes the open node with the lowest estimate and closes it
+     */
+    private int pop() {
+        int top = heap[0];
+        closedIn[top] = searchId;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        float f = estimate[node];
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (estimate[heap[up]] <= f) break;
+            heap[i] = heap[up];
+            heapIndex[heap[i]] = i;
+            i = up;
+        }
+        heap[i] = node;
+        heapIndex[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        float f = estimate[node];
+        int half = heapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && estimate[heap[right]] < estimate[heap[child]]) child = right;
+            if (estimate[heap[child]] >= f) break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = node;
+        heapIndex[node] = i;
+    }
+}
@@ -0,0 +1,694 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultConnection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical pathfinding (HPA*) over the grid of an {@link AStarMap}.
+ * <p>
+ * The grid is split into square sectors of {@link #SECTOR_SIZE} cells. Where walkable cells meet across a sector border,
+ * entrances are placed, and the cost between every pair of entrances of a sector is precomputed with a search bounded
+ * to the sector. A query first searches this small abstract graph, then refines each abstract edge with a search bounded
+ * to one or two sectors. Long queries thus cost a fraction of a flat A* over the whole grid.
+ * <p>
+ * Every edge of the abstract path is refined, as followers need a walkable path all the way.
+ * <p>
+ * Connectivity matches {@link AStarPathFinding#createGraph}, 8 neighbours with diagonals never cutting obstacle
+ * corners, see {@link AStarMap#canStep}. Paths are optimal
+ * within the abstraction, not necessarily over the whole grid. Walkability is copied when the finder is created.
+ * Costs are estimated with an octile distance, the heuristic passed to the search methods is ignored and may be null.
+ */
+public class HierarchicalPathFinder implements PathFinder<Node> {
+
+    /**
+     * Width and height of a sector in cells
+     */
+    public static final int SECTOR_SIZE = 16;
+
+    /**
+     * Border runs at least this long get an entrance at both ends instead of one in the middle
+     */
+    private static final int WIDE_ENTRANCE = 6;
+
+    /**
+     * Grid offsets of the neighbours of a cell
+     */
+    private static final int[] OFFSET_X = new int[]{-1, 0, 0, 1, -1, -1, 1, 1};
+    private static final int[] OFFSET_Y = new int[]{0, -1, 1, 0, 1, -1, -1, 1};
+
+    private final AStarMap map;
+
+    /**
+     * Map dimensions in cells and sectors
+     */
+    private final int width, height;
+    private final int sectorsX, sectorsY;
+
+    /**
+     * Walkable cells, bit i is set if the node with index i is not an obstacle
+     */
+    private final long[] walkable;
+
+    /**
+     * Cost of moving to each neighbour, and of horizontal, vertical and diagonal moves
+     */
+    private final float[] stepCost;
+    private final float straightX, straightY, diagonal;
+
+    /// Abstract graph
+
+    /**
+     * Abstract node of each cell, -1 if the cell is not an entrance
+     */
+    private final int[] abstractOf;
+
+    /**
+     * Cell of each abstract node
+     */
+    private final IntArray abstractCell;
+
+    /**
+     * Abstract nodes of each sector
+     */
+    private final IntArray[] sectorNodes;
+
+    /**
+     * Edges of each abstract node, as target nodes and costs
+     */
+    private final Array<IntArray> edgeTarget;
+    private final Array<FloatArray> edgeCost;
+
+    /// Cell level search records, indexed like {@link Node#getIndex()}
+
+    private final float[] cellCost;
+    private final int[] cellParent;
+    private final int[] cellOpened;
+    private final int[] cellClosed;
+    private final int[] cellHeap;
+    private final int[] cellHeapIndex;
+    private final float[] cellEstimate;
+    private int cellHeapSize;
+    private int cellSearch;
+
+    /// Abstract search records, two extra slots for the start and goal of a query
+
+    private final float[] nodeCost;
+    private final float[] nodeEstimate;
+    private final int[] nodeParent;
+    private final int[] nodeOpened;
+    private final int[] nodeClosed;
+    private final int[] nodeHeap;
+    private final int[] nodeHeapIndex;
+    private int nodeHeapSize;
+    private int nodeSearch;
+
+    /**
+     * Edges from the start of the query and to its goal, as abstract nodes of their sector and costs
+     */
+    private final IntArray startTargets = new IntArray();
+    private final FloatArray startCosts = new FloatArray();
+    private final IntArray goalSources = new IntArray();
+    private final FloatArray goalCosts = new FloatArray();
+
+    /**
+     * Cells of the last abstract path, from start to goal
+     */
+    private final IntArray abstractPath = new IntArray();
+
+    /**
+     * Cells of the edge being refined, from its end
+     */
+    private final IntArray refinedCells = new IntArray();
+
+    /**
+     * Nodes expanded by the last query, abstract and cell level
+     */
+    private int expanded;
+
+    /**
+     * @param map Map holding nodes. Walkability is copied, so the finder must be recreated if obstacles change.
+     */
+    public HierarchicalPathFinder(AStarMap map) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        this.sectorsX = (width + SECTOR_SIZE - 1) / SECTOR_SIZE;
+        this.sectorsY = (height + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+        int count = width * height;
+        this.walkable = map.copyWalkable();
+
+        Vector2 gridSize = map.getGridSize();
+        this.straightX = gridSize.x;
+        this.straightY = gridSize.y;
+        this.diagonal = gridSize.len();
+        this.stepCost = new float[OFFSET_X.length];
+        for (int i = 0; i < stepCost.length; i++) {
+            stepCost[i] = Vector2.len(OFFSET_X[i] * gridSize.x, OFFSET_Y[i] * gridSize.y);
+        }
+
+        this.cellCost = new float[count];
+        this.cellParent = new int[count];
+        this.cellOpened = new int[count];
+        this.cellClosed = new int[count];
+        this.cellHeap = new int[count];
+        this.cellHeapIndex = new int[count];
+        this.cellEstimate = new float[count];
+
+        this.abstractOf = new int[count];
+        Arrays.fill(abstractOf, -1);
+        this.abstractCell = new IntArray();
+        this.sectorNodes = new IntArray[sectorsX * sectorsY];
+        for (int i = 0; i < sectorNodes.length; i++) {
+            sectorNodes[i] = new IntArray(8);
+        }
+        this.edgeTarget = new Array<>();
+        this.edgeCost = new Array<>();
+
+        buildEntrances();
+        buildIntraEdges();
+
+        int nodes = abstractCell.size + 2;
+        this.nodeCost = new float[nodes];
+        this.nodeEstimate = new float[nodes];
+        this.nodeParent = new int[nodes];
+        this.nodeOpened = new int[nodes];
+        this.nodeClosed = new int[nodes];
+        this.nodeHeap = new int[nodes];
+        this.nodeHeapIndex = new int[nodes];
+    }
+
+    /**
+     * @return number of abstract nodes (entrances)
+     */
+    public int getAbstractNodeCount() {
+        return abstractCell.size;
+    }
+
+    /**
+     * @return number of nodes expanded by the last query, abstract and cell level
+     */
+    public int getExpandedNodes() {
+        return expanded;
+    }
+
+    /**
+     * Searches the abstract graph between two nodes, without refining.
+     * When both lie in the same sector, a path within the sector is tried first and kept as a single edge.
+     *
+     * @return whether a path was found
+     */
+    private boolean searchAbstractPath(Node startNode, Node endNode) {
+        expanded = 0;
+        abstractPath.clear();
+        int start = startNode.getIndex();
+        int goal = endNode.getIndex();
+        if (!isWalkable(start) || !isWalkable(goal)) return false;
+
+        int startSector = sectorOf(start);
+        int goalSector = sectorOf(goal);
+        if (start == goal || (startSector == goalSector && cellSearch(start, goal, startSector, startSector))) {
+            abstractPath.add(start);
+            if (goal != start) abstractPath.add(goal);
+            return true;
+        }
+
+        // Connect start and goal to the entrances of their sectors
+        connect(start, startSector, startTargets, startCosts);
+        connect(goal, goalSector, goalSources, goalCosts);
+        return nodeSearch(start, goal);
+    }
+
+    /**
+     * @return number of edges of the last abstract path
+     */
+    private int getAbstractEdgeCount() {
+        return Math.max(0, abstractPath.size - 1);
+    }
+
+    /**
+     * Refines an edge of the last abstract path into cells, appending the nodes to outPath.
+     * The first node of the edge is only added for the first edge, so refining edges in order builds a continuous path.
+     *
+     * @param edge index of the edge, in [0, {@link #getAbstractEdgeCount()})
+     * @return whether the edge could be refined
+     */
+    private boolean refine(int edge, GraphPath<Node> outPath) {
+        int from = abstractPath.get(edge);
+        int to = abstractPath.get(edge + 1);
+        if (!cellSearch(from, to, sectorOf(from), sectorOf(to))) return false;
+
+        // Walk back from the end of the edge, then append in order
+        refinedCells.clear();
+        for (int cell = to; cell != from; cell = cellParent[cell]) {
+            refinedCells.add(cell);
+        }
+        if (edge == 0) outPath.add(nodeOf(from));
+        for (int i = refinedCells.size - 1; i >= 0; i--) {
+            outPath.add(nodeOf(refinedCells.get(i)));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean searchNodePath(Node startNode, Node endNode, Heuristic<Node> heuristic, GraphPath<Node> outPath) {
+        if (!searchAbstractPath(startNode, endNode)) return false;
+        if (abstractPath.size == 1) {
+            outPath.add(startNode);
+            return true;
+        }
+        for (int edge = 0; edge < getAbstractEdgeCount(); edge++) {
+            if (!refine(edge, outPath)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean searchConnectionPath(Node startNode, Node endNode, Heuristic<Node> heuristic, GraphPath<Connection<Node>> outPath) {
+        SmoothGraphPath<Node> nodes = new SmoothGraphPath<>();
+        if (!searchNodePath(startNode, endNode, heuristic, nodes)) return false;
+        for (int i = 1; i < nodes.getCount(); i++) {
+            outPath.add(new DefaultConnection<>(nodes.get(i - 1), nodes.get(i)));
+        }
+        return true;
+    }
+
+    /**
+     * Queries only search a small abstract graph and sector-sized regions, so they always complete in one call.
+     */
+    @Override
+    public boolean search(PathFinderRequest<Node> request, long timeToRun) {
+        request.statusChanged = false;
+        request.pathFound = searchNodePath(request.startNode, request.endNode, request.heuristic, request.resultPath);
+        return true;
+    }
+
+    /// Precomputation
+
+    /**
+     * Places entrances along every border between two sectors
+     */
+    private void buildEntrances() {
+        // Vertical borders, between x - 1 and x
+        for (int x = SECTOR_SIZE; x < width; x += SECTOR_SIZE) {
+            for (int y0 = 0; y0 < height; y0 += SECTOR_SIZE) {
+                int y1 = Math.min(height, y0 + SECTOR_SIZE);
+                int run = 0;
+                for (int y = y0; y <= y1; y++) {
+                    if (y < y1 && isWalkable(x - 1, y) && isWalkable(x, y)) {
+                        run++;
+                        continue;
+                    }
+                    if (run > 0) addEntrances(x - 1, y - run, 1, 0, 0, 1, run);
+                    run = 0;
+                }
+            }
+        }
+        // Horizontal borders, between y - 1 and y
+        for (int y = SECTOR_SIZE; y < height; y += SECTOR_SIZE) {
+            for (int x0 = 0; x0 < width; x0 += SECTOR_SIZE) {
+                int x1 = Math.min(width, x0 + SECTOR_SIZE);
+                int run = 0;
+                for (int x = x0; x <= x1; x++) {
+                    if (x < x1 && isWalkable(x, y - 1) && isWalkable(x, y)) {
+                        run++;
+                        continue;
+                    }
+                    if (run > 0) addEntrances(x - run, y - 1, 0, 1, 1, 0, run);
+                    run = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the transitions of a run of walkable cell pairs along a border.
+     * The run starts at cell (x, y) on the near side and goes in direction (rx, ry),
+     * the far side of the border is at offset (cx, cy).
+     *
+     * @param length number of pairs in the run
+     */
+    private void addEntrances(int x, int y, int cx, int cy, int rx, int ry, int length) {
+        if (length < WIDE_ENTRANCE) {
+            int mid = length / 2;
+            addTransition(x + rx * mid, y + ry * mid, cx, cy);
+        } else {
+            addTransition(x, y, cx, cy);
+            addTransition(x + rx * (length - 1), y + ry * (length - 1), cx, cy);
+        }
+    }
+
+    private void addTransition(int x, int y, int cx, int cy) {
+        addTransition(x * height + y, (x + cx) * height + (y + cy), cx != 0 ? straightX : straightY);
+    }
+
+    private void addTransition(int nearCell, int farCell, float cost) {
+        int near = abstractNode(nearCell);
+        int far = abstractNode(farCell);
+        edgeTarget.get(near).add(far);
+        edgeCost.get(near).add(cost);
+        edgeTarget.get(far).add(near);
+        edgeCost.get(far).add(cost);
+    }
+
+    /**
+     * @return abstract node of the cell, created if needed
+     */
+    private int abstractNode(int cell) {
+        if (abstractOf[cell] >= 0) return abstractOf[cell];
+        int id = abstractCell.size;
+        abstractOf[cell] = id;
+        abstractCell.add(cell);
+        sectorNodes[sectorOf(cell)].add(id);
+        edgeTarget.add(new IntArray(4));
+        edgeCost.add(new FloatArray(4));
+        return id;
+    }
+
+    /**
+     * Connects every pair of entrances of each sector that can reach each other within the sector
+     */
+    private void buildIntraEdges() {
+        for (int sector = 0; sector < sectorNodes.length; sector++) {
+            IntArray nodes = sectorNodes[sector];
+            for (int i = 0; i < nodes.size; i++) {
+                int from = nodes.get(i);
+                cellSearch(abstractCell.get(from), -1, sector, sector);
+                for (int j = 0; j < nodes.size; j++) {
+                    if (i == j) continue;
+                    int to = nodes.get(j);
+                    int cell = abstractCell.get(to);
+                    if (cellClosed[cell] == cellSearch) {
+                        edgeTarget.get(from).add(to);
+                        edgeCost.get(from).add(cellCost[cell]);
+                    }
+                }
+            }
+        }
+    }
+
+    /// Queries
+
+    /**
+     * Finds the costs from a cell to every entrance of its sector
+     */
+    private void connect(int cell, int sector, IntArray nodes, FloatArray costs) {
+        nodes.clear();
+        costs.clear();
+        cellSearch(cell, -1, sector, sector);
+        IntArray entrances = sectorNodes[sector];
+        for (int i = 0; i < entrances.size; i++) {
+            int node = entrances.get(i);
+            int entranceCell = abstractCell.get(node);
+            if (cellClosed[entranceCell] == cellSearch) {
+                nodes.add(node);
+                costs.add(cellCost[entranceCell]);
+            }
+        }
+    }
+
+    /**
+     * A* over the abstract graph from start to goal, which are connected through {@link #startTargets} and {@link #goalSources}.
+     * Stores the resulting cells in {@link #abstractPath}.
+     */
+    private boolean nodeSearch(int startCell, int goalCell) {
+        final int start = abstractCell.size;
+        final int goal = start + 1;
+        nodeSearch++;
+        nodeHeapSize = 0;
+
+        // The start or goal may coincide with an entrance, the extra nodes then simply connect to it at no cost
+        nodeCost[start] = 0;
+        nodeParent[start] = -1;
+        openNode(start, octile(startCell, goalCell));
+
+        while (nodeHeapSize > 0) {
+            int node = popNode();
+            expanded++;
+            if (node == goal) {
+                for (int n = goal; n >= 0; n = nodeParent[n]) {
+                    abstractPath.add(n == start ? startCell : n == goal ? goalCell : abstractCell.get(n));
+                }
+                abstractPath.reverse();
+                removeDuplicates();
+                return true;
+            }
+
+            float cost = nodeCost[node];
+            if (node == start) {
+                for (int i = 0; i < startTargets.size; i++) {
+                    relaxNode(node, startTargets.get(i), cost + startCosts.get(i), goalCell);
+                }
+                continue;
+            }
+
+            IntArray targets = edgeTarget.get(node);
+            FloatArray costs = edgeCost.get(node);
+            for (int i = 0; i < targets.size; i++) {
+                relaxNode(node, targets.get(i), cost + costs.get(i), goalCell);
+            }
+            // Entrances of the goal sector connect to the goal
+            for (int i = 0; i < goalSources.size; i++) {
+                if (goalSources.get(i) == node) {
+                    relaxNode(node, goal, cost + goalCosts.get(i), goalCell);
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void relaxNode(int from, int to, float cost, int goalCell) {
+        if (nodeClosed[to] == nodeSearch) return;
+        boolean isOpen = nodeOpened[to] == nodeSearch;
+        if (isOpen && cost >= nodeCost[to]) return;
+        nodeCost[to] = cost;
+        nodeParent[to] = from;
+        int cell = to == abstractCell.size + 1 ? goalCell : abstractCell.get(to);
+        float total = cost + octile(cell, goalCell);
+        if (isOpen) {
+            nodeEstimate[to] = total;
+            siftUpNode(nodeHeapIndex[to]);
+        } else {
+            openNode(to, total);
+        }
+    }
+
+    /**
+     * Collapses consecutive equal cells, which appear when the start or goal is an entrance itself
+     */
+    private void removeDuplicates() {
+        int size = 0;
+        for (int i = 0; i < abstractPath.size; i++) {
+            if (size == 0 || abstractPath.get(size - 1) != abstractPath.get(i)) {
+                abstractPath.set(size++, abstractPath.get(i));
+            }
+        }
+        abstractPath.size = size;
+    }
+
+    /**
+     * A* (or Dijkstra if goal is -1) over cells, bounded to the bounding box of two sectors.
+     * Results are left in the cell records, tagged with {@link #cellSearch}.
+     *
+     * @return whether the goal was reached, always false for Dijkstra
+     */
+    private boolean cellSearch(int start, int goal, int sectorA, int sectorB) {
+        int ax = sectorA % sectorsX, ay = sectorA / sectorsX;
+        int bx = sectorB % sectorsX, by = sectorB / sectorsX;
+        int minX = Math.min(ax, bx) * SECTOR_SIZE;
+        int minY = Math.min(ay, by) * SECTOR_SIZE;
+        int maxX = Math.min(width, (Math.max(ax, bx) + 1) * SECTOR_SIZE) - 1;
+        int maxY = Math.min(height, (Math.max(ay, by) + 1) * SECTOR_SIZE) - 1;
+
+        cellSearch++;
+        cellHeapSize = 0;
+        cellCost[start] = 0;
+        cellParent[start] = -1;
+        openCell(start, goal < 0 ? 0 : octile(start, goal));
+
+        while (cellHeapSize > 0) {
+            int cell = popCell();
+            expanded++;
+            if (cell == goal) return true;
+
+            int cx = cell / height;
+            int cy = cell % height;
+            float cost = cellCost[cell];
+            for (int i = 0; i < OFFSET_X.length; i++) {
+                int nx = cx + OFFSET_X[i];
+                int ny = cy + OFFSET_Y[i];
+                if (nx < minX || nx > maxX || ny < minY || ny > maxY) continue;
+                int neighbor = nx * height + ny;
+                if (!canStep(cx, cy, OFFSET_X[i], OFFSET_Y[i]) || cellClosed[neighbor] == cellSearch) continue;
+
+                float newCost = cost + stepCost[i];
+                boolean isOpen = cellOpened[neighbor] == cellSearch;
+                if (isOpen && newCost >= cellCost[neighbor]) continue;
+                cellCost[neighbor] = newCost;
+                cellParent[neighbor] = cell;
+                float total = goal < 0 ? newCost : newCost + octile(neighbor, goal);
+                if (isOpen) {
+                    cellEstimate[neighbor] = total;
+                    siftUpCell(cellHeapIndex[neighbor]);
+                } else {
+                    openCell(neighbor, total);
+                }
+            }
+        }
+        return false;
+    }
+
+    /// Helpers
+
+    private int sectorOf(int cell) {
+        return (cell % height) / SECTOR_SIZE * sectorsX + (cell / height) / SECTOR_SIZE;
+    }
+
+    /**
+     * Same rule as {@link AStarMap#canStep}, over the copied walkability
+     */
+    private boolean canStep(int x, int y, int dx, int dy) {
+        if (!isWalkable(x + dx, y + dy)) return false;
+        return dx == 0 || dy == 0 || (isWalkable(x + dx, y) && isWalkable(x, y + dy));
+    }
+
+    private boolean isWalkable(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        return isWalkable(x * height + y);
+    }
+
+    private boolean isWalkable(int index) {
+        return (walkable[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    /**
+     * Octile distance between two cells, an admissible estimate of the cost between them
+     */
+    private float octile(int from, int to) {
+        int nx = Math.abs(from / height - to / height);
+        int ny = Math.abs(from % height - to % height);
+        int diagonals = Math.min(nx, ny);
+        return diagonals * diagonal + (nx - diagonals) * straightX + (ny - diagonals) * straightY;
+    }
+
+    private Node nodeOf(int cell) {
+        return map.getNodeAt(cell / height, cell % height);
+    }
+
+    /// Cell heap
+
+    private void openCell(int cell, float total) {
+        cellOpened[cell] = cellSearch;
+        cellEstimate[cell] = total;
+        cellHeap[cellHeapSize] = cell;
+        cellHeapIndex[cell] = cellHeapSize;
+        siftUpCell(cellHeapSize++);
+    }
+
+    private int popCell() {
+        int top = cellHeap[0];
+        cellClosed[top] = cellSearch;
+        cellHeapSize--;
+        if (cellHeapSize > 0) {
+            cellHeap[0] = cellHeap[cellHeapSize];
+            cellHeapIndex[cellHeap[0]] = 0;
+            siftDownCell(0);
+        }
+        return top;
+    }
+
+    private void siftUpCell(int i) {
+        int cell = cellHeap[i];
+        float f = cellEstimate[cell];
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (cellEstimate[cellHeap[up]] <= f) break;
+            cellHeap[i] = cellHeap[up];
+            cellHeapIndex[cellHeap[i]] = i;
+            i = up;
+        }
+        cellHeap[i] = cell;
+        cellHeapIndex[cell] = i;
+    }
+
+    private void siftDownCell(int i) {
+        int cell = cellHeap[i];
+        float f = cellEstimate[cell];
+        int half = cellHeapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < cellHeapSize && cellEstimate[cellHeap[right]] < cellEstimate[cellHeap[child]]) child = right;
+            if (cellEstimate[cellHeap[child]] >= f) break;
+            cellHeap[i] = cellHeap[child];
+            cellHeapIndex[cellHeap[i]] = i;
+            i = child;
+        }
+        cellHeap[i] = cell;
+        cellHeapIndex[cell] = i;
+    }
+
+    /// Abstract node heap
+
+    private void openNode(int node, float total) {
+        nodeOpened[node] = nodeSearch;
+        nodeEstimate[node] = total;
+        nodeHeap[nodeHeapSize] = node;
+        nodeHeapIndex[node] = nodeHeapSize;
+        siftUpNode(nodeHeapSize++);
+    }
+
+    private int popNode() {
+        int top = nodeHeap[0];
+        nodeClosed[top] = nodeSearch;
+        nodeHeapSize--;
+        if (nodeHeapSize > 0) {
+            nodeHeap[0] = nodeHeap[nodeHeapSize];
+            nodeHeapIndex[nodeHeap[0]] = 0;
+            siftDownNode(0);
+        }
+        return top;
+    }
+
+    private void siftUpNode(int i) {
+        int node = nodeHeap[i];
+        float f = nodeEstimate[node];
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (nodeEstimate[nodeHeap[up]] <= f) break;
+            nodeHeap[i] = nodeHeap[up];
+            nodeHeapIndex[nodeHeap[i]] = i;
+            i = up;
+        }
+        nodeHeap[i] = node;
+        nodeHeapIndex[node] = i;
+    }
+
+    private void siftDownNode(int i) {
+        int node = nodeHeap[i];
+        float f = nodeEstimate[node];
+        int half = nodeHeapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < nodeHeapSize && nodeEstimate[nodeHeap[right]] < nodeEstimate[nodeHeap[child]]) child = right;
+            if (nodeEstimate[nodeHeap[child]] >= f) break;
+            nodeHeap[i] = nodeHeap[child];
+            nodeHeapIndex[nodeHeap[i]] = i;
+            i = child;
+        }
+        nodeHeap[i] = node;
+        nodeHeapIndex[node] = i;
+    }
+}
@@ -0,0 +1,467 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultConnection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Jump Point Search over the grid of an {@link AStarMap}.
+ * <p>
+ * Rather than expanding every neighbour, JPS prunes neighbours that can be reached at least as cheaply without going
+ * through the current node, and jumps along straight lines until it finds a node with a forced neighbour. On open grids
+ * this expands a tiny fraction of the nodes A* does, while still finding optimal paths.
+ * <p>
+ * Walkability is read from a packed bitset built when the finder is created. Diagonal moves are only allowed if both
+ * adjacent orthogonal cells are walkable, so paths never cut obstacle corners. The resulting node paths only hold the
+ * jump points, consecutive nodes are joined by straight horizontal, vertical or diagonal runs of walkable cells. Such
+ * paths can be used with {@link SmoothGraphPath} and {@link com.badlogic.gdx.ai.steer.utils.paths.LinePath} as is.
+ * <p>
+ * An octile heuristic (generalized to non-square cells) is always used, the heuristic passed to the search methods is
+ * ignored and may be null.
+ */
+public class JumpPointPathFinder implements PathFinder<Node> {
+
+    /**
+     * Grid offsets of the neighbours of a cell
+     */
+    private static final int[] OFFSET_X = new int[]{-1, 0, 0, 1, -1, -1, 1, 1};
+    private static final int[] OFFSET_Y = new int[]{0, -1, 1, 0, 1, -1, -1, 1};
+
+    private final AStarMap map;
+
+    /**
+     * Map dimensions in cells
+     */
+    private final int width, height;
+
+    /**
+     * Walkable cells, bit i is set if the node with index i is not an obstacle
+     */
+    private final long[] walkable;
+
+    /**
+     * {@link AStarMap#getRevision()} {@link #walkable} was copied at
+     */
+    private int revision;
+
+    /**
+     * Cost of horizontal, vertical and diagonal moves
+     */
+    private final float straightX, straightY, diagonal;
+
+    /**
+     * Per node records, indexed like {@link Node#getIndex()}
+     */
+    private final float[] cost;
+    private final float[] estimate;
+    private final int[] parent;
+
+    /**
+     * Id of the search a node was last opened and closed in
+     */
+    private final int[] openedIn;
+    private final int[] closedIn;
+    private int searchId;
+
+    /**
+     * Binary min-heap of open nodes ordered by estimated total cost, and the position of each node in it
+     */
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    /**
+     * Goal of the current search
+     */
+    private int goal;
+
+    /**
+     * Nodes expanded by the current search
+     */
+    private int expanded;
+
+    /**
+     * Pruned neighbour directions of the node being expanded
+     */
+    private final int[] neighborX = new int[8];
+    private final int[] neighborY = new int[8];
+
+    /**
+     * @param map Map holding nodes. Walkability is copied, and copied again by the next search if obstacles change.
+     */
+    public JumpPointPathFinder(AStarMap map) {
+        this.map = map;
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+
+        int count = width * height;
+        this.walkable = map.copyWalkable();
+        this.revision = map.getRevision();
+
+        Vector2 gridSize = map.getGridSize();
+        this.straightX = gridSize.x;
+        this.straightY = gridSize.y;
+        this.diagonal = gridSize.len();
+
+        this.cost = new float[count];
+        this.estimate = new float[count];
+        this.parent = new int[count];
+        this.openedIn = new int[count];
+        this.closedIn = new int[count];
+        this.heap = new int[count];
+        this.heapIndex = new int[count];
+    }
+
+    /**
+     * @return number of nodes expanded by the last search
+     */
+    public int getExpandedNodes() {
+        return expanded;
+    }
+
+    @Override
+    public boolean searchNodePath(Node startNode, Node endNode, Heuristic<Node> heuristic, GraphPath<Node> outPath) {
+        if (!search(startNode, endNode)) return false;
+        generateNodePath(outPath);
+        return true;
+    }
+
+    @Override
+    public boolean searchConnectionPath(Node startNode, Node endNode, Heuristic<Node> heuristic, GraphPath<Connection<Node>> outPath) {
+        if (!search(startNode, endNode)) return false;
+
+        // Connections join consecutive jump points
+        int node = goal;
+        while (parent[node] >= 0) {
+            outPath.add(new DefaultConnection<>(nodeOf(parent[node]), nodeOf(node)));
+            node = parent[node];
+        }
+        outPath.reverse();
+        return true;
+    }
+
+    @Override
+    public boolean search(PathFinderRequest<Node> request, long timeToRun) {
+        long lastTime = TimeUtils.nanoTime();
+
+        // We have to initialize the search if the status has just changed
+        if (request.statusChanged) {
+            initSearch(request.startNode, request.endNode);
+            request.statusChanged = false;
+        }
+
+        while (heapSize > 0) {
+            // Check the available time
+            long currentTime = TimeUtils.nanoTime();
+            timeToRun -= currentTime - lastTime;
+            if (timeToRun <= PathFinderQueue.TIME_TOLERANCE) return false;
+
+            int current = pop();
+            if (current == goal) {
+                request.pathFound = true;
+                generateNodePath(request.resultPath);
+                return true;
+            }
+            expand(current);
+
+            lastTime = currentTime;
+        }
+
+        // The open list is empty and we've not found a path
+        request.pathFound = false;
+        return true;
+    }
+
+    /**
+     * Runs a complete search
+     *
+     * @return whether a path was found
+     */
+    private boolean search(Node startNode, Node endNode) {
+        initSearch(startNode, endNode);
+        while (heapSize > 0) {
+            int current = pop();
+            if (current == goal) return true;
+            expand(current);
+        }
+        return false;
+    }
+
+    private void initSearch(Node startNode, Node endNode) {
+        if (revision != map.getRevision()) {
+            map.copyWalkable(walkable);
+            revision = map.getRevision();
+        }
+
+        // Bumping the search id invalidates the records of previous searches
+        searchId++;
+        heapSize = 0;
+        expanded = 0;
+        goal = endNode.getIndex();
+
+        int start = startNode.getIndex();
+        cost[start] = 0;
+        parent[start] = -1;
+        open(start, octile(start, goal));
+    }
+
+    /**
+     * Jumps from the node in every pruned direction, opening the jump points found
+     */
+    private void expand(int node) {
+        expanded++;
+        int x = node / height;
+        int y = node % height;
+        int count = findNeighbors(node, x, y);
+        for (int i = 0; i < count; i++) {
+            int jumpPoint = jump(x + neighborX[i], y + neighborY[i], neighborX[i], neighborY[i]);
+            if (jumpPoint < 0 || closedIn[jumpPoint] == searchId) continue;
+
+            float newCost = cost[node] + octile(node, jumpPoint);
+            boolean isOpen = openedIn[jumpPoint] == searchId;
+            if (!isOpen || newCost < cost[jumpPoint]) {
+                cost[jumpPoint] = newCost;
+                parent[jumpPoint] = node;
+                float total = newCost + octile(jumpPoint, goal);
+                if (isOpen) {
+                    estimate[jumpPoint] = total;
+                    siftUp(heapIndex[jumpPoint]);
+                } else {
+                    open(jumpPoint, total);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the directions worth jumping in from the node into {@link #neighborX} and {@link #neighborY}
+     *
+     * @return number of directions
+     */
+    private int findNeighbors(int node, int x, int y) {
+        int count = 0;
+        if (parent[node] < 0) {
+            // Start node, every direction
+            for (int i = 0; i < OFFSET_X.length; i++) {
+                int dx = OFFSET_X[i];
+                int dy = OFFSET_Y[i];
+                if (!isWalkable(x + dx, y + dy)) continue;
+                if (dx != 0 && dy != 0 && (!isWalkable(x + dx, y) || !isWalkable(x, y + dy))) continue;
+                neighborX[count] = dx;
+                neighborY[count++] = dy;
+            }
+            return count;
+        }
+
+        // Direction of travel from the parent
+        int dx = Integer.signum(x - parent[node] / height);
+        int dy = Integer.signum(y - parent[node] % height);
+
+        if (dx != 0 && dy != 0) {
+            boolean walkX = isWalkable(x + dx, y);
+            boolean walkY = isWalkable(x, y + dy);
+            if (walkY) {
+                neighborX[count] = 0;
+                neighborY[count++] = dy;
+            }
+            if (walkX) {
+                neighborX[count] = dx;
+                neighborY[count++] = 0;
+            }
+            if (walkX && walkY && isWalkable(x + dx, y + dy)) {
+                neighborX[count] = dx;
+                neighborY[count++] = dy;
+            }
+        } else if (dx != 0) {
+            boolean walkNext = isWalkable(x + dx, y);
+            boolean walkUp = isWalkable(x, y + 1);
+            boolean walkDown = isWalkable(x, y - 1);
+            if (walkNext) {
+                neighborX[count] = dx;
+                neighborY[count++] = 0;
+                if (walkUp && isWalkable(x + dx, y + 1)) {
+                    neighborX[count] = dx;
+                    neighborY[count++] = 1;
+                }
+                if (walkDown && isWalkable(x + dx, y - 1)) {
+                    neighborX[count] = dx;
+                    neighborY[count++] = -1;
+                }
+            }
+            if (walkUp) {
+                neighborX[count] = 0;
+                neighborY[count++] = 1;
+            }
+            if (walkDown) {
+                neighborX[count] = 0;
+                neighborY[count++] = -1;
+            }
+        } else {
+            boolean walkNext = isWalkable(x, y + dy);
+            boolean walkRight = isWalkable(x + 1, y);
+            boolean walkLeft = isWalkable(x - 1, y);
+            if (walkNext) {
+                neighborX[count] = 0;
+                neighborY[count++] = dy;
+                if (walkRight && isWalkable(x + 1, y + dy)) {
+                    neighborX[count] = 1;
+                    neighborY[count++] = dy;
+                }
+                if (walkLeft && isWalkable(x - 1, y + dy)) {
+                    neighborX[count] = -1;
+                    neighborY[count++] = dy;
+                }
+            }
+            if (walkRight) {
+                neighborX[count] = 1;
+                neighborY[count++] = 0;
+            }
+            if (walkLeft) {
+                neighborX[count] = -1;
+                neighborY[count++] = 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves from (x, y) in direction (dx, dy) until a jump point is found.
+     *
+     * @return index of the jump point, -1 if an obstacle or the edge of the map was hit first
+     */
+    private int jump(int x, int y, int dx, int dy) {
+        if (dx == 0 || dy == 0) return jumpStraight(x, y, dx, dy);
+
+        while (isWalkable(x, y)) {
+            int index = x * height + y;
+            if (index == goal) return index;
+
+            // A diagonal node is a jump point if a straight jump from it finds one
+            if (jumpStraight(x + dx, y, dx, 0) >= 0 || jumpStraight(x, y + dy, 0, dy) >= 0) return index;
+
+            // Never cut corners
+            if (!isWalkable(x + dx, y) || !isWalkable(x, y + dy)) return -1;
+            x += dx;
+            y += dy;
+        }
+        return -1;
+    }
+
+    /**
+     * Horizontal or vertical version of {@link #jump}
+     */
+    private int jumpStraight(int x, int y, int dx, int dy) {
+        while (isWalkable(x, y)) {
+            int index = x * height + y;
+            if (index == goal) return index;
+
+            // Jump point if a side opens up that was blocked behind us
+            if (dx != 0) {
+                if ((isWalkable(x, y - 1) && !isWalkable(x - dx, y - 1))
+                        || (isWalkable(x, y + 1) && !isWalkable(x - dx, y + 1))) return index;
+            } else {
+                if ((isWalkable(x - 1, y) && !isWalkable(x - 1, y - dy))
+                        || (isWalkable(x + 1, y) && !isWalkable(x + 1, y - dy))) return index;
+            }
+            x += dx;
+            y += dy;
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether the cell (x, y) is inside the map and walkable
+     */
+    private boolean isWalkable(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return false;
+        int index = x * height + y;
+        return (walkable[index >>> 6] & (1L << (index & 63))) != 0;
+    }
+
+    /**
+     * Octile distance between two nodes for cells of size straightX by straightY.
+     * Exact cost of a straight or diagonal run, and an admissible estimate otherwise.
+     */
+    private float octile(int from, int to) {
+        int nx = Math.abs(from / height - to / height);
+        int ny = Math.abs(from % height - to % height);
+        int diagonals = Math.min(nx, ny);
+        return diagonals * diagonal + (nx - diagonals) * straightX + (ny - diagonals) * straightY;
+    }
+
+    /**
+     * Adds the jump points from the start to the goal to outPath
+     */
+    private void generateNodePath(GraphPath<Node> outPath) {
+        int node = goal;
+        while (node >= 0) {
+            outPath.add(nodeOf(node));
+            node = parent[node];
+        }
+        outPath.reverse();
+    }
+
+    private Node nodeOf(int index) {
+        return map.getNodeAt(index / height, index % height);
+    }
+
+    private void open(int node, float total) {
+        openedIn[node] = searchId;
+        estimate[node] = total;
+        heap[heapSize] = node;
+        heapIndex[node] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Removes the open node with the lowest estimate and closes it
+     */
+    private int pop() {
+        int top = heap[0];
+        closedIn[top] = searchId;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        float f = estimate[node];
+        while (i > 0) {
+            int up = (i - 1) >> 1;
+            if (estimate[heap[up]] <= f) break;
+            heap[i] = heap[up];
+            heapIndex[heap[i]] = i;
+            i = up;
+        }
+        heap[i] = node;
+        heapIndex[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        float f = estimate[node];
+        int half = heapSize >> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < heapSize && estimate[heap[right]] < estimate[heap[child]]) child = right;
+            if (estimate[heap[child]] >= f) break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = node;
+        heapIndex[node] = i;
+    }
+}
@@ -0,0 +1,174 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonWriter;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * On-disk cache of baked navigation grids.
+ * <p>
+ * Entries hold the walkability bitset of an {@link AStarMap} and are keyed by a hash of everything the bitset is
+ * derived from: the level JSON, the scene object definitions and the grid cell size. An edited level thus gets a new
+ * key and is baked again, while unchanged levels skip rasterization. Only the most recent entries are kept.
+ * Other bitsets baked from the same sources, such as visibility tables, are stored alongside under their own extension.
+ */
+public class NavGridCache {
+
+    /**
+     * Bumped whenever the rasterization or the file layout changes, invalidating every entry
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Marks the start of a cache file
+     */
+    private static final int MAGIC = 0x4E415647;
+
+    /**
+     * Max number of entries kept on disk
+     */
+    private static final int MAX_ENTRIES = 64;
+
+    private static final String DIRECTORY = "save-data/navcache/";
+    private static final String EXTENSION = ".nav";
+
+    /**
+     * Computes the key of a navigation grid
+     *
+     * @param level    json value holding the level layout
+     * @param objects  json value holding the scene object definitions
+     * @param gridSize width and height of each grid cell in world size
+     * @return hex key, null if hashing is unavailable
+     */
+    public static String key(JsonValue level, JsonValue objects, Vector2 gridSize) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            String source = VERSION + "|" + gridSize.x + "|" + gridSize.y + "|"
+                    + level.toJson(JsonWriter.OutputType.minimal) + "|"
+                    + objects.toJson(JsonWriter.OutputType.minimal);
+            byte[] hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16));
+                key.append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Loads the walkability of a cached navigation grid into the map
+     *
+     * @return whether the entry existed and matched the map dimensions
+     */
+    public static boolean load(String key, AStarMap map) {
+        long[] words = load(key, EXTENSION, map.getWidth(), map.getHeight());
+        if (words == null) return false;
+        map.setWalkable(words);
+        return true;
+    }
+
+    /**
+     * Stores the walkability of the map under the given key, evicting the oldest entries if there are too many
+     */
+    public static void save(String key, AStarMap map) {
+        save(key, EXTENSION, map.getWidth(), map.getHeight(), map.copyWalkable());
+    }
+
+    /**
+     * Loads a cached bitset baked from the same sources as a navigation grid, e.g. a visibility table
+     *
+     * @param extension kind of the entry, such as ".pvs"
+     * @param width     dimension the entry must have been saved with
+     * @param height    dimension the entry must have been saved with
+     * @return the words of the bitset, null if the entry is missing or does not match the dimensions
+     */
+    public static long[] load(String key, String extension, int width, int height) {
+        FileHandle file = Gdx.files.local(DIRECTORY + key + extension);
+        if (!file.exists()) return null;
+
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(file.read(1024));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) return null;
+            if (input.readInt() != width || input.readInt() != height) return null;
+
+            long[] words = new long[input.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            // Keep entries in use from being evicted
+            file.file().setLastModified(System.currentTimeMillis());
+            return words;
+        } catch (Exception e) {
+            // Treat unreadable entries as missing, they are overwritten by the next save
+            return null;
+        } finally {
+            close(input);
+        }
+    }
+
+    /**
+     * Stores a bitset under the given key and kind, evicting the oldest entries of that kind if there are too many
+     *
+     * @param extension kind of the entry, such as ".pvs"
+     */
+    public static void save(String key, String extension, int width, int height, long[] words) {
+        FileHandle file = Gdx.files.local(DIRECTORY + key + extension);
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(file.write(false, 1024));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(width);
+            output.writeInt(height);
+            output.writeInt(words.length);
+            for (long word : words) {
+                output.writeLong(word);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            close(output);
+        }
+
+        evict(extension);
+    }
+
+    private static void close(Closeable stream) {
+        if (stream == null) return;
+        try {
+            stream.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Deletes the least recently used entries of a kind beyond {@link #MAX_ENTRIES}
+     */
+    private static void evict(String extension) {
+        FileHandle[] entries = Gdx.files.local(DIRECTORY).list(extension);
+        for (int excess = entries.length - MAX_ENTRIES; excess > 0; excess--) {
+            FileHandle oldest = null;
+            for (FileHandle entry : entries) {
+                if (entry.exists() && (oldest == null || entry.lastModified() < oldest.lastModified())) {
+                    oldest = entry;
+                }
+            }
+            if (oldest != null) oldest.delete();
+        }
+    }
+}
@@ -1,17 +1,11 @@
 package infinityx.util.astar;
 
-import com.badlogic.gdx.ai.pfa.Connection;
 import com.badlogic.gdx.math.Vector2;
-import com.badlogic.gdx.utils.Array;
 
 /**
- * A node for a {@link AStarMap}
+ * A node for a {@link AStarMap}. Walkability and connectivity are kept by the map.
  */
 public class Node {
-    /**
-     * Whether there is an obstacle on this node
-     */
-    public boolean isObstacle;
     /**
      * Index of the node in an array. Libgdx's assumes all the nodes representing a map are stored in an array
      */
@@ -22,11 +16,6 @@ public class Node {
      */
     public Vector2 position;
 
-    /**
-     * Edges from this node to another node
-     */
-    private Array<Connection<Node>> connections;
-
     /**
      * Grid position in map
      */
@@ -46,8 +35,6 @@ public class Node {
         this.y = y;
         this.position = new Vector2(wx, wy);
         this.index = x * map.getHeight() + y;
-        this.isObstacle = false;
-        this.connections = new Array<>();
     }
 
     /**
@@ -61,10 +48,6 @@ public class Node {
         return index;
     }
 
-    public Array<Connection<Node>> getConnections() {
-        return connections;
-    }
-
     @Override
     public String toString() {
         return "Node: (" + x + ", " + y + ")";
@@ -0,0 +1,234 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.PathFinderQueue;
+import com.badlogic.gdx.ai.pfa.PathFinderRequest;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Time-sliced scheduler for A* path requests.
+ * <p>
+ * Requests are searched with gdx-ai's interruptible {@link PathFinder#search(PathFinderRequest, long)},
+ * at most one at a time, within a fixed time budget per frame. A search that runs out of time is resumed next frame,
+ * so the cost of many agents re-pathing at once is spread over several frames instead of spiking a single one.
+ * <p>
+ * Every agent owns and reuses a single {@link Request}, so submitting again while a request is still queued only updates
+ * it. Urgent requests (e.g. agents near the player) are served before the others, otherwise requests are served in the
+ * order they were submitted.
+ */
+public class PathScheduler {
+
+    /**
+     * Default search budget per frame in nanoseconds
+     */
+    public static final long DEFAULT_BUDGET = 1000000L;
+
+    /**
+     * A path request, owned and reused by the requester
+     */
+    public static class Request extends PathFinderRequest<Node> {
+        /**
+         * World positions of the endpoints
+         */
+        public final Vector2 source = new Vector2();
+        public final Vector2 target = new Vector2();
+
+        /**
+         * Whether this request should be served before non-urgent ones
+         */
+        public boolean urgent;
+
+        /**
+         * Resulting path, valid once {@link #ready}. Rebuilt in place by every search of this request.
+         */
+        public final WaypointPath path = new WaypointPath();
+
+        /**
+         * Set once the path has been found, the requester should clear this after consuming the result
+         */
+        public boolean ready;
+
+        private boolean pending;
+
+        public Request() {
+            this.resultPath = new SmoothGraphPath<>();
+        }
+
+        /**
+         * Sets the endpoints of this request
+         *
+         * @return this request for chaining
+         */
+        public Request set(Vector2 source, Vector2 target) {
+            this.source.set(source);
+            this.target.set(target);
+            return this;
+        }
+
+        /**
+         * @return whether this request is waiting to be served
+         */
+        public boolean isPending() {
+            return pending;
+        }
+    }
+
+    private final AStarPathFinding pathfinding;
+
+    /**
+     * Separate pathfinder from the one of {@link #pathfinding}, as an interrupted search keeps its state in the pathfinder
+     */
+    private PathFinder<Node> pathfinder;
+
+    /**
+     * Whether {@link #pathfinder} predates a change of the grid, it is then replaced before the next search
+     */
+    private boolean stale;
+
+    /**
+     * Requests waiting to be served, in submission order
+     */
+    private final Array<Request> queue;
+
+    /**
+     * Request being searched, may span several frames
+     */
+    private Request current;
+
+    /**
+     * Search budget per frame in nanoseconds
+     */
+    private long budget;
+
+    /**
+     * @param pathfinding pathfinding utility holding the graph to search
+     */
+    public PathScheduler(AStarPathFinding pathfinding) {
+        this.pathfinding = pathfinding;
+        this.pathfinder = pathfinding.createFinder();
+        this.queue = new Array<>(true, 16);
+        this.budget = DEFAULT_BUDGET;
+    }
+
+    /**
+     * @param budget search budget per frame in nanoseconds
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Queue a request to be served. Submitting a request that is already queued only updates it, and restarts its
+     * search if it was in progress. Urgency is kept until the request is served.
+     */
+    public void submit(Request request, boolean urgent) {
+        request.ready = false;
+        if (request.pending) {
+            request.urgent |= urgent;
+            if (request == current) {
+                // Endpoints changed, partial search results are invalid
+                request.changeStatus(PathFinderRequest.SEARCH_NEW);
+            }
+            return;
+        }
+        request.urgent = urgent;
+        request.pending = true;
+        request.changeStatus(PathFinderRequest.SEARCH_NEW);
+        queue.add(request);
+    }
+
+    /**
+     * Removes a request from the queue, e.g. when its agent is removed
+     */
+    public void cancel(Request request) {
+        if (!request.pending) return;
+        request.pending = false;
+        queue.removeValue(request, true);
+        if (request == current) current = null;
+    }
+
+    /**
+     * Restarts the search in progress and marks the pathfinder to be replaced before the next search, should be
+     * called after {@link AStarPathFinding#invalidate(int, int, int, int)}. Nothing is rebuilt until a request is
+     * served, so many changes in a row cost a single rebuild.
+     */
+    public void invalidate() {
+        stale = true;
+        if (current != null) current.changeStatus(PathFinderRequest.SEARCH_NEW);
+    }
+
+    /**
+     * @return number of requests waiting to be served, including the one in progress
+     */
+    public int getPendingCount() {
+        return queue.size;
+    }
+
+    /**
+     * Serves requests until the budget of this frame runs out. Should be called once per frame.
+     * This mirrors {@link PathFinderQueue#run(long)}, picking the next request by urgency.
+     */
+    public void run() {
+        long lastTime = TimeUtils.nanoTime();
+        long timeToRun = budget;
+
+        while (timeToRun > PathFinderQueue.TIME_TOLERANCE) {
+            if (current == null) {
+                current = next();
+                if (current == null) return;
+            }
+
+            if (stale) {
+                pathfinder = pathfinding.createFinder();
+                stale = false;
+            }
+            if (current.status == PathFinderRequest.SEARCH_NEW) {
+                current.startNode = pathfinding.getEndpointNode(current.source, current.target);
+                current.endNode = pathfinding.getEndpointNode(current.target, current.source);
+                current.heuristic = null;
+                current.resultPath.clear();
+                current.executionFrames = 0;
+                current.pathFound = false;
+                current.changeStatus(PathFinderRequest.SEARCH_INITIALIZED);
+            }
+
+            current.executionFrames++;
+            if (!pathfinder.search(current, timeToRun)) {
+                // Out of time, resume next frame
+                return;
+            }
+
+            finish(current);
+            current = null;
+
+            long currentTime = TimeUtils.nanoTime();
+            timeToRun -= currentTime - lastTime;
+            lastTime = currentTime;
+        }
+    }
+
+    /**
+     * Converts the search result of a request into its path and marks it ready
+     */
+    private void finish(Request request) {
+        request.changeStatus(PathFinderRequest.SEARCH_FINALIZED);
+        queue.removeValue(request, true);
+        request.pending = false;
+
+        pathfinding.createPath(request.source, request.target, request.resultPath, request.path);
+        request.ready = true;
+    }
+
+    /**
+     * @return the first urgent request in the queue, otherwise the first request, null if empty
+     */
+    private Request next() {
+        if (queue.size == 0) return null;
+        for (int i = 0; i < queue.size; i++) {
+            if (queue.get(i).urgent) return queue.get(i);
+        }
+        return queue.first();
+    }
+}
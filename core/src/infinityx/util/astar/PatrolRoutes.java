@@ -0,0 +1,131 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.ObjectMap;
+import infinityx.util.PatrolPath;
+
+/**
+ * Routes between the consecutive waypoints of patrol paths, solved once and followed from then on.
+ * <p>
+ * Patrol waypoints are fixed during play, so each leg of a patrol is searched with A* at most once per direction,
+ * then smoothed by dropping the waypoints the route can cut straight past on the navigation grid. Routes are kept
+ * per {@link PatrolPath}, i.e. per enemy placed in the level, and are rebuilt in place on their next use after the
+ * walkability of the navigation grid changed.
+ * <p>
+ * Routes are only read by their followers, so a route can be followed by several enemies at once.
+ */
+public class PatrolRoutes {
+
+    private final AStarPathFinding pathfinding;
+
+    /**
+     * Separate pathfinder from the one of {@link #pathfinding}, replaced when the grid changes
+     */
+    private PathFinder<Node> pathfinder;
+
+    /**
+     * Revision of the map the routes were solved on
+     */
+    private int revision;
+
+    /**
+     * Legs of each patrol, legs[2 * i] goes from waypoint i to i + 1 and legs[2 * i + 1] back.
+     * A leg with no waypoints has yet to be solved.
+     */
+    private final ObjectMap<PatrolPath, WaypointPath[]> routes = new ObjectMap<>();
+
+    /**
+     * Output of the search and the route before smoothing, reused by every search
+     */
+    private final SmoothGraphPath<Node> nodes = new SmoothGraphPath<>();
+    private final WaypointPath unsmoothed = new WaypointPath();
+
+    /**
+     * @param pathfinding pathfinding utility holding the graph to search
+     */
+    public PatrolRoutes(AStarPathFinding pathfinding) {
+        this.pathfinding = pathfinding;
+        this.pathfinder = pathfinding.createFinder();
+        this.revision = pathfinding.map.getRevision();
+    }
+
+    /**
+     * Solves every leg of a patrol ahead of time, e.g. at level load
+     */
+    public void warm(PatrolPath patrol) {
+        for (int i = 0; i < patrol.getWaypointCount() - 1; i++) {
+            getRoute(patrol, i, i + 1);
+            getRoute(patrol, i + 1, i);
+        }
+    }
+
+    /**
+     * Returns the route between two consecutive waypoints of a patrol, solving it first if needed
+     *
+     * @param from index of the waypoint the route starts at
+     * @param to   index of the waypoint the route ends at, next to from
+     * @return the route, null if the indices are not those of consecutive waypoints
+     */
+    public WaypointPath getRoute(PatrolPath patrol, int from, int to) {
+        if (from < 0 || to < 0 || Math.abs(from - to) != 1) return null;
+        int count = patrol.getWaypointCount();
+        if (Math.max(from, to) >= count) return null;
+
+        if (revision != pathfinding.map.getRevision()) {
+            // The grid changed, solve every route again on its next use
+            revision = pathfinding.map.getRevision();
+            pathfinder = pathfinding.createFinder();
+            for (WaypointPath[] legs : routes.values()) {
+                for (WaypointPath leg : legs) {
+                    if (leg != null) leg.clear();
+                }
+            }
+        }
+
+        WaypointPath[] legs = routes.get(patrol);
+        if (legs == null || legs.length < 2 * (count - 1)) {
+            WaypointPath[] grown = new WaypointPath[2 * (count - 1)];
+            if (legs != null) System.arraycopy(legs, 0, grown, 0, legs.length);
+            legs = grown;
+            routes.put(patrol, legs);
+        }
+        int index = 2 * Math.min(from, to) + (from < to ? 0 : 1);
+        if (legs[index] == null) legs[index] = new WaypointPath();
+
+        WaypointPath leg = legs[index];
+        Vector2 source = patrol.getWaypointAtIndex(from);
+        Vector2 target = patrol.getWaypointAtIndex(to);
+        // Waypoints may have moved, e.g. in the editor
+        if (leg.getCount() == 0 || !leg.getStartPoint().equals(source) || !leg.getEndPoint().equals(target)) {
+            solve(source, target, leg);
+        }
+        return leg;
+    }
+
+    /**
+     * Searches a route from source to target into leg, keeping only the waypoints it cannot cut past
+     */
+    private void solve(Vector2 source, Vector2 target, WaypointPath leg) {
+        nodes.clear();
+        pathfinder.searchNodePath(
+                pathfinding.getEndpointNode(source, target),
+                pathfinding.getEndpointNode(target, source),
+                null, nodes
+        );
+        pathfinding.createPath(source, target, nodes, unsmoothed);
+
+        AStarMap map = pathfinding.map;
+        int last = unsmoothed.getCount() - 1;
+        leg.clear().add(source.x, source.y);
+        int anchor = 0;
+        for (int i = 1; i < last; i++) {
+            if (!map.isSegmentWalkable(unsmoothed.getX(anchor), unsmoothed.getY(anchor),
+                    unsmoothed.getX(i + 1), unsmoothed.getY(i + 1))) {
+                leg.add(unsmoothed.getX(i), unsmoothed.getY(i));
+                anchor = i;
+            }
+        }
+        leg.add(target.x, target.y);
+    }
+}
@@ -0,0 +1,248 @@
+package infinityx.util.astar;
+
+import com.badlogic.gdx.ai.steer.utils.Path;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Open polyline path through a list of waypoints, like gdx-ai's LinePath but tracking the progress of its followers.
+ * <p>
+ * Each {@link Param} remembers the segment its follower was closest to. Finding the closest point only looks at
+ * a few segments around it, mostly ahead, and the whole path is only scanned again when the follower strayed from
+ * them (e.g. it was knocked back) or the path changed. The target position is likewise searched from that segment.
+ * Following a long path therefore costs about the same as a short one.
+ * <p>
+ * Waypoints are copied into arrays that are reused when the path is rebuilt, so re-pathing does not allocate
+ * once the arrays are large enough.
+ */
+public class WaypointPath implements Path<Vector2, WaypointPath.Param> {
+
+    /**
+     * Number of segments looked at from the last closest one onwards
+     */
+    private static final int WINDOW = 3;
+
+    /**
+     * Followers further than this from the segments looked at have strayed, in world units
+     */
+    private static final float STRAY_DISTANCE = 1f;
+
+    /**
+     * Coordinates of the waypoints, and the distance along the path to each
+     */
+    private float[] xs, ys, lengths;
+    private int count;
+
+    /**
+     * Incremented whenever the waypoints change, so params know to scan again
+     */
+    private int revision;
+
+    private final Vector2 startPoint = new Vector2();
+    private final Vector2 endPoint = new Vector2();
+
+    /**
+     * Progress of a follower along a {@link WaypointPath}
+     */
+    public static class Param implements Path.PathParam {
+        private float distance;
+
+        /**
+         * Segment the follower was last closest to, valid for the given path and revision of it
+         */
+        private int segment;
+        private WaypointPath path;
+        private int revision;
+
+        @Override
+        public float getDistance() {
+            return distance;
+        }
+
+        @Override
+        public void setDistance(float distance) {
+            this.distance = distance;
+        }
+
+        /**
+         * @return whether the segment is that of the current waypoints of the given path
+         */
+        private boolean tracks(WaypointPath path) {
+            return this.path == path && revision == path.revision;
+        }
+
+        /**
+         * @return index of the segment the follower was last closest to
+         */
+        public int getSegment() {
+            return segment;
+        }
+    }
+
+    /**
+     * Creates an empty path, add at least two waypoints before following it
+     */
+    public WaypointPath() {
+        xs = new float[8];
+        ys = new float[8];
+        lengths = new float[8];
+    }
+
+    /**
+     * Replaces the waypoints of this path
+     *
+     * @return this path for chaining
+     */
+    public WaypointPath set(Array<Vector2> waypoints) {
+        clear();
+        for (int i = 0; i < waypoints.size; i++) {
+            add(waypoints.get(i).x, waypoints.get(i).y);
+        }
+        return this;
+    }
+
+    /**
+     * Removes every waypoint
+     *
+     * @return this path for chaining
+     */
+    public WaypointPath clear() {
+        count = 0;
+        revision++;
+        return this;
+    }
+
+    /**
+     * Appends a waypoint
+     *
+     * @return this path for chaining
+     */
+    public WaypointPath add(float x, float y) {
+        if (count == xs.length) {
+            xs = grow(xs);
+            ys = grow(ys);
+            lengths = grow(lengths);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        lengths[count] = count == 0 ? 0 : lengths[count - 1] + Vector2.dst(xs[count - 1], ys[count - 1], x, y);
+        count++;
+        return this;
+    }
+
+    private static float[] grow(float[] array) {
+        float[] grown = new float[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    /**
+     * @return number of waypoints
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return coordinates of the waypoint at the given index
+     */
+    public float getX(int index) {
+        return xs[index];
+    }
+
+    public float getY(int index) {
+        return ys[index];
+    }
+
+    @Override
+    public Param createParam() {
+        return new Param();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public float getLength() {
+        return count == 0 ? 0 : lengths[count - 1];
+    }
+
+    @Override
+    public Vector2 getStartPoint() {
+        return count == 0 ? startPoint.setZero() : startPoint.set(xs[0], ys[0]);
+    }
+
+    @Override
+    public Vector2 getEndPoint() {
+        return count == 0 ? endPoint.setZero() : endPoint.set(xs[count - 1], ys[count - 1]);
+    }
+
+    @Override
+    public float calculateDistance(Vector2 agentCurrPos, Param param) {
+        if (count < 2) {
+            param.distance = 0;
+            return 0;
+        }
+        float x = agentCurrPos.x, y = agentCurrPos.y;
+        int segments = count - 1;
+
+        boolean scan = !param.tracks(this);
+        if (!scan) {
+            // One segment back, in case the follower overshot a corner
+            int from = Math.max(0, Math.min(param.segment, segments - 1) - 1);
+            float dst2 = closest(x, y, from, Math.min(segments, from + WINDOW + 1), param);
+            scan = dst2 > STRAY_DISTANCE * STRAY_DISTANCE;
+        }
+        if (scan) {
+            closest(x, y, 0, segments, param);
+            param.path = this;
+            param.revision = revision;
+        }
+        return param.distance;
+    }
+
+    /**
+     * Finds the point of the segments [from, to) closest to (x, y), storing its segment and distance along the path
+     * in the param
+     *
+     * @return squared distance from (x, y) to that point
+     */
+    private float closest(float x, float y, int from, int to, Param param) {
+        float closestDst2 = Float.POSITIVE_INFINITY;
+        for (int s = from; s < to; s++) {
+            float ax = xs[s], ay = ys[s];
+            float dx = xs[s + 1] - ax, dy = ys[s + 1] - ay;
+            float len2 = dx * dx + dy * dy;
+            float t = len2 == 0 ? 0 : MathUtils.clamp(((x - ax) * dx + (y - ay) * dy) / len2, 0, 1);
+            float px = ax + dx * t - x, py = ay + dy * t - y;
+            float dst2 = px * px + py * py;
+            if (dst2 < closestDst2) {
+                closestDst2 = dst2;
+                param.segment = s;
+                param.distance = lengths[s] + (lengths[s + 1] - lengths[s]) * t;
+            }
+        }
+        return closestDst2;
+    }
+
+    @Override
+    public void calculateTargetPosition(Vector2 out, Param param, float targetDistance) {
+        if (count < 2) {
+            out.set(getStartPoint());
+            return;
+        }
+        float distance = MathUtils.clamp(targetDistance, 0, getLength());
+
+        // Walk from the segment of the follower, the target is usually on it or the next one
+        int s = param.tracks(this) ? Math.min(param.segment, count - 2) : 0;
+        while (s < count - 2 && lengths[s + 1] < distance) s++;
+        while (s > 0 && lengths[s] > distance) s--;
+
+        float segmentLength = lengths[s + 1] - lengths[s];
+        float t = segmentLength == 0 ? 0 : (distance - lengths[s]) / segmentLength;
+        out.set(xs[s] + (xs[s + 1] - xs[s]) * t, ys[s] + (ys[s + 1] - ys[s]) * t);
+    }
+}
@@ -0,0 +1,305 @@
+package infinityx;
+
+import com.badlogic.gdx.ai.steer.SteeringAcceleration;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import infinityx.lunarhaze.ai.CombinedContext;
+import infinityx.lunarhaze.ai.ContextBehavior;
+import infinityx.lunarhaze.ai.ContextMap;
+import infinityx.lunarhaze.ai.ContextSteering;
+
+import java.util.Arrays;
+
+/**
+ * Microbenchmark of {@link ContextSteering#calculateRealSteering} for the battle steering of enemies.
+ * <p>
+ * Every agent combines the same context behaviors as an enemy in battle: attack (disabled), strafe, separation and
+ * evade. The separation danger comes from a fixed random pattern instead of raycasts, so only the context steering
+ * core is measured. The current implementation is compared against the previous one, kept below as {@link Legacy},
+ * on identical inputs. Like JMH, each implementation runs warmup iterations before the measured ones, results are
+ * consumed so the JIT cannot drop the work, and the mean and deviation of the time per call are reported.
+ * Run with gradle benchmarkContextSteering.
+ */
+public class ContextSteeringBenchmark {
+
+	private static final int RESOLUTION = 30;
+	private static final int AGENTS = 256;
+	private static final int WARMUP_ITERATIONS = 10;
+	private static final int ITERATIONS = 20;
+	private static final int CALLS_PER_ITERATION = 200000;
+	private static final long SEED = 42;
+
+	/**
+	 * Consumes results so they are not optimized away
+	 */
+	private static float sink;
+
+	public static void main (String[] arg) {
+		RandomXS128 random = new RandomXS128(SEED);
+		Vector2[] targets = new Vector2[AGENTS];
+		boolean[][] blocked = new boolean[AGENTS][RESOLUTION];
+		for (int a = 0; a < AGENTS; a++) {
+			targets[a] = new Vector2(random.nextFloat() * 10 - 5, random.nextFloat() * 10 - 5);
+			for (int i = 0; i < RESOLUTION; i++) {
+				blocked[a][i] = random.nextFloat() < 0.1f;
+			}
+		}
+
+		ContextSteering[] current = new ContextSteering[AGENTS];
+		Legacy.Steering[] legacy = new Legacy.Steering[AGENTS];
+		for (int a = 0; a < AGENTS; a++) {
+			current[a] = createCurrent(targets[a], blocked[a]);
+			legacy[a] = Legacy.create(targets[a], blocked[a]);
+		}
+
+		// Both implementations must steer the same way
+		SteeringAcceleration<Vector2> steering = new SteeringAcceleration<>(new Vector2());
+		float maxError = 0;
+		for (int a = 0; a < AGENTS; a++) {
+			Vector2 expected = legacy[a].getDirection().cpy();
+			current[a].calculateSteering(steering);
+			maxError = Math.max(maxError, expected.dst(steering.linear));
+		}
+		System.out.printf("max difference between implementations: %.2e%n", maxError);
+
+		System.out.printf("%-8s %12s %10s%n", "impl", "ns/call", "+-");
+		report("legacy", measure(null, legacy, steering));
+		report("current", measure(current, null, steering));
+		System.out.printf("checksum %f%n", sink);
+	}
+
+	/**
+	 * Runs the warmup and measured iterations of one implementation
+	 *
+	 * @return time per call in nanoseconds of each measured iteration
+	 */
+	private static double[] measure (ContextSteering[] current, Legacy.Steering[] legacy, SteeringAcceleration<Vector2> steering) {
+		double[] results = new double[ITERATIONS];
+		for (int iteration = -WARMUP_ITERATIONS; iteration < ITERATIONS; iteration++) {
+			long start = System.nanoTime();
+			for (int call = 0; call < CALLS_PER_ITERATION; call++) {
+				int a = call % AGENTS;
+				if (current != null) {
+					current[a].calculateSteering(steering);
+					sink += steering.linear.x;
+				} else {
+					sink += legacy[a].getDirection().x;
+				}
+			}
+			long time = System.nanoTime() - start;
+			if (iteration >= 0) results[iteration] = time / (double) CALLS_PER_ITERATION;
+		}
+		return results;
+	}
+
+	private static void report (String name, double[] results) {
+		double mean = 0;
+		for (double result : results) mean += result;
+		mean /= results.length;
+		double variance = 0;
+		for (double result : results) variance += (result - mean) * (result - mean);
+		System.out.printf("%-8s %12.1f %10.1f%n", name, mean, Math.sqrt(variance / results.length));
+	}
+
+	/**
+	 * Battle steering of an agent at the origin using the current implementation
+	 */
+	private static ContextSteering createCurrent (final Vector2 target, final boolean[] blocked) {
+		final Vector2 toTarget = target.cpy().nor();
+		final Vector2 perpendicular = toTarget.cpy().rotate90(-1);
+		final Vector2 away = target.cpy().scl(-1).nor();
+		final float closeness = 1 / target.len();
+
+		ContextBehavior attack = new ContextBehavior(null, false) {
+			@Override
+			protected ContextMap calculateRealMaps (ContextMap map) {
+				return map.setInterest(toTarget.x, toTarget.y, 1);
+			}
+		};
+		ContextBehavior strafe = new ContextBehavior(null, true) {
+			@Override
+			protected ContextMap calculateRealMaps (ContextMap map) {
+				return map.setInterest(perpendicular.x, perpendicular.y, 1);
+			}
+		};
+		ContextBehavior separation = new ContextBehavior(null, true) {
+			@Override
+			protected ContextMap calculateRealMaps (ContextMap map) {
+				map.setZero();
+				int resolution = map.getResolution();
+				for (int i = 0; i < resolution; i++) {
+					if (!blocked[i]) continue;
+					for (int j = -2; j <= 2; j++) {
+						map.dangerMap[(i + j + resolution) % resolution] = 1;
+					}
+				}
+				return map;
+			}
+		};
+		ContextBehavior evade = new ContextBehavior(null, true) {
+			@Override
+			protected ContextMap calculateRealMaps (ContextMap map) {
+				return map.setInterest(away.x, away.y, closeness);
+			}
+		};
+
+		CombinedContext combined = new CombinedContext(null);
+		combined.add(attack).add(strafe).add(separation).add(evade);
+		return new ContextSteering(null, combined, RESOLUTION);
+	}
+
+	/**
+	 * The context steering implementation before the heading tables, kept as the baseline
+	 */
+	private static class Legacy {
+
+		interface Behavior {
+			void calculate (Map map);
+		}
+
+		static class Map {
+			final int resolution;
+			final float[] dangerMap;
+			final float[] interestMap;
+			private final Vector2 dirCache = new Vector2();
+
+			Map (int resolution) {
+				this.resolution = resolution;
+				this.dangerMap = new float[resolution];
+				this.interestMap = new float[resolution];
+			}
+
+			Vector2 dirFromSlot (int slot) {
+				float angle = MathUtils.PI2 * ((float) slot / resolution);
+				return dirCache.set(MathUtils.cos(angle), MathUtils.sin(angle));
+			}
+
+			void setZero () {
+				Arrays.fill(dangerMap, 0);
+				Arrays.fill(interestMap, 0);
+			}
+		}
+
+		static class Combined implements Behavior {
+			final Array<Behavior> behaviors = new Array<>();
+			final Array<Boolean> enabled = new Array<>();
+			final FloatArray dangerOutput = new FloatArray();
+			final FloatArray interestOutput = new FloatArray();
+
+			@Override
+			public void calculate (Map map) {
+				dangerOutput.setSize(map.resolution);
+				for (int i = 0; i < dangerOutput.size; i++) dangerOutput.set(i, 0);
+				interestOutput.setSize(map.resolution);
+				for (int i = 0; i < interestOutput.size; i++) interestOutput.set(i, 0);
+
+				for (int b = 0; b < behaviors.size; b++) {
+					if (enabled.get(b)) behaviors.get(b).calculate(map);
+					else map.setZero();
+					for (int i = 0; i < map.resolution; i++) {
+						dangerOutput.set(i, Math.max(dangerOutput.get(i), map.dangerMap[i]));
+						interestOutput.set(i, Math.max(interestOutput.get(i), map.interestMap[i]));
+					}
+				}
+
+				for (int i = 0; i < interestOutput.size; i++) map.interestMap[i] = interestOutput.get(i);
+				for (int i = 0; i < dangerOutput.size; i++) map.dangerMap[i] = dangerOutput.get(i);
+			}
+		}
+
+		static class Steering {
+			final Behavior behavior;
+			final boolean[] maskedSlots;
+			final Map map;
+
+			Steering (Behavior behavior, int resolution) {
+				this.behavior = behavior;
+				this.maskedSlots = new boolean[resolution];
+				this.map = new Map(resolution);
+			}
+
+			Vector2 getDirection () {
+				behavior.calculate(map);
+				float lowestDanger = Float.MAX_VALUE;
+				for (int i = 0; i < map.resolution; i++) {
+					if (map.dangerMap[i] < lowestDanger) lowestDanger = map.dangerMap[i];
+				}
+				Arrays.fill(maskedSlots, false);
+				for (int i = 0; i < map.resolution; i++) {
+					if (map.dangerMap[i] == lowestDanger) maskedSlots[i] = true;
+				}
+				for (int i = 0; i < map.resolution; i++) {
+					if (!maskedSlots[i]) map.interestMap[i] = 0;
+				}
+				int highestInterestSlot = 0;
+				float highestInterest = -Float.MAX_VALUE;
+				for (int i = 0; i < map.resolution; i++) {
+					if (map.interestMap[i] > highestInterest) {
+						highestInterest = map.interestMap[i];
+						highestInterestSlot = i;
+					}
+				}
+				return map.dirFromSlot(highestInterestSlot).scl(highestInterest);
+			}
+		}
+
+		static Steering create (final Vector2 target, final boolean[] blocked) {
+			final Vector2 toTarget = target.cpy().nor();
+			final Vector2 perpendicular = toTarget.cpy().rotate90(-1);
+			final Vector2 away = target.cpy().scl(-1);
+			final Vector2 evadeDir = new Vector2();
+
+			Combined combined = new Combined();
+			combined.behaviors.add(new Behavior() {
+				@Override
+				public void calculate (Map map) {
+					map.setZero();
+					for (int i = 0; i < map.resolution; i++) {
+						map.interestMap[i] = Math.max(0, map.dirFromSlot(i).dot(toTarget));
+					}
+				}
+			});
+			combined.enabled.add(false);
+			combined.behaviors.add(new Behavior() {
+				@Override
+				public void calculate (Map map) {
+					map.setZero();
+					for (int i = 0; i < map.resolution; i++) {
+						map.interestMap[i] = Math.max(0, map.dirFromSlot(i).dot(perpendicular));
+					}
+				}
+			});
+			combined.enabled.add(true);
+			combined.behaviors.add(new Behavior() {
+				@Override
+				public void calculate (Map map) {
+					map.setZero();
+					for (int i = 0; i < map.resolution; i++) {
+						if (!blocked[i]) continue;
+						for (int j = -2; j <= 2; j++) {
+							map.dangerMap[(i + j + map.resolution) % map.resolution] = 1;
+						}
+					}
+				}
+			});
+			combined.enabled.add(true);
+			combined.behaviors.add(new Behavior() {
+				@Override
+				public void calculate (Map map) {
+					map.setZero();
+					evadeDir.set(away);
+					float scale = 1 / evadeDir.len();
+					evadeDir.nor();
+					for (int i = 0; i < map.resolution; i++) {
+						map.interestMap[i] = scale * Math.max(0, map.dirFromSlot(i).dot(evadeDir));
+					}
+				}
+			});
+			combined.enabled.add(true);
+			return new Steering(combined, RESOLUTION);
+		}
+	}
+}
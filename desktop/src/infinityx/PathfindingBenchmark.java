@@ -0,0 +1,172 @@
+package infinityx;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.ai.pfa.Heuristic;
+import com.badlogic.gdx.ai.pfa.PathFinder;
+import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
+import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.JsonValue;
+import infinityx.assets.AssetDirectory;
+import infinityx.lunarhaze.controllers.LevelParser;
+import infinityx.lunarhaze.graphics.GameCanvas;
+import infinityx.lunarhaze.models.LevelContainer;
+import infinityx.util.astar.AStarMap;
+import infinityx.util.astar.AStarPathFinding;
+import infinityx.util.astar.GridAStarPathFinder;
+import infinityx.util.astar.HierarchicalPathFinder;
+import infinityx.util.astar.JumpPointPathFinder;
+import infinityx.util.astar.Node;
+import infinityx.util.astar.SmoothGraphPath;
+
+/**
+ * Compares gdx-ai's A* over the connection graph with A* over the compact grid, jump point search and hierarchical
+ * search on the navigation grid of every level.
+ * For each level, the same random pairs of walkable nodes are searched by every finder, reporting the average
+ * nodes expanded, microseconds per query and path length. Run from the assets directory (gradle benchmarkPathfinding).
+ */
+public class PathfindingBenchmark extends ApplicationAdapter {
+
+	private static final int LEVELS = 16;
+	private static final int QUERIES = 500;
+	private static final int WARMUP = 100;
+	private static final long SEED = 42;
+
+	/**
+	 * Column names, in the order the finders are run
+	 */
+	private static final String[] FINDERS = new String[]{"gdx A*", "A*", "JPS", "HPA"};
+
+	public static void main (String[] arg) {
+		Lwjgl3ApplicationConfiguration config = new Lwjgl3ApplicationConfiguration();
+		config.setTitle("Pathfinding Benchmark");
+		config.setWindowedMode(320, 180);
+		// Levels need a GL context to load, but nothing is drawn
+		config.setInitialVisible(false);
+		new Lwjgl3Application(new PathfindingBenchmark(), config);
+	}
+
+	@Override
+	public void create () {
+		AssetDirectory directory = new AssetDirectory("assets.json");
+		directory.loadAssets();
+		directory.finishLoading();
+
+		LevelParser parser = LevelParser.LevelParser();
+		parser.loadConstants(directory, new GameCanvas());
+		parser.setPathfinder(AStarPathFinding.Algorithm.ASTAR);
+		JsonValue levels = directory.getEntry("levels", JsonValue.class);
+
+		System.out.printf("%5s %9s", "level", "nodes");
+		for (String name : FINDERS) System.out.printf(" | %26s", name + " expanded / us / length");
+		System.out.println();
+		for (int level = 0; level < LEVELS; level++) {
+			JsonValue levelData = levels.get(String.valueOf(level));
+			if (levelData == null) continue;
+
+			LevelContainer container = parser.loadLevel(directory, levelData);
+			AStarPathFinding pathfinding = container.pathfinder;
+			AStarMap map = pathfinding.map;
+
+			Node[] starts = new Node[QUERIES];
+			Node[] ends = new Node[QUERIES];
+			RandomXS128 random = new RandomXS128(SEED);
+			if (!pickQueries(map, random, starts, ends)) {
+				System.out.printf("%5d %9d | no walkable nodes%n", level, map.getWidth() * map.getHeight());
+				continue;
+			}
+
+			IndexedAStarPathFinder<Node> gdxAstar = new IndexedAStarPathFinder<>(pathfinding.getGraph(), true);
+			GridAStarPathFinder astar = new GridAStarPathFinder(map);
+			JumpPointPathFinder jps = new JumpPointPathFinder(map);
+			HierarchicalPathFinder hpa = new HierarchicalPathFinder(map);
+			PathFinder<Node>[] finders = new PathFinder[]{gdxAstar, astar, jps, hpa};
+			SmoothGraphPath<Node> path = new SmoothGraphPath<>();
+			// Only gdx-ai's finder reads it, the others use the same octile distance internally
+			Heuristic<Node> heuristic = octile(map.getGridSize());
+
+			// Warm up all finders so the JIT has compiled their inner loops
+			for (PathFinder<Node> finder : finders) {
+				for (int i = 0; i < WARMUP; i++) {
+					path.clear();
+					finder.searchNodePath(starts[i], ends[i], heuristic, path);
+				}
+			}
+
+			System.out.printf("%5d %9d", level, map.getWidth() * map.getHeight());
+			for (PathFinder<Node> finder : finders) {
+				long expanded = 0;
+				long time = 0;
+				float length = 0;
+				for (int i = 0; i < QUERIES; i++) {
+					path.clear();
+					long start = System.nanoTime();
+					finder.searchNodePath(starts[i], ends[i], heuristic, path);
+					time += System.nanoTime() - start;
+					length += length(path);
+
+					if (finder == gdxAstar) expanded += gdxAstar.metrics.visitedNodes;
+					else if (finder == astar) expanded += astar.getExpandedNodes();
+					else if (finder == jps) expanded += jps.getExpandedNodes();
+					else expanded += hpa.getExpandedNodes();
+				}
+				System.out.printf(" | %9.1f %8.1f %7.2f", expanded / (float) QUERIES, time / 1000f / QUERIES, length / QUERIES);
+			}
+			System.out.println();
+		}
+
+		Gdx.app.exit();
+	}
+
+	/**
+	 * Octile distance between nodes for cells of the given size, matching the cost of the moves between them
+	 */
+	private static Heuristic<Node> octile (Vector2 gridSize) {
+		final float straightX = gridSize.x, straightY = gridSize.y, diagonal = gridSize.len();
+		return new Heuristic<Node>() {
+			@Override
+			public float estimate (Node node, Node endNode) {
+				int nx = Math.abs(node.x - endNode.x);
+				int ny = Math.abs(node.y - endNode.y);
+				int diagonals = Math.min(nx, ny);
+				return diagonals * diagonal + (nx - diagonals) * straightX + (ny - diagonals) * straightY;
+			}
+		};
+	}
+
+	/**
+	 * Fills starts and ends with random walkable nodes
+	 *
+	 * @return false if the map has no walkable node
+	 */
+	private static boolean pickQueries (AStarMap map, RandomXS128 random, Node[] starts, Node[] ends) {
+		for (int i = 0; i < starts.length; i++) {
+			starts[i] = randomWalkable(map, random);
+			ends[i] = randomWalkable(map, random);
+			if (starts[i] == null || ends[i] == null) return false;
+		}
+		return true;
+	}
+
+	private static Node randomWalkable (AStarMap map, RandomXS128 random) {
+		for (int attempt = 0; attempt < 10000; attempt++) {
+			Node node = map.getNodeAt(random.nextInt(map.getWidth()), random.nextInt(map.getHeight()));
+			if (map.isWalkable(node.getIndex())) return node;
+		}
+		return null;
+	}
+
+	/**
+	 * @return world length of the path through the node centers, 0 if no path was found
+	 */
+	private static float length (SmoothGraphPath<Node> path) {
+		float length = 0;
+		for (int i = 1; i < path.getCount(); i++) {
+			length += path.get(i - 1).position.dst(path.get(i).position);
+		}
+		return length;
+	}
+}